@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk;
+
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import io.asgardeo.java.oidc.sdk.bean.User;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentException;
+
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * OIDC manager service interface with asynchronous processing of the OIDC callback.
+ */
+public interface AsyncOIDCManager extends OIDCManager {
+
+    /**
+     * Processes the OIDC callback response asynchronously. The callback request is read on the calling
+     * thread, while the token request, the token response parsing and the ID token validation are done
+     * on the back-channel executor of the manager, so that the calling container thread is not held
+     * while waiting on the OP.
+     *
+     * @param request        Incoming {@link HttpServletRequest}.
+     * @param response       Outgoing {@link HttpServletResponse}.
+     * @param requestContext {@link RequestContext} object containing the authentication request related information.
+     * @return A {@link CompletableFuture} completed with the {@link SessionContext} containing the authenticated
+     * {@link User}, AccessToken, RefreshToken and IDToken, or completed exceptionally with an
+     * {@link SSOAgentException} upon failed authentication.
+     */
+    CompletableFuture<SessionContext> handleOIDCCallbackAsync(HttpServletRequest request,
+                                                              HttpServletResponse response,
+                                                              RequestContext requestContext);
+
+    /**
+     * Renews the tokens of the given session with its refresh token asynchronously, on the back-channel executor
+     * of the manager. Concurrent refreshes of the same session are coalesced into a single token request to the OP.
+     *
+     * @param sessionContext {@link SessionContext} of the logged in session.
+     * @return A {@link CompletableFuture} completed with a new {@link SessionContext} containing the renewed tokens,
+     * or completed exceptionally with an {@link SSOAgentException} if the token refresh is unsuccessful.
+     */
+    CompletableFuture<SessionContext> refreshAsync(SessionContext sessionContext);
+}
@@ -19,17 +19,12 @@
 package io.asgardeo.java.oidc.sdk;
 
 import com.nimbusds.jwt.JWT;
-import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.JWTParser;
-import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.oauth2.sdk.AbstractRequest;
 import com.nimbusds.oauth2.sdk.AccessTokenResponse;
 import com.nimbusds.oauth2.sdk.AuthorizationCode;
 import com.nimbusds.oauth2.sdk.AuthorizationCodeGrant;
-import com.nimbusds.oauth2.sdk.AuthorizationErrorResponse;
 import com.nimbusds.oauth2.sdk.AuthorizationGrant;
-import com.nimbusds.oauth2.sdk.AuthorizationResponse;
-import com.nimbusds.oauth2.sdk.AuthorizationSuccessResponse;
+import com.nimbusds.oauth2.sdk.RefreshTokenGrant;
 import com.nimbusds.oauth2.sdk.Scope;
 import com.nimbusds.oauth2.sdk.TokenErrorResponse;
 import com.nimbusds.oauth2.sdk.TokenRequest;
@@ -37,7 +32,6 @@ import com.nimbusds.oauth2.sdk.TokenResponse;
 import com.nimbusds.oauth2.sdk.auth.ClientAuthentication;
 import com.nimbusds.oauth2.sdk.auth.ClientSecretBasic;
 import com.nimbusds.oauth2.sdk.auth.Secret;
-import com.nimbusds.oauth2.sdk.http.ServletUtils;
 import com.nimbusds.oauth2.sdk.id.ClientID;
 import com.nimbusds.oauth2.sdk.token.AccessToken;
 import com.nimbusds.oauth2.sdk.token.RefreshToken;
@@ -46,14 +40,24 @@ import com.nimbusds.openid.connect.sdk.claims.IDTokenClaimsSet;
 import io.asgardeo.java.oidc.sdk.bean.RequestContext;
 import io.asgardeo.java.oidc.sdk.bean.SessionContext;
 import io.asgardeo.java.oidc.sdk.bean.User;
+import io.asgardeo.java.oidc.sdk.claims.ClaimFilter;
+import io.asgardeo.java.oidc.sdk.config.model.ImmutableOIDCAgentConfig;
 import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
 import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
 import io.asgardeo.java.oidc.sdk.exception.SSOAgentException;
 import io.asgardeo.java.oidc.sdk.exception.SSOAgentServerException;
+import io.asgardeo.java.oidc.sdk.http.BackChannelExecutors;
+import io.asgardeo.java.oidc.sdk.http.HTTPTransport;
+import io.asgardeo.java.oidc.sdk.http.PooledHTTPTransport;
+import io.asgardeo.java.oidc.sdk.request.AuthorizationURLTemplate;
 import io.asgardeo.java.oidc.sdk.request.OIDCRequestBuilder;
 import io.asgardeo.java.oidc.sdk.request.OIDCRequestResolver;
+import io.asgardeo.java.oidc.sdk.request.SignedStateCodec;
 import io.asgardeo.java.oidc.sdk.request.model.AuthenticationRequest;
+import io.asgardeo.java.oidc.sdk.request.model.CallbackResponse;
 import io.asgardeo.java.oidc.sdk.request.model.LogoutRequest;
+import io.asgardeo.java.oidc.sdk.validators.AccessTokenValidator;
+import io.asgardeo.java.oidc.sdk.validators.CachedClaimsSignedJWT;
 import io.asgardeo.java.oidc.sdk.validators.IDTokenValidator;
 import net.minidev.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
@@ -64,8 +68,13 @@ import org.apache.logging.log4j.Logger;
 import java.io.IOException;
 import java.net.URI;
 import java.text.ParseException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -73,16 +82,95 @@ import javax.servlet.http.HttpServletResponse;
 /**
  * OIDC manager implementation.
  */
-public class DefaultOIDCManager implements OIDCManager {
+public class DefaultOIDCManager implements AsyncOIDCManager {
 
     private static final Logger logger = LogManager.getLogger(DefaultOIDCManager.class);
 
-    private OIDCAgentConfig oidcAgentConfig;
+    private final HTTPTransport httpTransport;
+    private final Executor executor;
+    private volatile Configuration configuration;
+    private final ConcurrentMap<String, CompletableFuture<SessionContext>> inFlightRefreshes =
+            new ConcurrentHashMap<>();
 
     public DefaultOIDCManager(OIDCAgentConfig oidcAgentConfig) throws SSOAgentClientException {
 
+        this(oidcAgentConfig, null, null);
+    }
+
+    /**
+     * Creates an OIDC manager which sends the back-channel calls to the OP through the given transport.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} object containing the client specific details.
+     * @param httpTransport   The {@link HTTPTransport} for the calls to the OP. If {@code null}, the shared
+     *                        {@link PooledHTTPTransport} of the configuration is used.
+     * @throws SSOAgentClientException If the OIDCAgentConfig validation is unsuccessful.
+     */
+    public DefaultOIDCManager(OIDCAgentConfig oidcAgentConfig, HTTPTransport httpTransport)
+            throws SSOAgentClientException {
+
+        this(oidcAgentConfig, httpTransport, null);
+    }
+
+    /**
+     * Creates an OIDC manager which sends the back-channel calls to the OP through the given transport and
+     * runs the asynchronous callback processing and token refresh on the given executor. The synchronous
+     * {@link #handleOIDCCallback} and {@link #refresh} calls are not affected and run on the calling thread.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} object containing the client specific details.
+     * @param httpTransport   The {@link HTTPTransport} for the calls to the OP. If {@code null}, the shared
+     *                        {@link PooledHTTPTransport} of the configuration is used.
+     * @param executor        The {@link Executor} for the asynchronous callback processing and token refresh. If
+     *                        {@code null}, the back-channel executor of the configuration is used.
+     * @throws SSOAgentClientException If the OIDCAgentConfig validation is unsuccessful.
+     */
+    public DefaultOIDCManager(OIDCAgentConfig oidcAgentConfig, HTTPTransport httpTransport, Executor executor)
+            throws SSOAgentClientException {
+
         validateConfig(oidcAgentConfig);
-        this.oidcAgentConfig = oidcAgentConfig;
+        this.configuration = new Configuration(ImmutableOIDCAgentConfig.of(oidcAgentConfig));
+        this.httpTransport = httpTransport != null ? httpTransport : PooledHTTPTransport.getInstance(oidcAgentConfig);
+        this.executor = executor != null ? executor : BackChannelExecutors.getExecutor(oidcAgentConfig);
+    }
+
+    /**
+     * Replaces the configuration of the manager, e.g. after the provider metadata was refreshed.
+     * An immutable snapshot of the given configuration is validated and published atomically, so every
+     * request is processed with either the previous or the new configuration, never a mix of both.
+     * The HTTP transport and the executor of the manager are not changed. The shared token validators built
+     * for the previous configuration are evicted if the new configuration builds different ones.
+     *
+     * @param oidcAgentConfig The new {@link OIDCAgentConfig}.
+     * @throws SSOAgentClientException If the OIDCAgentConfig validation is unsuccessful.
+     */
+    public synchronized void updateConfig(OIDCAgentConfig oidcAgentConfig) throws SSOAgentClientException {
+
+        validateConfig(oidcAgentConfig);
+        Configuration replaced = this.configuration;
+        Configuration replacement = new Configuration(ImmutableOIDCAgentConfig.of(oidcAgentConfig));
+        this.configuration = replacement;
+        IDTokenValidator.evict(replaced.oidcAgentConfig, replacement.oidcAgentConfig);
+        AccessTokenValidator.evict(replaced.oidcAgentConfig, replacement.oidcAgentConfig);
+    }
+
+    /**
+     * Returns the configuration snapshot the manager currently works with.
+     *
+     * @return The current {@link ImmutableOIDCAgentConfig}.
+     */
+    public ImmutableOIDCAgentConfig getOidcAgentConfig() {
+
+        return configuration.oidcAgentConfig;
+    }
+
+    /**
+     * Returns the codec the manager currently signs the state parameters with, which is replaced along with the
+     * configuration.
+     *
+     * @return The current {@link SignedStateCodec}, {@code null} if no state signing secret is configured.
+     */
+    public SignedStateCodec getStateCodec() {
+
+        return configuration.stateCodec;
     }
 
     /**
@@ -92,7 +180,9 @@ public class DefaultOIDCManager implements OIDCManager {
     public RequestContext sendForLogin(HttpServletRequest request, HttpServletResponse response)
             throws SSOAgentException {
 
-        OIDCRequestBuilder requestBuilder = new OIDCRequestBuilder(oidcAgentConfig);
+        Configuration config = configuration;
+        OIDCRequestBuilder requestBuilder = new OIDCRequestBuilder(config.oidcAgentConfig, config.stateCodec,
+                config.getAuthorizationURLTemplate());
         AuthenticationRequest authenticationRequest = requestBuilder.buildAuthenticationRequest();
 
         try {
@@ -110,41 +200,116 @@ public class DefaultOIDCManager implements OIDCManager {
     public SessionContext handleOIDCCallback(HttpServletRequest request, HttpServletResponse response,
                                              RequestContext requestContext) throws SSOAgentException {
 
-        OIDCRequestResolver requestResolver = new OIDCRequestResolver(request, oidcAgentConfig);
-        SessionContext sessionContext = new SessionContext();
+        Configuration config = configuration;
+        OIDCRequestResolver requestResolver = new OIDCRequestResolver(request, config.oidcAgentConfig);
         Nonce nonce = requestContext.getNonce();
 
-        try {
-            if (!requestResolver.isError() && requestResolver.isAuthorizationCodeResponse()) {
-                logger.log(Level.TRACE, "Handling the OIDC Authorization response.");
-                boolean isAuthenticated = handleAuthentication(request, sessionContext, nonce);
-                if (isAuthenticated) {
-                    logger.log(Level.TRACE, "Authentication successful. Redirecting to the target page.");
-                    return sessionContext;
-                }
+        if (!requestResolver.isError() && requestResolver.isAuthorizationCodeResponse()) {
+            return handleAuthorizationCodeResponse(config, requestResolver.getCallbackResponse(), nonce);
+        }
+        throw getAuthenticationFailedException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<SessionContext> handleOIDCCallbackAsync(HttpServletRequest request,
+                                                                     HttpServletResponse response,
+                                                                     RequestContext requestContext) {
+
+        // The callback request is resolved on the calling thread, as the request must not be accessed by
+        // the executor threads.
+        Configuration config = configuration;
+        OIDCRequestResolver requestResolver = new OIDCRequestResolver(request, config.oidcAgentConfig);
+        Nonce nonce = requestContext.getNonce();
+
+        if (requestResolver.isError() || !requestResolver.isAuthorizationCodeResponse()) {
+            CompletableFuture<SessionContext> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(getAuthenticationFailedException());
+            return failedFuture;
+        }
+
+        CallbackResponse callbackResponse = requestResolver.getCallbackResponse();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return handleAuthorizationCodeResponse(config, callbackResponse, nonce);
+            } catch (SSOAgentException e) {
+                throw new CompletionException(e);
             }
+        }, executor);
+    }
 
-            logger.log(Level.ERROR, "Authentication unsuccessful. Clearing the active session and redirecting.");
-            throw new SSOAgentServerException(SSOAgentConstants.ErrorMessages.AUTHENTICATION_FAILED.getMessage(),
-                    SSOAgentConstants.ErrorMessages.AUTHENTICATION_FAILED.getCode());
-        } catch (SSOAgentServerException e) {
-            throw new SSOAgentException(e.getMessage(), e.getErrorCode());
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SessionContext refresh(SessionContext sessionContext) throws SSOAgentException {
+
+        String refreshToken = getRefreshToken(sessionContext);
+        CompletableFuture<SessionContext> refresh = new CompletableFuture<>();
+        CompletableFuture<SessionContext> inFlightRefresh = inFlightRefreshes.putIfAbsent(refreshToken, refresh);
+
+        if (inFlightRefresh != null) {
+            logger.log(Level.DEBUG, "Waiting for the in-flight token refresh of the session.");
+            return getRefreshResult(inFlightRefresh);
+        }
+        try {
+            refresh.complete(handleRefresh(configuration, sessionContext, refreshToken));
+        } catch (SSOAgentException | RuntimeException e) {
+            refresh.completeExceptionally(e);
+        } finally {
+            inFlightRefreshes.remove(refreshToken, refresh);
         }
+        return getRefreshResult(refresh);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public RequestContext logout(SessionContext sessionContext, HttpServletResponse response) throws SSOAgentException {
+    public CompletableFuture<SessionContext> refreshAsync(SessionContext sessionContext) {
 
-        if (oidcAgentConfig.getPostLogoutRedirectURI() == null) {
-            logger.info("postLogoutRedirectURI is not configured. Using the callbackURL instead.");
-            URI callbackURI = oidcAgentConfig.getCallbackUrl();
-            oidcAgentConfig.setPostLogoutRedirectURI(callbackURI);
+        String refreshToken;
+        try {
+            refreshToken = getRefreshToken(sessionContext);
+        } catch (SSOAgentException e) {
+            CompletableFuture<SessionContext> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(e);
+            return failedFuture;
         }
 
-        OIDCRequestBuilder requestBuilder = new OIDCRequestBuilder(oidcAgentConfig);
+        CompletableFuture<SessionContext> refresh = new CompletableFuture<>();
+        CompletableFuture<SessionContext> inFlightRefresh = inFlightRefreshes.putIfAbsent(refreshToken, refresh);
+        if (inFlightRefresh != null) {
+            return inFlightRefresh;
+        }
+        Configuration config = configuration;
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh.complete(handleRefresh(config, sessionContext, refreshToken));
+                } catch (SSOAgentException | RuntimeException e) {
+                    refresh.completeExceptionally(e);
+                } finally {
+                    inFlightRefreshes.remove(refreshToken, refresh);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightRefreshes.remove(refreshToken, refresh);
+            refresh.completeExceptionally(new SSOAgentException(e.getMessage(), e));
+        }
+        return refresh;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RequestContext logout(SessionContext sessionContext, HttpServletResponse response) throws SSOAgentException {
+
+        // The snapshot resolves the postLogoutRedirectURI to the callbackURL if it is not configured.
+        OIDCRequestBuilder requestBuilder = new OIDCRequestBuilder(configuration.oidcAgentConfig);
         LogoutRequest logoutRequest = requestBuilder.buildLogoutRequest(sessionContext);
 
         try {
@@ -156,41 +321,38 @@ public class DefaultOIDCManager implements OIDCManager {
         return logoutRequest.getRequestContext();
     }
 
-    private boolean handleAuthentication(final HttpServletRequest request, SessionContext authenticationInfo,
-                                         Nonce nonce) throws SSOAgentServerException {
+    private boolean handleAuthentication(Configuration config, CallbackResponse callbackResponse,
+                                         SessionContext authenticationInfo, Nonce nonce)
+            throws SSOAgentServerException {
 
-        AuthorizationResponse authorizationResponse;
         AuthorizationCode authorizationCode;
-        AuthorizationSuccessResponse successResponse;
         TokenRequest tokenRequest;
         TokenResponse tokenResponse;
 
-        try {
-            authorizationResponse = AuthorizationResponse.parse(ServletUtils.createHTTPRequest(request));
-
-            if (!authorizationResponse.indicatesSuccess()) {
-                handleErrorAuthorizationResponse(authorizationResponse);
-                return false;
-            }
-
-            successResponse = authorizationResponse.toSuccessResponse();
-            authorizationCode = successResponse.getAuthorizationCode();
-            tokenRequest = getTokenRequest(authorizationCode);
-            tokenResponse = getTokenResponse(tokenRequest);
+        if (!callbackResponse.indicatesSuccess()) {
+            handleErrorAuthorizationResponse(callbackResponse);
+            return false;
+        }
 
-            if (!tokenResponse.indicatesSuccess()) {
-                handleErrorTokenResponse(tokenRequest, tokenResponse);
-                return false;
-            }
+        authorizationCode = callbackResponse.getAuthorizationCode();
+        tokenRequest = getTokenRequest(config.oidcAgentConfig, authorizationCode);
+        tokenResponse = getTokenResponse(tokenRequest);
 
-            handleSuccessTokenResponse(tokenResponse, authenticationInfo, nonce);
-            return true;
-        } catch (com.nimbusds.oauth2.sdk.ParseException | SSOAgentServerException | IOException e) {
-            throw new SSOAgentServerException(e.getMessage(), e);
+        if (tokenResponse == null) {
+            throw new SSOAgentServerException(SSOAgentConstants.ErrorMessages.TOKEN_REQUEST_FAILED.getMessage(),
+                    SSOAgentConstants.ErrorMessages.TOKEN_REQUEST_FAILED.getCode());
+        }
+        if (!tokenResponse.indicatesSuccess()) {
+            handleErrorTokenResponse(tokenRequest, tokenResponse);
+            return false;
         }
+
+        handleSuccessTokenResponse(config, tokenResponse, authenticationInfo, nonce);
+        return true;
     }
 
-    private void handleSuccessTokenResponse(TokenResponse tokenResponse, SessionContext sessionContext, Nonce nonce)
+    private void handleSuccessTokenResponse(Configuration config, TokenResponse tokenResponse,
+                                            SessionContext sessionContext, Nonce nonce)
             throws SSOAgentServerException {
 
         AccessTokenResponse successResponse = tokenResponse.toSuccessResponse();
@@ -207,13 +369,14 @@ public class DefaultOIDCManager implements OIDCManager {
         }
 
         try {
-            JWT idTokenJWT = JWTParser.parse(idToken);
-            IDTokenValidator idTokenValidator = new IDTokenValidator(oidcAgentConfig, idTokenJWT);
-            IDTokenClaimsSet claimsSet = idTokenValidator.validate(nonce);
-            User user = new User(claimsSet.getSubject().getValue(), getUserAttributes(idToken));
+            // The ID token is parsed once. The claims set decoded during validation is reused for the user.
+            JWT idTokenJWT = CachedClaimsSignedJWT.parseJWT(idToken);
+            IDTokenClaimsSet claimsSet = config.getIDTokenValidator(httpTransport).validate(idTokenJWT, nonce);
+            User user = getUser(config, claimsSet.getSubject().getValue(), idTokenJWT);
             sessionContext.setIdToken(idTokenJWT.getParsedString());
             sessionContext.setUser(user);
             sessionContext.setAccessToken(accessToken.toJSONString());
+            sessionContext.setAccessTokenExpiryTime(getExpiryTime(accessToken));
             if (refreshToken != null) {
                 sessionContext.setRefreshToken(refreshToken.getValue());
             }
@@ -224,6 +387,111 @@ public class DefaultOIDCManager implements OIDCManager {
         }
     }
 
+    private String getRefreshToken(SessionContext sessionContext) throws SSOAgentException {
+
+        if (sessionContext == null || StringUtils.isBlank(sessionContext.getRefreshToken())) {
+            throw new SSOAgentClientException(SSOAgentConstants.ErrorMessages.REFRESH_TOKEN_NULL.getMessage(),
+                    SSOAgentConstants.ErrorMessages.REFRESH_TOKEN_NULL.getCode());
+        }
+        return sessionContext.getRefreshToken();
+    }
+
+    private SessionContext getRefreshResult(CompletableFuture<SessionContext> refresh) throws SSOAgentException {
+
+        try {
+            return refresh.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SSOAgentException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SSOAgentException) {
+                throw (SSOAgentException) e.getCause();
+            }
+            throw new SSOAgentException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private SessionContext handleRefresh(Configuration config, SessionContext sessionContext, String refreshToken)
+            throws SSOAgentException {
+
+        OIDCAgentConfig oidcAgentConfig = config.oidcAgentConfig;
+        ClientAuthentication clientAuthentication = new ClientSecretBasic(oidcAgentConfig.getConsumerKey(),
+                oidcAgentConfig.getConsumerSecret());
+        TokenRequest tokenRequest = new TokenRequest(oidcAgentConfig.getTokenEndpoint(), clientAuthentication,
+                new RefreshTokenGrant(new RefreshToken(refreshToken)));
+        TokenResponse tokenResponse = getTokenResponse(tokenRequest);
+
+        if (tokenResponse == null || !tokenResponse.indicatesSuccess()) {
+            if (tokenResponse != null) {
+                handleErrorTokenResponse(tokenRequest, tokenResponse);
+            }
+            throw new SSOAgentServerException(SSOAgentConstants.ErrorMessages.TOKEN_REFRESH_FAILED.getMessage(),
+                    SSOAgentConstants.ErrorMessages.TOKEN_REFRESH_FAILED.getCode());
+        }
+
+        AccessTokenResponse successResponse = tokenResponse.toSuccessResponse();
+        AccessToken accessToken = successResponse.getTokens().getAccessToken();
+        RefreshToken renewedRefreshToken = successResponse.getTokens().getRefreshToken();
+        Object idToken = successResponse.getCustomParameters().get(SSOAgentConstants.ID_TOKEN);
+
+        SessionContext renewedSessionContext = new SessionContext();
+        renewedSessionContext.setUser(sessionContext.getUser());
+        renewedSessionContext.setIdToken(sessionContext.getIdToken());
+        renewedSessionContext.setAccessToken(accessToken.toJSONString());
+        renewedSessionContext.setAccessTokenExpiryTime(getExpiryTime(accessToken));
+        // The OP may rotate the refresh token. Otherwise the current one stays valid.
+        renewedSessionContext.setRefreshToken(renewedRefreshToken != null ? renewedRefreshToken.getValue() :
+                refreshToken);
+
+        if (idToken != null) {
+            try {
+                JWT idTokenJWT = CachedClaimsSignedJWT.parseJWT(idToken.toString());
+                IDTokenClaimsSet claimsSet = config.getIDTokenValidator(httpTransport).validate(idTokenJWT, null);
+                String subject = claimsSet.getSubject().getValue();
+                if (sessionContext.getUser() != null && !subject.equals(sessionContext.getUser().getSubject())) {
+                    throw new SSOAgentServerException("Subject of the refreshed ID token does not match the " +
+                            "subject of the session.");
+                }
+                renewedSessionContext.setIdToken(idTokenJWT.getParsedString());
+                renewedSessionContext.setUser(getUser(config, subject, idTokenJWT));
+            } catch (ParseException e) {
+                throw new SSOAgentServerException(SSOAgentConstants.ErrorMessages.ID_TOKEN_PARSE.getMessage(),
+                        SSOAgentConstants.ErrorMessages.ID_TOKEN_PARSE.getCode(), e);
+            }
+        }
+        return renewedSessionContext;
+    }
+
+    private long getExpiryTime(AccessToken accessToken) {
+
+        return accessToken.getLifetime() > 0 ? System.currentTimeMillis() + accessToken.getLifetime() * 1000L : 0L;
+    }
+
+    private SessionContext handleAuthorizationCodeResponse(Configuration config, CallbackResponse callbackResponse,
+                                                           Nonce nonce) throws SSOAgentException {
+
+        SessionContext sessionContext = new SessionContext();
+
+        try {
+            logger.log(Level.TRACE, "Handling the OIDC Authorization response.");
+            boolean isAuthenticated = handleAuthentication(config, callbackResponse, sessionContext, nonce);
+            if (isAuthenticated) {
+                logger.log(Level.TRACE, "Authentication successful. Redirecting to the target page.");
+                return sessionContext;
+            }
+        } catch (SSOAgentServerException e) {
+            throw new SSOAgentException(e.getMessage(), e.getErrorCode());
+        }
+        throw getAuthenticationFailedException();
+    }
+
+    private SSOAgentException getAuthenticationFailedException() {
+
+        logger.log(Level.ERROR, "Authentication unsuccessful. Clearing the active session and redirecting.");
+        return new SSOAgentException(SSOAgentConstants.ErrorMessages.AUTHENTICATION_FAILED.getMessage(),
+                SSOAgentConstants.ErrorMessages.AUTHENTICATION_FAILED.getCode());
+    }
+
     private void handleErrorTokenResponse(TokenRequest tokenRequest, TokenResponse tokenResponse) {
 
         TokenErrorResponse errorResponse = tokenResponse.toErrorResponse();
@@ -234,12 +502,10 @@ public class DefaultOIDCManager implements OIDCManager {
         logger.log(Level.INFO, "Error response object: ", responseObject);
     }
 
-    private void handleErrorAuthorizationResponse(AuthorizationResponse authzResponse) {
-
-        AuthorizationErrorResponse errorResponse = authzResponse.toErrorResponse();
-        JSONObject responseObject = errorResponse.getErrorObject().toJSONObject();
+    private void handleErrorAuthorizationResponse(CallbackResponse callbackResponse) {
 
-        logger.log(Level.INFO, "Error response object: ", responseObject);
+        logger.log(Level.INFO, "Error response object: {error: " + callbackResponse.getError() +
+                ", error_description: " + callbackResponse.getErrorDescription() + "}");
     }
 
     private TokenResponse getTokenResponse(TokenRequest tokenRequest) {
@@ -247,14 +513,14 @@ public class DefaultOIDCManager implements OIDCManager {
         TokenResponse tokenResponse = null;
 
         try {
-            tokenResponse = TokenResponse.parse(tokenRequest.toHTTPRequest().send());
+            tokenResponse = TokenResponse.parse(httpTransport.send(tokenRequest.toHTTPRequest()));
         } catch (com.nimbusds.oauth2.sdk.ParseException | IOException e) {
             logger.log(Level.ERROR, "Error while parsing token response.", e);
         }
         return tokenResponse;
     }
 
-    private TokenRequest getTokenRequest(AuthorizationCode authorizationCode) {
+    private TokenRequest getTokenRequest(OIDCAgentConfig oidcAgentConfig, AuthorizationCode authorizationCode) {
 
         URI callbackURI = oidcAgentConfig.getCallbackUrl();
         AuthorizationGrant authorizationGrant = new AuthorizationCodeGrant(authorizationCode, callbackURI);
@@ -275,24 +541,15 @@ public class DefaultOIDCManager implements OIDCManager {
         return obj;
     }
 
-    private Map<String, Object> getUserAttributes(String idToken) throws SSOAgentServerException {
-
-        Map<String, Object> userClaimValueMap = new HashMap<>();
+    private User getUser(Configuration config, String subject, JWT idToken) throws SSOAgentServerException {
 
         try {
-            JWTClaimsSet claimsSet = SignedJWT.parse(idToken).getJWTClaimsSet();
-            Map<String, Object> customClaimValueMap = claimsSet.getClaims();
-
-            for (String claim : customClaimValueMap.keySet()) {
-                if (!SSOAgentConstants.OIDC_METADATA_CLAIMS.contains(claim)) {
-                    userClaimValueMap.put(claim, customClaimValueMap.get(claim));
-                }
-            }
+            // The attributes are materialized from the claims set on first access.
+            return new User(subject, idToken.getJWTClaimsSet(), config.claimFilter);
         } catch (ParseException e) {
             throw new SSOAgentServerException(SSOAgentConstants.ErrorMessages.JWT_PARSE.getMessage(),
                     SSOAgentConstants.ErrorMessages.JWT_PARSE.getCode(), e);
         }
-        return userClaimValueMap;
     }
 
     private void validateConfig(OIDCAgentConfig oidcAgentConfig) throws SSOAgentClientException {
@@ -324,4 +581,48 @@ public class DefaultOIDCManager implements OIDCManager {
                     SSOAgentConstants.ErrorMessages.AGENT_CONFIG_CALLBACK_URL.getCode());
         }
     }
+
+    /**
+     * A configuration snapshot of the manager together with the objects derived from it. A new instance is
+     * published as a whole whenever the configuration is replaced.
+     */
+    private static final class Configuration {
+
+        private final ImmutableOIDCAgentConfig oidcAgentConfig;
+        private final ClaimFilter claimFilter;
+        private final SignedStateCodec stateCodec;
+        private volatile AuthorizationURLTemplate authorizationURLTemplate;
+        private volatile IDTokenValidator idTokenValidator;
+
+        private Configuration(ImmutableOIDCAgentConfig oidcAgentConfig) throws SSOAgentClientException {
+
+            this.oidcAgentConfig = oidcAgentConfig;
+            this.claimFilter = ClaimFilter.getInstance(oidcAgentConfig);
+            this.stateCodec = oidcAgentConfig.getStateSigningSecret() != null ?
+                    new SignedStateCodec(oidcAgentConfig.getStateSigningSecret(), oidcAgentConfig.getStateTTL()) :
+                    null;
+        }
+
+        private AuthorizationURLTemplate getAuthorizationURLTemplate() {
+
+            // The snapshot does not change, hence a racing initialization builds an equal template.
+            AuthorizationURLTemplate urlTemplate = authorizationURLTemplate;
+            if (urlTemplate == null) {
+                urlTemplate = AuthorizationURLTemplate.of(oidcAgentConfig);
+                authorizationURLTemplate = urlTemplate;
+            }
+            return urlTemplate;
+        }
+
+        private IDTokenValidator getIDTokenValidator(HTTPTransport httpTransport) throws SSOAgentServerException {
+
+            // Validators are shared per configuration, hence a racing initialization resolves to the same instance.
+            IDTokenValidator validator = idTokenValidator;
+            if (validator == null) {
+                validator = IDTokenValidator.getInstance(oidcAgentConfig, httpTransport);
+                idTokenValidator = validator;
+            }
+            return validator;
+        }
+    }
 }
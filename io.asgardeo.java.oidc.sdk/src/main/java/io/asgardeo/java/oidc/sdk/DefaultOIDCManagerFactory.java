@@ -20,6 +20,7 @@ package io.asgardeo.java.oidc.sdk;
 
 import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
 import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
+import io.asgardeo.java.oidc.sdk.http.HTTPTransport;
 
 /**
  * A factory to create Default OIDC Manger objects based on a OIDCAgentConfig.
@@ -37,4 +38,19 @@ public class DefaultOIDCManagerFactory {
 
         return new DefaultOIDCManager(oidcAgentConfig);
     }
+
+    /**
+     * Creates a new {@link DefaultOIDCManager} object which sends the back-channel calls to the OP through
+     * the given {@link HTTPTransport}.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} object containing the client specific details.
+     * @param httpTransport   The {@link HTTPTransport} for the calls to the OP.
+     * @return The DefaultOIDCManager instance.
+     * @throws SSOAgentClientException If the OIDCAgentConfig validation is unsuccessful.
+     */
+    public static OIDCManager createOIDCManager(OIDCAgentConfig oidcAgentConfig, HTTPTransport httpTransport)
+            throws SSOAgentClientException {
+
+        return new DefaultOIDCManager(oidcAgentConfig, httpTransport);
+    }
 }
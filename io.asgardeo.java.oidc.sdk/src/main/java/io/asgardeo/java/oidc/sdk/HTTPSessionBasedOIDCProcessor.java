@@ -18,41 +18,74 @@
 
 package io.asgardeo.java.oidc.sdk;
 
+import io.asgardeo.java.oidc.sdk.bean.AuthenticationMarker;
 import io.asgardeo.java.oidc.sdk.bean.RequestContext;
 import io.asgardeo.java.oidc.sdk.bean.SessionContext;
 import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
 import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
 import io.asgardeo.java.oidc.sdk.exception.SSOAgentException;
 import io.asgardeo.java.oidc.sdk.exception.SSOAgentServerException;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import io.asgardeo.java.oidc.sdk.session.HTTPSessionStore;
+import io.asgardeo.java.oidc.sdk.session.SessionStore;
+import io.asgardeo.java.oidc.sdk.session.SignedStateSessionStore;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpServletResponseWrapper;
 
 /**
  * A wrapper class for the {@link DefaultOIDCManager} that provides
  * the functionality defined by the {@link OIDCManager} with using
- * HTTP sessions as the storage entity for the {@link RequestContext}
- * and {@link SessionContext} information.
+ * a {@link SessionStore} as the storage entity for the {@link RequestContext}
+ * and {@link SessionContext} information. Unless another store is given,
+ * the http session is used.
  */
 public class HTTPSessionBasedOIDCProcessor {
 
-    private static final Logger logger = LogManager.getLogger(HTTPSessionBasedOIDCProcessor.class);
-
     private final OIDCManager defaultOIDCManager;
+    private final SessionStore sessionStore;
 
     public HTTPSessionBasedOIDCProcessor(OIDCAgentConfig oidcAgentConfig) throws SSOAgentClientException {
 
-        defaultOIDCManager = DefaultOIDCManagerFactory.createOIDCManager(oidcAgentConfig);
+        this(oidcAgentConfig, new HTTPSessionStore());
+    }
+
+    public HTTPSessionBasedOIDCProcessor(OIDCAgentConfig oidcAgentConfig, SessionStore sessionStore)
+            throws SSOAgentClientException {
+
+        if (sessionStore == null) {
+            throw new SSOAgentClientException("Session store cannot be null.");
+        }
+        this.defaultOIDCManager = DefaultOIDCManagerFactory.createOIDCManager(oidcAgentConfig);
+        this.sessionStore = sessionStore;
+        if (sessionStore instanceof SignedStateSessionStore && defaultOIDCManager instanceof DefaultOIDCManager) {
+            // The states are verified with the codec the manager signs them with, also after a reload.
+            ((SignedStateSessionStore) sessionStore).setStateCodecSupplier(
+                    ((DefaultOIDCManager) defaultOIDCManager)::getStateCodec);
+        }
+    }
+
+    /**
+     * Returns the {@link OIDCManager} the processor delegates to, e.g. to register it with a
+     * {@link io.asgardeo.java.oidc.sdk.config.WatchingOIDCConfigProvider} to follow configuration reloads.
+     *
+     * @return The {@link OIDCManager} of the processor.
+     */
+    public OIDCManager getOIDCManager() {
+
+        return defaultOIDCManager;
     }
 
     /**
      * Builds an authentication request and redirects. Information
      * regarding the authentication session would be retrieved via
      * {@link RequestContext} object and then, would be written to
-     * the http session.
+     * the session store.
      *
      * @param request  Incoming {@link HttpServletRequest}.
      * @param response Outgoing {@link HttpServletResponse}.
@@ -61,9 +94,10 @@ public class HTTPSessionBasedOIDCProcessor {
     public void sendForLogin(HttpServletRequest request, HttpServletResponse response)
             throws SSOAgentException {
 
-        HttpSession session = request.getSession();
-        RequestContext requestContext = defaultOIDCManager.sendForLogin(request, response);
-        session.setAttribute(SSOAgentConstants.REQUEST_CONTEXT, requestContext);
+        RedirectDeferringResponse redirectDeferringResponse = new RedirectDeferringResponse(response);
+        RequestContext requestContext = defaultOIDCManager.sendForLogin(request, redirectDeferringResponse);
+        sessionStore.storeRequestContext(request, response, requestContext);
+        redirectDeferringResponse.sendDeferredRedirect();
     }
 
     /**
@@ -71,7 +105,7 @@ public class HTTPSessionBasedOIDCProcessor {
      * code, builds a token request, sends the token request and parse
      * the token response where the authenticated user info and tokens
      * would be added to the {@link SessionContext} object and written
-     * into the available http session.
+     * into the session store.
      *
      * @param request  Incoming {@link HttpServletRequest}.
      * @param response Outgoing {@link HttpServletResponse}.
@@ -80,18 +114,85 @@ public class HTTPSessionBasedOIDCProcessor {
     public void handleOIDCCallback(HttpServletRequest request, HttpServletResponse response) throws SSOAgentException {
 
         RequestContext requestContext = getRequestContext(request);
-        clearSession(request);
+        sessionStore.clear(request, response);
         SessionContext sessionContext = defaultOIDCManager.handleOIDCCallback(request, response, requestContext);
 
         if (sessionContext != null) {
-            clearSession(request);
-            HttpSession session = request.getSession();
-            session.setAttribute(SSOAgentConstants.SESSION_CONTEXT, sessionContext);
+            sessionStore.storeSessionContext(request, response, sessionContext);
         } else {
             throw new SSOAgentServerException("Null session context.");
         }
     }
 
+    /**
+     * Processes the OIDC callback response asynchronously. The request is put into asynchronous
+     * mode, so that the calling container thread is released while the token request is sent to
+     * the OP. Once authenticated, the {@link SessionContext} is written into the session store
+     * before the returned future is completed.
+     *
+     * <p>The servlet or filter calling this method must support asynchronous processing. The caller
+     * is responsible for completing or dispatching the returned {@link AsyncContext} of the request
+     * when the future completes, e.g. after redirecting to the index or error page.
+     *
+     * @param request  Incoming {@link HttpServletRequest}.
+     * @param response Outgoing {@link HttpServletResponse}.
+     * @return A {@link CompletableFuture} completed with the {@link SessionContext} of the authenticated
+     * session, or completed exceptionally with an {@link SSOAgentException} upon failed authentication.
+     * @throws SSOAgentException If the request context of the authentication request is not found.
+     */
+    public CompletableFuture<SessionContext> handleOIDCCallbackAsync(HttpServletRequest request,
+                                                                     HttpServletResponse response)
+            throws SSOAgentException {
+
+        RequestContext requestContext = getRequestContext(request);
+        sessionStore.clear(request, response);
+        AsyncContext asyncContext = request.isAsyncStarted() ? request.getAsyncContext() :
+                request.startAsync(request, response);
+
+        CompletableFuture<SessionContext> future;
+        if (defaultOIDCManager instanceof AsyncOIDCManager) {
+            future = ((AsyncOIDCManager) defaultOIDCManager)
+                    .handleOIDCCallbackAsync(request, response, requestContext);
+        } else {
+            future = new CompletableFuture<>();
+            try {
+                future.complete(defaultOIDCManager.handleOIDCCallback(request, response, requestContext));
+            } catch (SSOAgentException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        return future.thenApply(sessionContext -> {
+            if (sessionContext == null) {
+                throw new CompletionException(new SSOAgentServerException("Null session context."));
+            }
+            try {
+                sessionStore.storeSessionContext((HttpServletRequest) asyncContext.getRequest(),
+                        (HttpServletResponse) asyncContext.getResponse(), sessionContext);
+            } catch (SSOAgentException e) {
+                throw new CompletionException(e);
+            }
+            return sessionContext;
+        });
+    }
+
+    /**
+     * Renews the tokens of the logged in session with its refresh token and writes the
+     * renewed {@link SessionContext} into the session store.
+     *
+     * @param request  Incoming {@link HttpServletRequest}.
+     * @param response Outgoing {@link HttpServletResponse}.
+     * @return The renewed {@link SessionContext}.
+     * @throws SSOAgentException If there is no logged in session or the token refresh is unsuccessful.
+     */
+    public SessionContext refresh(HttpServletRequest request, HttpServletResponse response)
+            throws SSOAgentException {
+
+        SessionContext sessionContext = defaultOIDCManager.refresh(getSessionContext(request));
+        sessionStore.storeSessionContext(request, response, sessionContext);
+        return sessionContext;
+    }
+
     /**
      * Builds a logout request and redirects.
      *
@@ -102,40 +203,78 @@ public class HTTPSessionBasedOIDCProcessor {
     public void logout(HttpServletRequest request, HttpServletResponse response) throws SSOAgentException {
 
         SessionContext sessionContext = getSessionContext(request);
-        clearSession(request);
-        HttpSession session = request.getSession();
-        RequestContext requestContext = defaultOIDCManager.logout(sessionContext, response);
-        session.setAttribute(SSOAgentConstants.REQUEST_CONTEXT, requestContext);
+        sessionStore.clear(request, response);
+        RedirectDeferringResponse redirectDeferringResponse = new RedirectDeferringResponse(response);
+        RequestContext requestContext = defaultOIDCManager.logout(sessionContext, redirectDeferringResponse);
+        sessionStore.storeRequestContext(request, response, requestContext);
+        redirectDeferringResponse.sendDeferredRedirect();
     }
 
-    private void clearSession(HttpServletRequest request) {
-
-        HttpSession session = request.getSession(false);
+    /**
+     * Checks if the request belongs to an authenticated session which is not expired. Only the
+     * {@link AuthenticationMarker} of the session is read from the session store, not the
+     * {@link SessionContext}. The session stays authenticated after its access token expires, as the tokens
+     * can be renewed with {@link #refresh(HttpServletRequest, HttpServletResponse)}.
+     *
+     * @param request Incoming {@link HttpServletRequest}.
+     * @return True if the session store holds an unexpired session for the request, false otherwise.
+     * @throws SSOAgentException If the session store could not be read.
+     */
+    public boolean isAuthenticated(HttpServletRequest request) throws SSOAgentException {
 
-        if (session != null) {
-            session.invalidate();
-        }
+        AuthenticationMarker authenticationMarker = sessionStore.getAuthenticationMarker(request);
+        return authenticationMarker != null && !authenticationMarker.isExpired();
     }
 
-    private RequestContext getRequestContext(HttpServletRequest request) throws SSOAgentServerException {
+    private RequestContext getRequestContext(HttpServletRequest request) throws SSOAgentException {
 
-        HttpSession session = request.getSession(false);
+        RequestContext requestContext = sessionStore.getRequestContext(request);
 
-        if (session != null && session.getAttribute(SSOAgentConstants.REQUEST_CONTEXT) != null) {
-            return (RequestContext) request.getSession(false)
-                    .getAttribute(SSOAgentConstants.REQUEST_CONTEXT);
+        if (requestContext != null) {
+            return requestContext;
         }
         throw new SSOAgentServerException("Request context null.");
     }
 
-    private SessionContext getSessionContext(HttpServletRequest request) throws SSOAgentServerException {
+    private SessionContext getSessionContext(HttpServletRequest request) throws SSOAgentException {
 
-        HttpSession session = request.getSession(false);
+        SessionContext sessionContext = sessionStore.getSessionContext(request);
 
-        if (session != null && session.getAttribute(SSOAgentConstants.SESSION_CONTEXT) != null) {
-            return (SessionContext) request.getSession(false)
-                    .getAttribute(SSOAgentConstants.SESSION_CONTEXT);
+        if (sessionContext != null) {
+            return sessionContext;
         }
         throw new SSOAgentServerException("Session context null.");
     }
+
+    /**
+     * Holds back the redirect sent by the {@link OIDCManager}, so that a {@link SessionStore} can
+     * still write cookies to the response before it is committed.
+     */
+    private static class RedirectDeferringResponse extends HttpServletResponseWrapper {
+
+        private String location;
+
+        private RedirectDeferringResponse(HttpServletResponse response) {
+
+            super(response);
+        }
+
+        @Override
+        public void sendRedirect(String location) {
+
+            this.location = location;
+        }
+
+        private void sendDeferredRedirect() throws SSOAgentException {
+
+            if (location == null) {
+                return;
+            }
+            try {
+                super.sendRedirect(location);
+            } catch (IOException e) {
+                throw new SSOAgentException(e.getMessage(), e);
+            }
+        }
+    }
 }
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk;
+
+import io.asgardeo.java.oidc.sdk.config.FileBasedOIDCConfigProvider;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentException;
+import io.asgardeo.java.oidc.sdk.request.RouteTable;
+import io.asgardeo.java.oidc.sdk.session.HTTPSessionStore;
+import io.asgardeo.java.oidc.sdk.session.SessionStore;
+import org.apache.commons.lang.StringUtils;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A servlet filter which secures a web application with the {@link HTTPSessionBasedOIDCProcessor}.
+ *
+ * <p>Each request is classified by a {@link RouteTable} built from the {@link OIDCAgentConfig}. Requests are
+ * routed on their path as decoded and normalized by the container, i.e. the context path, servlet path and path
+ * info, rather than on the raw request URI, so that {@code ..} segments and {@code ;} path parameters cannot make
+ * a protected resource match a skip URI:
+ * <ul>
+ * <li>Skip URIs are passed down the filter chain without authentication
+ * <li>The logout URL starts the logout flow
+ * <li>The callback URL completes the login flow and redirects to the index page. A request to the callback URL
+ * without an authorization code or error is the return from the OP after logout, the post logout redirection URI
+ * defaulting to the callback URL, and is redirected to the index page as well
+ * <li>Any other request is passed down the filter chain if the session is authenticated, or starts the login
+ * flow otherwise
+ * </ul>
+ * Failed logins and logouts are redirected to the error page, if one is configured.
+ *
+ * <p>To follow configuration reloads, the manager returned by {@link #getOIDCManager()} is registered with a
+ * {@link io.asgardeo.java.oidc.sdk.config.WatchingOIDCConfigProvider}. The filter then rebuilds its route table
+ * and reads the index and error pages from the configuration the manager currently works with.
+ *
+ * <p>When declared in the deployment descriptor, the filter loads the configuration from the properties file
+ * given by the {@code app-property-file} init parameter, which is looked up in the web application and then
+ * on the classpath. Otherwise, the filter is created with a configuration and registered programmatically.
+ */
+public class OIDCAgentFilter implements Filter {
+
+    private static final Logger logger = LogManager.getLogger(OIDCAgentFilter.class);
+
+    private HTTPSessionBasedOIDCProcessor oidcProcessor;
+    private volatile Routing routing;
+
+    /**
+     * Creates a filter which loads its configuration upon {@link #init(FilterConfig)}.
+     */
+    public OIDCAgentFilter() {
+
+    }
+
+    /**
+     * Creates a filter which stores the sessions in the http session.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig}.
+     * @throws SSOAgentClientException If the OIDCAgentConfig validation is unsuccessful.
+     */
+    public OIDCAgentFilter(OIDCAgentConfig oidcAgentConfig) throws SSOAgentClientException {
+
+        this(oidcAgentConfig, new HTTPSessionStore());
+    }
+
+    /**
+     * Creates a filter which stores the sessions in the given session store.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig}.
+     * @param sessionStore    The {@link SessionStore}.
+     * @throws SSOAgentClientException If the OIDCAgentConfig validation is unsuccessful.
+     */
+    public OIDCAgentFilter(OIDCAgentConfig oidcAgentConfig, SessionStore sessionStore)
+            throws SSOAgentClientException {
+
+        this(oidcAgentConfig, new HTTPSessionBasedOIDCProcessor(oidcAgentConfig, sessionStore));
+    }
+
+    OIDCAgentFilter(OIDCAgentConfig oidcAgentConfig, HTTPSessionBasedOIDCProcessor oidcProcessor) {
+
+        this.oidcProcessor = oidcProcessor;
+        this.routing = createRouting(oidcAgentConfig);
+    }
+
+    /**
+     * Returns the {@link DefaultOIDCManager} of the filter, e.g. to register it with a
+     * {@link io.asgardeo.java.oidc.sdk.config.WatchingOIDCConfigProvider}.
+     *
+     * @return The {@link DefaultOIDCManager}, {@code null} if the filter is not initialized yet or uses another
+     * {@link OIDCManager}.
+     */
+    public DefaultOIDCManager getOIDCManager() {
+
+        OIDCManager oidcManager = oidcProcessor != null ? oidcProcessor.getOIDCManager() : null;
+        return oidcManager instanceof DefaultOIDCManager ? (DefaultOIDCManager) oidcManager : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+
+        if (oidcProcessor != null) {
+            return;
+        }
+        String propertyFile = filterConfig.getInitParameter(SSOAgentConstants.APP_PROPERTY_FILE_PARAMETER_NAME);
+        if (StringUtils.isBlank(propertyFile)) {
+            throw new ServletException("The init parameter: " + SSOAgentConstants.APP_PROPERTY_FILE_PARAMETER_NAME +
+                    " is not configured.");
+        }
+        try (InputStream inputStream = getPropertyFileStream(filterConfig, propertyFile)) {
+            if (inputStream == null) {
+                throw new ServletException("The property file: " + propertyFile + " is not found.");
+            }
+            OIDCAgentConfig oidcAgentConfig = new FileBasedOIDCConfigProvider(inputStream).getOidcAgentConfig();
+            oidcProcessor = new HTTPSessionBasedOIDCProcessor(oidcAgentConfig);
+            routing = createRouting(oidcAgentConfig);
+        } catch (IOException | SSOAgentClientException e) {
+            throw new ServletException("Error while initializing the OIDC agent filter.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+
+        if (!(servletRequest instanceof HttpServletRequest) || !(servletResponse instanceof HttpServletResponse)) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        Routing current = getRouting();
+
+        try {
+            switch (current.routeTable.route(getRequestPath(request))) {
+                case SKIP:
+                    filterChain.doFilter(request, response);
+                    break;
+                case LOGOUT:
+                    oidcProcessor.logout(request, response);
+                    break;
+                case CALLBACK:
+                    if (isPostLogoutRedirect(request)) {
+                        response.sendRedirect(current.getIndexPage(request));
+                        break;
+                    }
+                    oidcProcessor.handleOIDCCallback(request, response);
+                    response.sendRedirect(current.getIndexPage(request));
+                    break;
+                default:
+                    if (oidcProcessor.isAuthenticated(request)) {
+                        filterChain.doFilter(request, response);
+                    } else {
+                        oidcProcessor.sendForLogin(request, response);
+                    }
+            }
+        } catch (SSOAgentException e) {
+            handleException(request, response, current.oidcAgentConfig, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+
+    }
+
+    private Routing getRouting() {
+
+        Routing current = routing;
+        DefaultOIDCManager oidcManager = getOIDCManager();
+        if (oidcManager != null) {
+            // The manager publishes a new snapshot upon each configuration reload.
+            OIDCAgentConfig oidcAgentConfig = oidcManager.getOidcAgentConfig();
+            if (oidcAgentConfig != current.oidcAgentConfig) {
+                current = new Routing(oidcAgentConfig);
+                routing = current;
+            }
+        }
+        return current;
+    }
+
+    private Routing createRouting(OIDCAgentConfig oidcAgentConfig) {
+
+        // Start from the snapshot of the manager, so that the first request does not rebuild the route table.
+        DefaultOIDCManager oidcManager = getOIDCManager();
+        return new Routing(oidcManager != null ? oidcManager.getOidcAgentConfig() : oidcAgentConfig);
+    }
+
+    private static void handleException(HttpServletRequest request, HttpServletResponse response,
+                                        OIDCAgentConfig oidcAgentConfig, SSOAgentException e) throws IOException {
+
+        logger.log(Level.ERROR, "Error while processing the request: " + request.getRequestURI(), e);
+        if (response.isCommitted()) {
+            return;
+        }
+        if (StringUtils.isNotBlank(oidcAgentConfig.getErrorPage())) {
+            response.sendRedirect(oidcAgentConfig.getErrorPage());
+        } else {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+        }
+    }
+
+    private static String getRequestPath(HttpServletRequest request) {
+
+        String pathInfo = request.getPathInfo();
+        return request.getContextPath() + request.getServletPath() + (pathInfo != null ? pathInfo : "");
+    }
+
+    private static boolean isPostLogoutRedirect(HttpServletRequest request) {
+
+        return request.getParameter(SSOAgentConstants.CODE) == null &&
+                request.getParameter(SSOAgentConstants.ERROR) == null;
+    }
+
+    private InputStream getPropertyFileStream(FilterConfig filterConfig, String propertyFile) {
+
+        InputStream inputStream = filterConfig.getServletContext().getResourceAsStream(propertyFile);
+        if (inputStream == null) {
+            inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(propertyFile);
+        }
+        return inputStream;
+    }
+
+    /**
+     * A configuration and the route table built from it.
+     */
+    private static final class Routing {
+
+        private final OIDCAgentConfig oidcAgentConfig;
+        private final RouteTable routeTable;
+
+        private Routing(OIDCAgentConfig oidcAgentConfig) {
+
+            this.oidcAgentConfig = oidcAgentConfig;
+            this.routeTable = RouteTable.of(oidcAgentConfig);
+        }
+
+        private String getIndexPage(HttpServletRequest request) {
+
+            String indexPage = oidcAgentConfig.getIndexPage();
+            return StringUtils.isNotBlank(indexPage) ? indexPage : request.getContextPath() + "/";
+        }
+    }
+}
@@ -59,6 +59,17 @@ public interface OIDCManager {
     SessionContext handleOIDCCallback(HttpServletRequest request, HttpServletResponse response,
                                       RequestContext requestContext) throws SSOAgentException;
 
+    /**
+     * Renews the tokens of the given session with its refresh token. Concurrent refreshes of the same session
+     * are coalesced into a single token request to the OP.
+     *
+     * @param sessionContext {@link SessionContext} of the logged in session.
+     * @return A new {@link SessionContext} Object containing the renewed AccessToken and the RefreshToken and
+     * IDToken issued with it, if any.
+     * @throws SSOAgentException If the session has no refresh token or the token refresh is unsuccessful.
+     */
+    SessionContext refresh(SessionContext sessionContext) throws SSOAgentException;
+
     /**
      * Builds a logout request and redirects.
      *
@@ -31,12 +31,15 @@ public class SSOAgentConstants {
 
     // Oauth response parameters and session attributes.
     public static final String ERROR = "error";
+    public static final String ERROR_DESCRIPTION = "error_description";
+    public static final String STATE = "state";
     public static final String ACCESS_TOKEN = "access_token";
     public static final String ID_TOKEN = "id_token";
     public static final String SESSION_STATE = "session_state";
     public static final String USER = "user";
     public static final String REQUEST_CONTEXT = "request_context";
     public static final String SESSION_CONTEXT = "session_context";
+    public static final String AUTHENTICATION_MARKER = "authentication_marker";
 
     // Keystore file properties.
     public static final String KEYSTORE_NAME = "keystorename";
@@ -58,15 +61,35 @@ public class SSOAgentConstants {
     public static final String OIDC_TOKEN_ENDPOINT = "tokenEndpoint";
     public static final String OIDC_ISSUER = "issuer";
     public static final String OIDC_JWKS_ENDPOINT = "jwksEndpoint";
+    public static final String OIDC_DISCOVERY_ENDPOINT = "discoveryEndpoint";
+    public static final String DISCOVERY_CACHE_TTL = "discoveryCacheTTL";
     public static final String POST_LOGOUT_REDIRECTION_URI = "postLogoutRedirectURI";
     public static final String AUTHENTICATED = "authenticated";
     public static final String OIDC_OPENID = "openid";
     public static final String AZP = "azp";
     public static final String TRUSTED_AUDIENCE = "trustedAudience";
     public static final String ID_TOKEN_SIGN_ALG = "signatureAlgorithm";
+    public static final String JWKS_CACHE_TTL = "jwksCacheTTL";
+    public static final String JWKS_REFRESH_AHEAD_TIME = "jwksRefreshAheadTime";
+    public static final String VERIFIED_TOKEN_CACHE_SIZE = "verifiedTokenCacheSize";
+    public static final String HTTP_CONNECT_TIMEOUT = "httpConnectTimeout";
+    public static final String HTTP_READ_TIMEOUT = "httpReadTimeout";
+    public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE = "httpMaxConnectionsPerRoute";
+    public static final String HTTP_MAX_CONNECTIONS = "httpMaxConnections";
+    public static final String HTTP_KEEP_ALIVE_TIME = "httpKeepAliveTime";
+    public static final String VIRTUAL_THREADS_ENABLED = "virtualThreadsEnabled";
+    public static final String RETAINED_CLAIMS = "retainedClaims";
+    public static final String EXCLUDED_CLAIMS = "excludedClaims";
+    public static final String INTERN_CLAIMS = "internClaims";
+    public static final String STATE_SIGNING_SECRET = "stateSigningSecret";
+    public static final String STATE_TTL = "stateTTL";
+    public static final String STATE_BINDING = "stateBinding";
     public static final String NONCE = "nonce";
     public static final String AGENT_EXCEPTION = "AgentException";
 
+    // Path of the OpenID Provider configuration document, relative to the issuer.
+    public static final String OIDC_WELL_KNOWN_CONFIGURATION_PATH = "/.well-known/openid-configuration";
+
     // Request headers.
     public static final String REFERER = "referer";
 
@@ -74,6 +97,23 @@ public class SSOAgentConstants {
     public static final String APP_PROPERTY_FILE_PARAMETER_NAME = "app-property-file";
     public static final String JKS_PROPERTY_FILE_PARAMETER_NAME = "jks-property-file";
 
+    // Default values in milliseconds for the JWK set cache.
+    public static final long DEFAULT_JWKS_CACHE_TTL = 300000L;
+    public static final long DEFAULT_JWKS_REFRESH_AHEAD_TIME = 30000L;
+
+    // Default value in milliseconds for the provider metadata cache.
+    public static final long DEFAULT_DISCOVERY_CACHE_TTL = 3600000L;
+
+    // Default value in milliseconds for the validity of a signed state parameter.
+    public static final long DEFAULT_STATE_TTL = 600000L;
+
+    // Default values for the HTTP transport used for the back-channel calls to the OP.
+    public static final int DEFAULT_HTTP_CONNECT_TIMEOUT = 5000;
+    public static final int DEFAULT_HTTP_READ_TIMEOUT = 10000;
+    public static final int DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE = 20;
+    public static final int DEFAULT_HTTP_MAX_CONNECTIONS = 100;
+    public static final long DEFAULT_HTTP_KEEP_ALIVE_TIME = 60000L;
+
     // Response types.
     public static final String CODE = "code";
     public static final String TOKEN = "token";
@@ -96,7 +136,10 @@ public class SSOAgentConstants {
         AGENT_CONFIG_CALLBACK_URL("18008",
                 "Callback URL/Redirection URL must not be null. This refers to the Relying Party's redirection URIs " +
                         "registered with the OpenID Provider."),
-        SERVLET_CONNECTION("18008", "Error found with connection.");
+        SERVLET_CONNECTION("18008", "Error found with connection."),
+        REFRESH_TOKEN_NULL("18009", "Null refresh token."),
+        TOKEN_REFRESH_FAILED("18010", "Token refresh failed."),
+        TOKEN_REQUEST_FAILED("18011", "Token request failed.");
 
         private final String code;
         private final String message;
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk;
+
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+
+/**
+ * Renews the tokens of logged in sessions ahead of the expiry of their access tokens.
+ *
+ * <p>A renewal is scheduled per session at the access token expiry time less the renewal-ahead time. The
+ * renewal is done with {@link AsyncOIDCManager#refreshAsync(SessionContext)}, so the scheduler thread only
+ * triggers the token requests. The renewed {@link SessionContext} is handed to the listener registered for
+ * the session, e.g. to store it in the http session, and the next renewal is scheduled for it.
+ *
+ * <p>Renewals of a session are at least the minimum renewal interval apart, even if the access tokens issued
+ * by the OP do not outlive the renewal-ahead time. A failed renewal is retried with an exponential backoff
+ * starting at the minimum renewal interval, up to {@link #MAX_RENEWAL_ATTEMPTS} attempts.
+ *
+ * <p>Renewals continue until they are cancelled with {@link #cancel(String)}. The scheduler is an
+ * {@link HttpSessionListener} which cancels the renewal of an http session when it is destroyed, so when the
+ * http session IDs are used as the session identifiers, register the scheduler with
+ * {@link javax.servlet.ServletContext#addListener(java.util.EventListener)} to stop renewing abandoned sessions
+ * once they time out.
+ */
+public class TokenRenewalScheduler implements HttpSessionListener, Closeable {
+
+    private static final Logger logger = LogManager.getLogger(TokenRenewalScheduler.class);
+
+    /**
+     * The default minimum time in milliseconds between two renewals of a session.
+     */
+    public static final long DEFAULT_MIN_RENEWAL_INTERVAL = 30000L;
+
+    /**
+     * The number of attempts made to renew the tokens of a session before its renewals are given up.
+     */
+    public static final int MAX_RENEWAL_ATTEMPTS = 5;
+
+    private final AsyncOIDCManager oidcManager;
+    private final long renewalAheadTime;
+    private final long minRenewalInterval;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<String, Renewal> renewals = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a token renewal scheduler with the default minimum renewal interval.
+     *
+     * @param oidcManager      The {@link AsyncOIDCManager} used to refresh the tokens.
+     * @param renewalAheadTime The time in milliseconds before the access token expiry at which the tokens are
+     *                         renewed.
+     */
+    public TokenRenewalScheduler(AsyncOIDCManager oidcManager, long renewalAheadTime) {
+
+        this(oidcManager, renewalAheadTime, DEFAULT_MIN_RENEWAL_INTERVAL);
+    }
+
+    /**
+     * Creates a token renewal scheduler.
+     *
+     * @param oidcManager        The {@link AsyncOIDCManager} used to refresh the tokens.
+     * @param renewalAheadTime   The time in milliseconds before the access token expiry at which the tokens are
+     *                           renewed.
+     * @param minRenewalInterval The minimum time in milliseconds between two renewals of a session, and the
+     *                           initial backoff after a failed renewal.
+     */
+    public TokenRenewalScheduler(AsyncOIDCManager oidcManager, long renewalAheadTime, long minRenewalInterval) {
+
+        if (minRenewalInterval <= 0) {
+            throw new IllegalArgumentException("The minimum renewal interval must be positive.");
+        }
+        this.oidcManager = oidcManager;
+        this.renewalAheadTime = renewalAheadTime;
+        this.minRenewalInterval = minRenewalInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "oidc-token-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules the renewal of the tokens of a session. A renewal already scheduled for the session is
+     * replaced. Sessions without a refresh token or an access token expiry time are not scheduled.
+     *
+     * @param sessionId      An identifier of the session, e.g. the http session ID.
+     * @param sessionContext {@link SessionContext} of the logged in session.
+     * @param listener       The listener to which the renewed {@link SessionContext} is handed.
+     * @return True if the renewal was scheduled, false otherwise.
+     */
+    public boolean schedule(String sessionId, SessionContext sessionContext, Consumer<SessionContext> listener) {
+
+        if (!isRenewable(sessionContext)) {
+            return false;
+        }
+        scheduleRenewal(sessionId, null, sessionContext, listener, Math.max(getRenewalDelay(sessionContext), 0L), 1);
+        return true;
+    }
+
+    /**
+     * Cancels the scheduled renewal of a session, e.g. upon logout.
+     *
+     * @param sessionId The identifier of the session.
+     */
+    public void cancel(String sessionId) {
+
+        Renewal renewal = renewals.remove(sessionId);
+        if (renewal != null) {
+            renewal.cancel();
+        }
+    }
+
+    /**
+     * Does nothing, renewals are scheduled with {@link #schedule(String, SessionContext, Consumer)}.
+     *
+     * @param httpSessionEvent The {@link HttpSessionEvent} of the created http session.
+     */
+    @Override
+    public void sessionCreated(HttpSessionEvent httpSessionEvent) {
+
+    }
+
+    /**
+     * Cancels the scheduled renewal of a destroyed http session, identified by its http session ID.
+     *
+     * @param httpSessionEvent The {@link HttpSessionEvent} of the destroyed http session.
+     */
+    @Override
+    public void sessionDestroyed(HttpSessionEvent httpSessionEvent) {
+
+        cancel(httpSessionEvent.getSession().getId());
+    }
+
+    /**
+     * Cancels all the scheduled renewals and stops the scheduler.
+     */
+    @Override
+    public void close() {
+
+        scheduler.shutdownNow();
+        renewals.clear();
+    }
+
+    private boolean isRenewable(SessionContext sessionContext) {
+
+        return sessionContext.getRefreshToken() != null && sessionContext.getAccessTokenExpiryTime() > 0;
+    }
+
+    private long getRenewalDelay(SessionContext sessionContext) {
+
+        return sessionContext.getAccessTokenExpiryTime() - renewalAheadTime - System.currentTimeMillis();
+    }
+
+    private void scheduleRenewal(String sessionId, Renewal completed, SessionContext sessionContext,
+                                 Consumer<SessionContext> listener, long delay, int attempt) {
+
+        // The renewal is registered before it is scheduled, since it may run right away.
+        Renewal renewal = new Renewal();
+        if (completed == null) {
+            Renewal previous = renewals.put(sessionId, renewal);
+            if (previous != null) {
+                previous.cancel();
+            }
+        } else if (!renewals.replace(sessionId, completed, renewal)) {
+            // The completed renewal was cancelled or replaced meanwhile, e.g. as the session was destroyed.
+            renewal.cancel();
+            return;
+        }
+        renewal.setFuture(scheduler.schedule(() -> renew(sessionId, renewal, sessionContext, listener, attempt),
+                delay, TimeUnit.MILLISECONDS));
+    }
+
+    private void renew(String sessionId, Renewal renewal, SessionContext sessionContext,
+                       Consumer<SessionContext> listener, int attempt) {
+
+        if (renewals.get(sessionId) != renewal) {
+            return;
+        }
+        oidcManager.refreshAsync(sessionContext).whenComplete((renewedSessionContext, throwable) -> {
+            if (renewals.get(sessionId) != renewal || scheduler.isShutdown()) {
+                // The renewal was cancelled or replaced while the token request was in flight.
+                return;
+            }
+            if (throwable != null) {
+                if (attempt >= MAX_RENEWAL_ATTEMPTS) {
+                    logger.log(Level.WARN, "Error while renewing the tokens of the session. Giving up after " +
+                            attempt + " attempts.", throwable);
+                    renewals.remove(sessionId, renewal);
+                    return;
+                }
+                long backoff = minRenewalInterval << (attempt - 1);
+                logger.log(Level.WARN, "Error while renewing the tokens of the session. Retrying in " + backoff +
+                        " ms.", throwable);
+                scheduleRenewal(sessionId, renewal, sessionContext, listener, backoff, attempt + 1);
+                return;
+            }
+            listener.accept(renewedSessionContext);
+            if (!isRenewable(renewedSessionContext)) {
+                renewals.remove(sessionId, renewal);
+                return;
+            }
+            long delay = getRenewalDelay(renewedSessionContext);
+            if (delay < minRenewalInterval) {
+                logger.log(Level.WARN, "The renewed access token does not outlive the renewal-ahead time. The " +
+                        "next renewal is delayed to the minimum renewal interval of " + minRenewalInterval + " ms.");
+                delay = minRenewalInterval;
+            }
+            scheduleRenewal(sessionId, renewal, renewedSessionContext, listener, delay, 1);
+        });
+    }
+
+    private static class Renewal {
+
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean cancelled;
+
+        private void setFuture(ScheduledFuture<?> future) {
+
+            this.future = future;
+            if (cancelled) {
+                future.cancel(false);
+            }
+        }
+
+        private void cancel() {
+
+            cancelled = true;
+            ScheduledFuture<?> scheduledFuture = future;
+            if (scheduledFuture != null) {
+                scheduledFuture.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.bean;
+
+import java.io.Serializable;
+
+/**
+ * A small marker of a logged in session, which is stored next to the {@link SessionContext}. It answers
+ * whether a user agent is logged in and its session is not expired, without reading the session context with
+ * the tokens and the attributes of the user, e.g. from a replicated http session.
+ */
+public final class AuthenticationMarker implements Serializable {
+
+    private static final long serialVersionUID = -4823657164103947716L;
+
+    private final String subject;
+    private final long expiryTime;
+
+    public AuthenticationMarker(String subject, long expiryTime) {
+
+        this.subject = subject;
+        this.expiryTime = expiryTime;
+    }
+
+    /**
+     * Creates the marker of a logged in session, which does not expire on its own. The session is expired by
+     * the store holding it, e.g. with the timeout of the http session.
+     *
+     * @param sessionContext The {@link SessionContext} of the session.
+     * @return The {@link AuthenticationMarker} of the session.
+     */
+    public static AuthenticationMarker of(SessionContext sessionContext) {
+
+        return of(sessionContext, 0);
+    }
+
+    /**
+     * Creates the marker of a logged in session which expires with the session. The expiry of the access token
+     * does not end the session, as the tokens can be renewed with the refresh token.
+     *
+     * @param sessionContext The {@link SessionContext} of the session.
+     * @param expiryTime     The time at which the session expires, in milliseconds since the epoch.
+     * @return The {@link AuthenticationMarker} of the session.
+     */
+    public static AuthenticationMarker of(SessionContext sessionContext, long expiryTime) {
+
+        User user = sessionContext.getUser();
+        return new AuthenticationMarker(user != null ? user.getSubject() : null, expiryTime);
+    }
+
+    /**
+     * Returns the subject of the authenticated user.
+     *
+     * @return The subject, {@code null} if unknown.
+     */
+    public String getSubject() {
+
+        return subject;
+    }
+
+    /**
+     * Returns the time at which the session expires.
+     *
+     * @return The expiry time in milliseconds since the epoch, 0 if the session does not expire.
+     */
+    public long getExpiryTime() {
+
+        return expiryTime;
+    }
+
+    /**
+     * Checks if the session is expired.
+     *
+     * @return True if the expiry time of the session has passed, false otherwise.
+     */
+    public boolean isExpired() {
+
+        return expiryTime > 0 && expiryTime <= System.currentTimeMillis();
+    }
+}
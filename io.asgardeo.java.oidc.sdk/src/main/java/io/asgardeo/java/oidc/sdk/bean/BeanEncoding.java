@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.bean;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helper methods for the compact binary encoding of the {@link java.io.Externalizable} beans.
+ *
+ * <p>Every bean writes a format version first, followed by its fields. Strings are written as
+ * length prefixed UTF-8 and the values of attribute and parameter maps are written with a type tag,
+ * so that the common JSON claim value types are encoded without Java serialization metadata.
+ * Values of other types fall back to Java serialization.
+ */
+final class BeanEncoding {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte DATE = 6;
+    private static final byte LIST = 7;
+    private static final byte MAP = 8;
+    private static final byte SERIALIZED = 9;
+
+    private BeanEncoding() {
+
+    }
+
+    /**
+     * Reads the format version of a bean and checks if it is supported.
+     *
+     * @param in             The input to read from.
+     * @param currentVersion The latest format version known to the bean.
+     * @param type           The bean class, for the error message.
+     * @return The format version of the encoded bean.
+     * @throws IOException If the version is newer than the current version.
+     */
+    static int readVersion(ObjectInput in, int currentVersion, Class<?> type) throws IOException {
+
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > currentVersion) {
+            throw new InvalidObjectException("Unsupported encoding version " + version + " of " + type.getName());
+        }
+        return version;
+    }
+
+    static void writeString(ObjectOutput out, String value) throws IOException {
+
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ObjectInput in) throws IOException {
+
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeMap(ObjectOutput out, Map<String, ?> map) throws IOException {
+
+        if (map == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(map.size());
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    static Map<String, Object> readMap(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, Object> map = new HashMap<>((int) (size / 0.75f) + 1);
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readValue(in));
+        }
+        return map;
+    }
+
+    private static void writeValue(ObjectOutput out, Object value) throws IOException {
+
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value.getClass() == Date.class) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map && hasStringKeys((Map<?, ?>) value)) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, (String) entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            out.writeByte(SERIALIZED);
+            out.writeObject(value);
+        }
+    }
+
+    private static Object readValue(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case DATE:
+                return new Date(in.readLong());
+            case LIST:
+                int length = in.readInt();
+                List<Object> list = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            case MAP:
+                int size = in.readInt();
+                Map<String, Object> map = new LinkedHashMap<>((int) (size / 0.75f) + 1);
+                for (int i = 0; i < size; i++) {
+                    map.put(readString(in), readValue(in));
+                }
+                return map;
+            case SERIALIZED:
+                return in.readObject();
+            default:
+                throw new InvalidObjectException("Unknown value type " + tag);
+        }
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
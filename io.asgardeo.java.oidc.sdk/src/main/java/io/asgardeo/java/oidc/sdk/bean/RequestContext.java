@@ -21,7 +21,10 @@ package io.asgardeo.java.oidc.sdk.bean;
 import com.nimbusds.oauth2.sdk.id.State;
 import com.nimbusds.openid.connect.sdk.Nonce;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,10 +39,14 @@ import java.util.Map;
  * <p>
  * The Request Context and its attributes would be used from the initiation of the authentication
  * request until the authentication completion of the user.
+ * <p>
+ * Request contexts serialized by SDK versions before the compact binary format cannot be read, so
+ * authentication flows in progress during an upgrade have to be restarted.
  */
-public class RequestContext implements Serializable {
+public class RequestContext implements Externalizable {
 
-    private static final long serialVersionUID = -3980859739213942559L;
+    private static final long serialVersionUID = 2180475392618803744L;
+    private static final int VERSION = 1;
 
     private State state;
     private Nonce nonce;
@@ -116,4 +123,31 @@ public class RequestContext implements Serializable {
 
         additionalParams.put(key, value);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+        out.writeByte(VERSION);
+        BeanEncoding.writeString(out, state != null ? state.getValue() : null);
+        BeanEncoding.writeString(out, nonce != null ? nonce.getValue() : null);
+        BeanEncoding.writeMap(out, additionalParams);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        BeanEncoding.readVersion(in, VERSION, RequestContext.class);
+        String stateValue = BeanEncoding.readString(in);
+        String nonceValue = BeanEncoding.readString(in);
+        state = stateValue != null ? new State(stateValue) : null;
+        nonce = nonceValue != null ? new Nonce(nonceValue) : null;
+        Map<String, Object> params = BeanEncoding.readMap(in);
+        additionalParams = params != null ? params : new HashMap<>();
+    }
 }
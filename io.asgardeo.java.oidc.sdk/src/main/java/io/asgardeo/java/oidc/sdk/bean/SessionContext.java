@@ -18,7 +18,10 @@
 
 package io.asgardeo.java.oidc.sdk.bean;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
 /**
  * A data model class to define the Session Context element. The Session Context object should be used to hold the
@@ -28,17 +31,23 @@ import java.io.Serializable;
  * <li>Access Token
  * <li>Refresh Token
  * <li>ID Token
+ * <li>Access Token expiry time
  * </ul>
  * <p>
+ * The session context is written in a compact binary format. Session contexts serialized by earlier versions of
+ * the SDK, e.g. in persisted or replicated http sessions, cannot be read and must be discarded when upgrading,
+ * which logs the affected users out once.
  */
-public class SessionContext implements Serializable {
+public class SessionContext implements Externalizable {
 
-    private static final long serialVersionUID = 976008884476935474L;
+    private static final long serialVersionUID = -6471020913863552193L;
+    private static final int VERSION = 1;
 
     private User user;
     private String accessToken;
     private String refreshToken;
     private String idToken;
+    private long accessTokenExpiryTime;
 
     /**
      * Returns the authenticated user.
@@ -119,4 +128,58 @@ public class SessionContext implements Serializable {
 
         this.idToken = idToken;
     }
+
+    /**
+     * Returns the time at which the access token expires.
+     *
+     * @return The access token expiry time in milliseconds since the epoch, 0 if unknown.
+     */
+    public long getAccessTokenExpiryTime() {
+
+        return accessTokenExpiryTime;
+    }
+
+    /**
+     * Sets the time at which the access token expires.
+     *
+     * @param accessTokenExpiryTime The access token expiry time in milliseconds since the epoch.
+     */
+    public void setAccessTokenExpiryTime(long accessTokenExpiryTime) {
+
+        this.accessTokenExpiryTime = accessTokenExpiryTime;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+        out.writeByte(VERSION);
+        BeanEncoding.writeString(out, accessToken);
+        BeanEncoding.writeString(out, refreshToken);
+        BeanEncoding.writeString(out, idToken);
+        out.writeLong(accessTokenExpiryTime);
+        out.writeBoolean(user != null);
+        if (user != null) {
+            user.writeExternal(out);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        BeanEncoding.readVersion(in, VERSION, SessionContext.class);
+        accessToken = BeanEncoding.readString(in);
+        refreshToken = BeanEncoding.readString(in);
+        idToken = BeanEncoding.readString(in);
+        accessTokenExpiryTime = in.readLong();
+        if (in.readBoolean()) {
+            user = new User();
+            user.readExternal(in);
+        }
+    }
 }
@@ -18,18 +18,36 @@
 
 package io.asgardeo.java.oidc.sdk.bean;
 
-import java.io.Serializable;
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.asgardeo.java.oidc.sdk.claims.ClaimFilter;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.Map;
 
 /**
  * A data model class to define the User element.
+ *
+ * <p>A user created from the claims set of the ID token keeps a reference to the claims
+ * and materializes the attributes on first access, so that the claims are not copied
+ * at login for applications which read only a few attributes. If the {@link ClaimFilter}
+ * projects or interns the claims, the retained claims are copied right away instead, so that
+ * the dropped claims and duplicate strings are not held by the session.
+ *
+ * <p>Users serialized by SDK versions before the compact binary format cannot be read by this version.
  */
-public class User implements Serializable {
+public class User implements Externalizable {
 
-    private static final long serialVersionUID = -2609465712885072108L;
+    private static final long serialVersionUID = 5538208947129476615L;
+    private static final int VERSION = 1;
 
     private String subject;
-    private Map<String, Object> attributes;
+    private volatile Map<String, Object> attributes;
+    // Claims the attributes are materialized from. Released once the attributes are materialized.
+    private transient Map<String, Object> claims;
+    private transient ClaimFilter claimFilter;
 
     public User(String subject, Map<String, Object> attributes) {
 
@@ -37,6 +55,29 @@ public class User implements Serializable {
         this.attributes = attributes;
     }
 
+    public User(String subject, JWTClaimsSet claimsSet) {
+
+        this(subject, claimsSet, ClaimFilter.DEFAULT);
+    }
+
+    public User(String subject, JWTClaimsSet claimsSet, ClaimFilter claimFilter) {
+
+        this.subject = subject;
+        if (claimFilter.retainsAllClaims() && !claimFilter.internsClaims()) {
+            this.claims = claimsSet.getClaims();
+            this.claimFilter = claimFilter;
+        } else {
+            this.attributes = claimFilter.filter(claimsSet.getClaims());
+        }
+    }
+
+    /**
+     * Creates an empty user. Used when deserializing a user.
+     */
+    public User() {
+
+    }
+
     /**
      * Returns the subject identifier of the user.
      *
@@ -54,6 +95,59 @@ public class User implements Serializable {
      */
     public Map<String, Object> getAttributes() {
 
-        return attributes;
+        Map<String, Object> userAttributes = attributes;
+        if (userAttributes == null) {
+            synchronized (this) {
+                if (attributes == null && claims != null) {
+                    attributes = claimFilter.filter(claims);
+                    claims = null;
+                    claimFilter = null;
+                }
+                userAttributes = attributes;
+            }
+        }
+        return userAttributes;
+    }
+
+    /**
+     * Returns an attribute of the user, without materializing the other attributes.
+     *
+     * @param name Name of the attribute.
+     * @return The value of the attribute, {@code null} if the user has no such attribute.
+     */
+    public Object getAttribute(String name) {
+
+        Map<String, Object> userAttributes = attributes;
+        if (userAttributes == null) {
+            synchronized (this) {
+                if (claims != null) {
+                    return claimFilter.isRetained(name) ? claims.get(name) : null;
+                }
+                userAttributes = attributes;
+            }
+        }
+        return userAttributes != null ? userAttributes.get(name) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+        out.writeByte(VERSION);
+        BeanEncoding.writeString(out, subject);
+        BeanEncoding.writeMap(out, getAttributes());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        BeanEncoding.readVersion(in, VERSION, User.class);
+        subject = BeanEncoding.readString(in);
+        attributes = BeanEncoding.readMap(in);
     }
 }
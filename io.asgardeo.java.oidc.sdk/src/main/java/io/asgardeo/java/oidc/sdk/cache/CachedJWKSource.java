@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.cache;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.RemoteJWKSet;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import io.asgardeo.java.oidc.sdk.http.BackChannelExecutors;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A process-wide, TTL bounded cache of the JWK set published at a JWKS endpoint.
+ *
+ * <p>One instance is kept per JWKS endpoint URI, resource retriever and refresh
+ * executor, so every validator of the same OpenID Provider using the same
+ * transport shares a single in-memory copy of its keys. An instance requested
+ * with another time-to-live or refresh-ahead time, e.g. after a configuration
+ * reload, replaces the one of the endpoint. The cached set is:
+ *
+ * <ul>
+ *     <li>fetched on first use and whenever it has outlived its time-to-live,
+ *     <li>refreshed in the background once it enters the refresh-ahead window,
+ *         so that request threads keep being served from memory,
+ *     <li>re-fetched on demand only when a JWS header references a key ID which
+ *         is not in the cached set (i.e. the OP rotated its keys).
+ * </ul>
+ *
+ * <p>When the endpoint cannot be reached the last good copy keeps being served, and the endpoint is only tried
+ * again after {@link #FAILED_REFRESH_RETRY_INTERVAL}.
+ */
+public class CachedJWKSource implements JWKSource<SecurityContext> {
+
+    private static final Logger logger = LogManager.getLogger(CachedJWKSource.class);
+
+    /**
+     * The minimum time in milliseconds between two forced re-fetches triggered
+     * by unknown key IDs, so that tokens with made-up key IDs cannot be used
+     * to flood the JWKS endpoint.
+     */
+    public static final long MIN_FORCED_REFRESH_INTERVAL = 30000L;
+
+    /**
+     * The time in milliseconds for which the last good copy is served after a failed refresh, before the
+     * JWKS endpoint is tried again.
+     */
+    public static final long FAILED_REFRESH_RETRY_INTERVAL = 30000L;
+
+    private static final ConcurrentMap<SourceKey, CachedJWKSource> SOURCES = new ConcurrentHashMap<>();
+
+    private static final ResourceRetriever DEFAULT_RESOURCE_RETRIEVER = new DefaultResourceRetriever(
+            RemoteJWKSet.DEFAULT_HTTP_CONNECT_TIMEOUT, RemoteJWKSet.DEFAULT_HTTP_READ_TIMEOUT,
+            RemoteJWKSet.DEFAULT_HTTP_SIZE_LIMIT);
+
+    private final URI jwksEndpoint;
+    private final long timeToLive;
+    private final long refreshAheadTime;
+    private final ResourceRetriever resourceRetriever;
+    private final Executor refreshExecutor;
+    private final ReentrantLock fetchLock = new ReentrantLock();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private volatile CachedJWKSet cachedJWKSet;
+    private volatile long lastForcedRefreshTime;
+
+    CachedJWKSource(URI jwksEndpoint, long timeToLive, long refreshAheadTime, ResourceRetriever resourceRetriever) {
+
+        this(jwksEndpoint, timeToLive, refreshAheadTime, resourceRetriever, BackChannelExecutors.getDefaultExecutor());
+    }
+
+    CachedJWKSource(URI jwksEndpoint, long timeToLive, long refreshAheadTime, ResourceRetriever resourceRetriever,
+                    Executor refreshExecutor) {
+
+        this.jwksEndpoint = jwksEndpoint;
+        this.timeToLive = timeToLive;
+        this.refreshAheadTime = Math.min(Math.max(refreshAheadTime, 0L), timeToLive);
+        this.resourceRetriever = resourceRetriever;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * Returns the shared {@code CachedJWKSource} of the given JWKS endpoint, creating it on first use or when
+     * the time-to-live or refresh-ahead time differ from those of the existing instance.
+     *
+     * @param jwksEndpoint     The JWKS endpoint URI of the OpenID Provider.
+     * @param timeToLive       The time in milliseconds for which a fetched JWK set is served.
+     * @param refreshAheadTime The time in milliseconds before expiry at which a background refresh starts.
+     * @return The {@link CachedJWKSource} of the JWKS endpoint.
+     */
+    public static CachedJWKSource getInstance(URI jwksEndpoint, long timeToLive, long refreshAheadTime) {
+
+        return getInstance(jwksEndpoint, timeToLive, refreshAheadTime, DEFAULT_RESOURCE_RETRIEVER);
+    }
+
+    /**
+     * Returns the shared {@code CachedJWKSource} of the given JWKS endpoint and resource retriever, creating it on
+     * first use or when the settings differ from those of the existing instance.
+     *
+     * @param jwksEndpoint      The JWKS endpoint URI of the OpenID Provider.
+     * @param timeToLive        The time in milliseconds for which a fetched JWK set is served.
+     * @param refreshAheadTime  The time in milliseconds before expiry at which a background refresh starts.
+     * @param resourceRetriever The {@link ResourceRetriever} used to fetch the JWK set.
+     * @return The {@link CachedJWKSource} of the JWKS endpoint.
+     */
+    public static CachedJWKSource getInstance(URI jwksEndpoint, long timeToLive, long refreshAheadTime,
+                                              ResourceRetriever resourceRetriever) {
+
+        return getInstance(jwksEndpoint, timeToLive, refreshAheadTime, resourceRetriever,
+                BackChannelExecutors.getDefaultExecutor());
+    }
+
+    /**
+     * Returns the shared {@code CachedJWKSource} of the given JWKS endpoint, resource retriever and background
+     * refresh executor, creating it on first use or when the settings differ from those of the existing instance.
+     * Resource retrievers are compared with {@link Object#equals(Object)}, hence a retriever which does not
+     * implement it must be reused to share the instance. A replaced instance keeps serving the validators already
+     * built on it, and is dropped along with them.
+     *
+     * @param jwksEndpoint      The JWKS endpoint URI of the OpenID Provider.
+     * @param timeToLive        The time in milliseconds for which a fetched JWK set is served.
+     * @param refreshAheadTime  The time in milliseconds before expiry at which a background refresh starts.
+     * @param resourceRetriever The {@link ResourceRetriever} used to fetch the JWK set.
+     * @param refreshExecutor   The {@link Executor} on which the background refreshes are run.
+     * @return The {@link CachedJWKSource} of the JWKS endpoint.
+     */
+    public static CachedJWKSource getInstance(URI jwksEndpoint, long timeToLive, long refreshAheadTime,
+                                              ResourceRetriever resourceRetriever, Executor refreshExecutor) {
+
+        SourceKey sourceKey = new SourceKey(jwksEndpoint, resourceRetriever, refreshExecutor);
+        CachedJWKSource jwkSource = SOURCES.get(sourceKey);
+        if (jwkSource != null && jwkSource.hasSettings(timeToLive, refreshAheadTime)) {
+            return jwkSource;
+        }
+        return SOURCES.compute(sourceKey, (key, existing) ->
+                existing != null && existing.hasSettings(timeToLive, refreshAheadTime) ? existing :
+                        new CachedJWKSource(jwksEndpoint, timeToLive, refreshAheadTime, resourceRetriever,
+                                refreshExecutor));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+
+        long now = System.currentTimeMillis();
+        CachedJWKSet current = cachedJWKSet;
+
+        if (current == null || now >= current.expiryTime) {
+            missCount.incrementAndGet();
+            current = fetch(current, false);
+        } else {
+            hitCount.incrementAndGet();
+            if (now >= current.expiryTime - refreshAheadTime) {
+                refreshInBackground();
+            }
+        }
+
+        List<JWK> matches = jwkSelector.select(current.jwkSet);
+        if (!matches.isEmpty()) {
+            return matches;
+        }
+
+        String keyID = getKeyID(jwkSelector);
+        if (keyID == null || current.jwkSet.getKeyByKeyId(keyID) != null) {
+            return matches;
+        }
+        if (now - lastForcedRefreshTime < MIN_FORCED_REFRESH_INTERVAL) {
+            logger.log(Level.DEBUG, "Unknown key ID: " + keyID + ". Skipping JWK set refresh as one was done " +
+                    "recently.");
+            return matches;
+        }
+
+        logger.log(Level.DEBUG, "Unknown key ID: " + keyID + ". Refreshing the JWK set of " + jwksEndpoint);
+        missCount.incrementAndGet();
+        current = fetch(current, true);
+        return jwkSelector.select(current.jwkSet);
+    }
+
+    /**
+     * Returns the JWKS endpoint URI of this source.
+     *
+     * @return The JWKS endpoint URI.
+     */
+    public URI getJwksEndpoint() {
+
+        return jwksEndpoint;
+    }
+
+    /**
+     * Returns the number of key lookups served from the cached JWK set.
+     *
+     * @return The cache hit count.
+     */
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of key lookups which required the JWK set to be fetched.
+     *
+     * @return The cache miss count.
+     */
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    private boolean hasSettings(long timeToLive, long refreshAheadTime) {
+
+        return this.timeToLive == timeToLive &&
+                this.refreshAheadTime == Math.min(Math.max(refreshAheadTime, 0L), timeToLive);
+    }
+
+    private CachedJWKSet fetch(CachedJWKSet seen, boolean forced) throws KeySourceException {
+
+        fetchLock.lock();
+        try {
+            CachedJWKSet current = cachedJWKSet;
+            // Another thread has already fetched the JWK set while this one was waiting.
+            if (current != seen && current != null) {
+                return current;
+            }
+            if (forced) {
+                lastForcedRefreshTime = System.currentTimeMillis();
+            }
+            try {
+                JWKSet jwkSet = retrieveJWKSet();
+                current = new CachedJWKSet(jwkSet, System.currentTimeMillis() + timeToLive);
+                cachedJWKSet = current;
+                return current;
+            } catch (IOException | ParseException e) {
+                if (current != null) {
+                    logger.log(Level.WARN, "Error while refreshing the JWK set from " + jwksEndpoint +
+                            ". Continuing with the previously fetched JWK set.", e);
+                    // Otherwise every validation would wait for the unreachable endpoint in turn.
+                    current = new CachedJWKSet(current.jwkSet, Math.max(current.expiryTime,
+                            System.currentTimeMillis() + FAILED_REFRESH_RETRY_INTERVAL));
+                    cachedJWKSet = current;
+                    return current;
+                }
+                throw new KeySourceException("Couldn't retrieve the JWK set from " + jwksEndpoint + ": " +
+                        e.getMessage(), e);
+            }
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    private void refreshInBackground() {
+
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        Runnable refresh = () -> {
+            try {
+                JWKSet jwkSet = retrieveJWKSet();
+                cachedJWKSet = new CachedJWKSet(jwkSet, System.currentTimeMillis() + timeToLive);
+            } catch (IOException | ParseException e) {
+                logger.log(Level.WARN, "Error while refreshing the JWK set from " + jwksEndpoint + ".", e);
+            } finally {
+                refreshing.set(false);
+            }
+        };
+        try {
+            refreshExecutor.execute(refresh);
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+            logger.log(Level.DEBUG, "Background refresh of the JWK set of " + jwksEndpoint + " was rejected.", e);
+        }
+    }
+
+    private JWKSet retrieveJWKSet() throws IOException, ParseException {
+
+        Resource resource = resourceRetriever.retrieveResource(jwksEndpoint.toURL());
+        return JWKSet.parse(resource.getContent());
+    }
+
+    private String getKeyID(JWKSelector jwkSelector) {
+
+        Set<String> keyIDs = jwkSelector.getMatcher().getKeyIDs();
+        if (keyIDs == null || keyIDs.size() != 1) {
+            return null;
+        }
+        return keyIDs.iterator().next();
+    }
+
+    /**
+     * An immutable pair of a fetched JWK set and the time until which it is served.
+     */
+    private static class CachedJWKSet {
+
+        private final JWKSet jwkSet;
+        private final long expiryTime;
+
+        CachedJWKSet(JWKSet jwkSet, long expiryTime) {
+
+            this.jwkSet = jwkSet;
+            this.expiryTime = expiryTime;
+        }
+    }
+
+    /**
+     * The key of a shared source: the JWKS endpoint, the resource retriever and the refresh executor, which is
+     * compared by identity.
+     */
+    private static final class SourceKey {
+
+        private final URI jwksEndpoint;
+        private final ResourceRetriever resourceRetriever;
+        private final Executor refreshExecutor;
+
+        private SourceKey(URI jwksEndpoint, ResourceRetriever resourceRetriever, Executor refreshExecutor) {
+
+            this.jwksEndpoint = jwksEndpoint;
+            this.resourceRetriever = resourceRetriever;
+            this.refreshExecutor = refreshExecutor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            SourceKey that = (SourceKey) o;
+            return refreshExecutor == that.refreshExecutor &&
+                    Objects.equals(jwksEndpoint, that.jwksEndpoint) &&
+                    Objects.equals(resourceRetriever, that.resourceRetriever);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(jwksEndpoint, resourceRetriever);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.cache;
+
+import com.nimbusds.oauth2.sdk.ParseException;
+import com.nimbusds.oauth2.sdk.http.HTTPRequest;
+import com.nimbusds.oauth2.sdk.http.HTTPResponse;
+import com.nimbusds.openid.connect.sdk.op.OIDCProviderMetadata;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentServerException;
+import io.asgardeo.java.oidc.sdk.http.HTTPTransport;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A process-wide, TTL bounded cache of the OpenID Provider metadata published at discovery endpoints.
+ *
+ * <p>The metadata of a discovery endpoint is fetched on first use and served from memory until it has
+ * outlived its time-to-live. It is then revalidated with a conditional GET carrying the {@code ETag} and
+ * {@code Last-Modified} validators of the cached copy, so an unchanged document is not re-sent or re-parsed.
+ * When the endpoint cannot be reached or returns an invalid document the last good copy keeps being served.
+ */
+public class ProviderMetadataCache {
+
+    private static final Logger logger = LogManager.getLogger(ProviderMetadataCache.class);
+
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final int SC_NOT_MODIFIED = 304;
+
+    /**
+     * The time in milliseconds for which the last good copy is served after a failed refresh, before the
+     * discovery endpoint is tried again.
+     */
+    public static final long FAILED_REFRESH_RETRY_INTERVAL = 30000L;
+
+    private static final ConcurrentMap<URI, ProviderMetadataCache> CACHES = new ConcurrentHashMap<>();
+
+    private final URI discoveryEndpoint;
+    private final ReentrantLock fetchLock = new ReentrantLock();
+
+    private volatile CachedMetadata cachedMetadata;
+
+    ProviderMetadataCache(URI discoveryEndpoint) {
+
+        this.discoveryEndpoint = discoveryEndpoint;
+    }
+
+    /**
+     * Returns the shared {@code ProviderMetadataCache} of the given discovery endpoint, creating it on first use.
+     *
+     * @param discoveryEndpoint The discovery endpoint URI of the OpenID Provider.
+     * @return The {@link ProviderMetadataCache} of the discovery endpoint.
+     */
+    public static ProviderMetadataCache getInstance(URI discoveryEndpoint) {
+
+        return CACHES.computeIfAbsent(discoveryEndpoint, ProviderMetadataCache::new);
+    }
+
+    /**
+     * Returns the provider metadata, fetching or revalidating it if the cached copy is missing or expired.
+     *
+     * @param httpTransport The {@link HTTPTransport} used to fetch the metadata.
+     * @param timeToLive    The time in milliseconds for which fetched metadata is served.
+     * @return The {@link OIDCProviderMetadata} of the OpenID Provider.
+     * @throws SSOAgentServerException If the metadata could not be fetched and no earlier copy is available.
+     */
+    public OIDCProviderMetadata get(HTTPTransport httpTransport, long timeToLive) throws SSOAgentServerException {
+
+        CachedMetadata current = cachedMetadata;
+        if (current != null && System.currentTimeMillis() < current.expiryTime) {
+            return current.metadata;
+        }
+
+        fetchLock.lock();
+        try {
+            current = cachedMetadata;
+            // Another thread has already fetched the metadata while this one was waiting.
+            if (current != null && System.currentTimeMillis() < current.expiryTime) {
+                return current.metadata;
+            }
+            try {
+                current = fetch(httpTransport, current, timeToLive);
+                cachedMetadata = current;
+                return current.metadata;
+            } catch (IOException | ParseException e) {
+                if (current != null) {
+                    logger.log(Level.WARN, "Error while refreshing the provider metadata from " + discoveryEndpoint +
+                            ". Continuing with the previously fetched metadata.", e);
+                    cachedMetadata = new CachedMetadata(current.metadata, current.eTag, current.lastModified,
+                            System.currentTimeMillis() + FAILED_REFRESH_RETRY_INTERVAL);
+                    return current.metadata;
+                }
+                throw new SSOAgentServerException("Couldn't retrieve the provider metadata from " +
+                        discoveryEndpoint + ": " + e.getMessage(), e);
+            }
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the discovery endpoint URI of this cache.
+     *
+     * @return The discovery endpoint URI.
+     */
+    public URI getDiscoveryEndpoint() {
+
+        return discoveryEndpoint;
+    }
+
+    private CachedMetadata fetch(HTTPTransport httpTransport, CachedMetadata current, long timeToLive)
+            throws IOException, ParseException {
+
+        HTTPRequest httpRequest = new HTTPRequest(HTTPRequest.Method.GET, discoveryEndpoint.toURL());
+        if (current != null) {
+            if (current.eTag != null) {
+                httpRequest.setHeader(IF_NONE_MATCH, current.eTag);
+            }
+            if (current.lastModified != null) {
+                httpRequest.setHeader(IF_MODIFIED_SINCE, current.lastModified);
+            }
+        }
+
+        HTTPResponse httpResponse = httpTransport.send(httpRequest);
+        long expiryTime = System.currentTimeMillis() + timeToLive;
+
+        if (current != null && httpResponse.getStatusCode() == SC_NOT_MODIFIED) {
+            logger.log(Level.DEBUG, "Provider metadata of " + discoveryEndpoint + " is not modified.");
+            return new CachedMetadata(current.metadata, current.eTag, current.lastModified, expiryTime);
+        }
+        httpResponse.ensureStatusCode(HTTPResponse.SC_OK);
+
+        OIDCProviderMetadata metadata = OIDCProviderMetadata.parse(httpResponse.getContentAsJSONObject());
+        return new CachedMetadata(metadata, httpResponse.getHeaderValue(ETAG),
+                httpResponse.getHeaderValue(LAST_MODIFIED), expiryTime);
+    }
+
+    /**
+     * An immutable set of fetched provider metadata, its cache validators and the time until which it is served.
+     */
+    private static class CachedMetadata {
+
+        private final OIDCProviderMetadata metadata;
+        private final String eTag;
+        private final String lastModified;
+        private final long expiryTime;
+
+        CachedMetadata(OIDCProviderMetadata metadata, String eTag, String lastModified, long expiryTime) {
+
+            this.metadata = metadata;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
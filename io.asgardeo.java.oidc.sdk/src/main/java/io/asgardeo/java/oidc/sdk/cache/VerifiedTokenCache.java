@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.cache;
+
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded cache of the claims of verified tokens, so that a token presented again is not verified again.
+ *
+ * <p>Entries are keyed by the SHA-256 hash of the compact serialization of the token, hence the cache holds
+ * no tokens which could be replayed if the heap is dumped. An entry is served only until the expiration time
+ * of its token and is removed once found expired. The cache holds at most its maximum number of entries, the
+ * oldest entries are evicted first.
+ */
+public class VerifiedTokenCache {
+
+    private static final String SHA_256 = "SHA-256";
+
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(SHA_256);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM.", e);
+        }
+    });
+
+    private final int maxEntries;
+    private final ConcurrentMap<String, CachedClaims> entries = new ConcurrentHashMap<>();
+    // Entries in insertion order. Entries removed on expiry stay queued until polled, and count towards the
+    // maximum, so the queue is bounded too.
+    private final Queue<CachedClaims> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Creates a cache holding at most the given number of verified tokens.
+     *
+     * @param maxEntries The maximum number of cached tokens.
+     */
+    public VerifiedTokenCache(int maxEntries) {
+
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The maximum number of entries must be positive.");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the claims of the given token if it was verified earlier and has not expired.
+     *
+     * @param token The compact serialization of the token.
+     * @return The cached {@link JWTClaimsSet} of the token, {@code null} if none.
+     */
+    public JWTClaimsSet get(String token) {
+
+        String key = hash(token);
+        CachedClaims cachedClaims = entries.get(key);
+        if (cachedClaims == null) {
+            return null;
+        }
+        if (cachedClaims.expiryTime <= System.currentTimeMillis()) {
+            entries.remove(key, cachedClaims);
+            return null;
+        }
+        return cachedClaims.claimsSet;
+    }
+
+    /**
+     * Caches the claims of a verified token until the expiration time of the token. Tokens without an
+     * expiration time, or which have already expired, are not cached.
+     *
+     * @param token     The compact serialization of the verified token.
+     * @param claimsSet The {@link JWTClaimsSet} of the verified token.
+     */
+    public void put(String token, JWTClaimsSet claimsSet) {
+
+        Date expirationTime = claimsSet.getExpirationTime();
+        if (expirationTime == null || expirationTime.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        CachedClaims cachedClaims = new CachedClaims(hash(token), claimsSet, expirationTime.getTime());
+        if (entries.putIfAbsent(cachedClaims.key, cachedClaims) != null) {
+            return;
+        }
+        insertionOrder.add(cachedClaims);
+        if (queued.incrementAndGet() > maxEntries) {
+            evict();
+        }
+    }
+
+    /**
+     * Returns the number of cached tokens, including expired tokens which have not been looked up since they
+     * expired.
+     *
+     * @return The number of cached tokens.
+     */
+    public int size() {
+
+        return entries.size();
+    }
+
+    private void evict() {
+
+        while (queued.get() > maxEntries) {
+            CachedClaims eldest = insertionOrder.poll();
+            if (eldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            entries.remove(eldest.key, eldest);
+        }
+    }
+
+    private static String hash(String token) {
+
+        MessageDigest digest = DIGESTS.get();
+        digest.reset();
+        return Base64URL.encode(digest.digest(token.getBytes(StandardCharsets.US_ASCII))).toString();
+    }
+
+    /**
+     * The claims of a verified token and the time until which they are served.
+     */
+    private static class CachedClaims {
+
+        private final String key;
+        private final JWTClaimsSet claimsSet;
+        private final long expiryTime;
+
+        CachedClaims(String key, JWTClaimsSet claimsSet, long expiryTime) {
+
+            this.key = key;
+            this.claimsSet = claimsSet;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.claims;
+
+import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Selects the claims of the ID token which are retained as attributes of the authenticated user.
+ *
+ * <p>The OIDC metadata claims are never retained. If retained claims are configured only those claims
+ * are kept, and configured excluded claims are dropped in any case. The filter is applied in a single
+ * traversal of the claims set, in which the claim names and string values are optionally replaced by
+ * their canonical instances of a {@link StringPool}.
+ */
+public class ClaimFilter {
+
+    /**
+     * A filter which retains all claims other than the OIDC metadata claims.
+     */
+    public static final ClaimFilter DEFAULT = new ClaimFilter(null, null);
+
+    private final Set<String> retainedClaims;
+    private final Set<String> excludedClaims;
+    private final StringPool stringPool;
+
+    public ClaimFilter(Set<String> retainedClaims, Set<String> excludedClaims) {
+
+        this(retainedClaims, excludedClaims, null);
+    }
+
+    public ClaimFilter(Set<String> retainedClaims, Set<String> excludedClaims, StringPool stringPool) {
+
+        this.retainedClaims = retainedClaims != null && !retainedClaims.isEmpty() ?
+                Collections.unmodifiableSet(new HashSet<>(retainedClaims)) : Collections.emptySet();
+        this.excludedClaims = excludedClaims != null && !excludedClaims.isEmpty() ?
+                Collections.unmodifiableSet(new HashSet<>(excludedClaims)) : Collections.emptySet();
+        this.stringPool = stringPool;
+    }
+
+    /**
+     * Creates the filter for the retained and excluded claims of the agent configuration. If claim
+     * interning is enabled, the shared {@link StringPool} is used.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} of the agent.
+     * @return The {@link ClaimFilter} of the configuration.
+     */
+    public static ClaimFilter getInstance(OIDCAgentConfig oidcAgentConfig) {
+
+        Set<String> retained = oidcAgentConfig.getRetainedClaims();
+        Set<String> excluded = oidcAgentConfig.getExcludedClaims();
+
+        if ((retained == null || retained.isEmpty()) && (excluded == null || excluded.isEmpty()) &&
+                !oidcAgentConfig.isInternClaims()) {
+            return DEFAULT;
+        }
+        return new ClaimFilter(retained, excluded,
+                oidcAgentConfig.isInternClaims() ? StringPool.getInstance() : null);
+    }
+
+    /**
+     * Checks if a claim is retained as a user attribute.
+     *
+     * @param claim Name of the claim.
+     * @return True if the claim is retained, false otherwise.
+     */
+    public boolean isRetained(String claim) {
+
+        return !SSOAgentConstants.OIDC_METADATA_CLAIMS.contains(claim) &&
+                (retainedClaims.isEmpty() || retainedClaims.contains(claim)) && !excludedClaims.contains(claim);
+    }
+
+    /**
+     * Checks if the filter drops only the OIDC metadata claims, i.e. no retained or excluded claims are configured.
+     *
+     * @return True if all the non-metadata claims are retained, false otherwise.
+     */
+    public boolean retainsAllClaims() {
+
+        return retainedClaims.isEmpty() && excludedClaims.isEmpty();
+    }
+
+    /**
+     * Checks if the filter replaces the claim names and string values with their pooled instances.
+     *
+     * @return True if the claims are interned, false otherwise.
+     */
+    public boolean internsClaims() {
+
+        return stringPool != null;
+    }
+
+    /**
+     * Returns the retained claims of a claims set.
+     *
+     * @param claims The claims of the ID token.
+     * @return A new {@code Map<String, Object>} of the retained claims.
+     */
+    public Map<String, Object> filter(Map<String, Object> claims) {
+
+        int expectedSize = retainedClaims.isEmpty() ? claims.size() : Math.min(claims.size(), retainedClaims.size());
+        Map<String, Object> attributes = new HashMap<>((int) (expectedSize / 0.75f) + 1);
+
+        for (Map.Entry<String, Object> claim : claims.entrySet()) {
+            if (isRetained(claim.getKey())) {
+                if (stringPool != null) {
+                    attributes.put(stringPool.intern(claim.getKey()), intern(claim.getValue()));
+                } else {
+                    attributes.put(claim.getKey(), claim.getValue());
+                }
+            }
+        }
+        return attributes;
+    }
+
+    private Object intern(Object value) {
+
+        if (value instanceof String) {
+            return stringPool.intern((String) value);
+        }
+        if (value instanceof List) {
+            List<?> values = (List<?>) value;
+            List<Object> interned = new ArrayList<>(values.size());
+            for (Object element : values) {
+                interned.add(intern(element));
+            }
+            return interned;
+        }
+        if (value instanceof Map) {
+            Map<?, ?> values = (Map<?, ?>) value;
+            Map<Object, Object> interned = new LinkedHashMap<>((int) (values.size() / 0.75f) + 1);
+            for (Map.Entry<?, ?> entry : values.entrySet()) {
+                interned.put(intern(entry.getKey()), intern(entry.getValue()));
+            }
+            return interned;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.claims;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A pool of canonical string instances, used to share the claim names and the repeated claim values,
+ * e.g. tenant, locale or group names, between the attributes of the logged in users.
+ *
+ * <p>Unlike {@link String#intern()}, the pooled strings are weakly referenced, so that a string is
+ * released once no user attribute refers to it. The pool is split into stripes to reduce lock
+ * contention between concurrent logins.
+ */
+public final class StringPool {
+
+    private static final StringPool INSTANCE = new StringPool(16);
+
+    private final List<Map<String, WeakReference<String>>> stripes;
+
+    public StringPool(int concurrencyLevel) {
+
+        int stripeCount = Integer.highestOneBit(Math.max(1, concurrencyLevel - 1) << 1);
+        stripes = new ArrayList<>(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.add(new WeakHashMap<>());
+        }
+    }
+
+    /**
+     * Returns the shared string pool.
+     *
+     * @return The shared {@link StringPool}.
+     */
+    public static StringPool getInstance() {
+
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the canonical instance of a string. If the pool holds no string equal to the given
+     * string, the given string is added to the pool and returned.
+     *
+     * @param value The string.
+     * @return The canonical instance of the string, {@code null} if the string is {@code null}.
+     */
+    public String intern(String value) {
+
+        if (value == null) {
+            return null;
+        }
+
+        Map<String, WeakReference<String>> stripe = getStripe(value);
+        synchronized (stripe) {
+            WeakReference<String> reference = stripe.get(value);
+            String canonical = reference != null ? reference.get() : null;
+            if (canonical == null) {
+                stripe.put(value, new WeakReference<>(value));
+                canonical = value;
+            }
+            return canonical;
+        }
+    }
+
+    /**
+     * Returns the number of pooled strings, including strings which are yet to be released.
+     *
+     * @return The number of pooled strings.
+     */
+    public int size() {
+
+        int size = 0;
+        for (Map<String, WeakReference<String>> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Map<String, WeakReference<String>> getStripe(String value) {
+
+        int hash = value.hashCode();
+        return stripes.get((hash ^ (hash >>> 16)) & (stripes.size() - 1));
+    }
+}
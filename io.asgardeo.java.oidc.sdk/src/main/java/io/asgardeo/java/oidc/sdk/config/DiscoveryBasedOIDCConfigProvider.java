@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.config;
+
+import com.nimbusds.oauth2.sdk.id.Issuer;
+import com.nimbusds.openid.connect.sdk.op.OIDCProviderMetadata;
+import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
+import io.asgardeo.java.oidc.sdk.cache.ProviderMetadataCache;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentException;
+import io.asgardeo.java.oidc.sdk.http.HTTPTransport;
+import io.asgardeo.java.oidc.sdk.http.PooledHTTPTransport;
+import org.apache.commons.lang.StringUtils;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * An {@link OIDCConfigProvider} which completes the configuration of another provider with the
+ * OpenID Provider metadata published at the discovery endpoint.
+ *
+ * <p>The discovery endpoint is taken from the {@code discoveryEndpoint} property or, if not set, derived
+ * from the configured issuer. The issuer, authorize, token, JWKS and logout endpoints which are not
+ * explicitly configured are set from the metadata. Explicitly configured values always take precedence.
+ * Metadata whose issuer does not match the configured issuer is rejected, as required by OpenID Connect
+ * Discovery, and the configuration is left unchanged.
+ *
+ * <p>The metadata is loaded once when the provider is created and is kept in the process-wide
+ * {@link ProviderMetadataCache}, so creating more providers for the same OP or calling {@link #refresh()}
+ * within the cache time-to-live does not reach the OP.
+ */
+public class DiscoveryBasedOIDCConfigProvider implements OIDCConfigProvider {
+
+    private static final Logger logger = LogManager.getLogger(DiscoveryBasedOIDCConfigProvider.class);
+
+    private final OIDCAgentConfig oidcAgentConfig;
+    private final HTTPTransport httpTransport;
+    private final ProviderMetadataCache metadataCache;
+    private final boolean issuerConfigured;
+    private final boolean authorizeEndpointConfigured;
+    private final boolean tokenEndpointConfigured;
+    private final boolean jwksEndpointConfigured;
+    private final boolean logoutEndpointConfigured;
+
+    public DiscoveryBasedOIDCConfigProvider(OIDCConfigProvider configProvider) throws SSOAgentException {
+
+        this(configProvider, null);
+    }
+
+    /**
+     * Creates a discovery based config provider which loads the OpenID Provider metadata through the given
+     * transport.
+     *
+     * @param configProvider The {@link OIDCConfigProvider} with the explicitly configured values.
+     * @param httpTransport  The {@link HTTPTransport} for the calls to the discovery endpoint. If {@code null},
+     *                       the shared {@link PooledHTTPTransport} of the configuration is used.
+     * @throws SSOAgentException If neither a discovery endpoint nor an issuer is configured, or if the
+     *                           metadata could not be loaded.
+     */
+    public DiscoveryBasedOIDCConfigProvider(OIDCConfigProvider configProvider, HTTPTransport httpTransport)
+            throws SSOAgentException {
+
+        this.oidcAgentConfig = configProvider.getOidcAgentConfig();
+        this.httpTransport = httpTransport != null ? httpTransport : PooledHTTPTransport.getInstance(oidcAgentConfig);
+        this.metadataCache = ProviderMetadataCache.getInstance(getDiscoveryEndpoint(oidcAgentConfig));
+        this.issuerConfigured = oidcAgentConfig.getIssuer() != null;
+        this.authorizeEndpointConfigured = oidcAgentConfig.getAuthorizeEndpoint() != null;
+        this.tokenEndpointConfigured = oidcAgentConfig.getTokenEndpoint() != null;
+        this.jwksEndpointConfigured = oidcAgentConfig.getJwksEndpoint() != null;
+        this.logoutEndpointConfigured = oidcAgentConfig.getLogoutEndpoint() != null;
+        refresh();
+    }
+
+    /**
+     * Re-applies the OpenID Provider metadata to the configuration. The metadata is revalidated with the
+     * discovery endpoint only when the cached copy has expired. A running
+     * {@link io.asgardeo.java.oidc.sdk.DefaultOIDCManager} works with a snapshot of the configuration, hence
+     * the refreshed configuration is passed to its {@code updateConfig} method to take effect.
+     *
+     * @throws SSOAgentException If the metadata could not be loaded and no earlier copy is available, or if the
+     *                           issuer of the metadata does not match the configured issuer.
+     */
+    public void refresh() throws SSOAgentException {
+
+        OIDCProviderMetadata metadata = metadataCache.get(httpTransport, oidcAgentConfig.getDiscoveryCacheTTL());
+
+        if (issuerConfigured && !oidcAgentConfig.getIssuer().equals(metadata.getIssuer())) {
+            logger.log(Level.ERROR, "Configured issuer: " + oidcAgentConfig.getIssuer() + " does not match the " +
+                    "issuer: " + metadata.getIssuer() + " of the provider metadata.");
+            throw new SSOAgentClientException("Issuer of the provider metadata: " + metadata.getIssuer() +
+                    " does not match the configured issuer: " + oidcAgentConfig.getIssuer() + ".");
+        }
+        if (!issuerConfigured) {
+            oidcAgentConfig.setIssuer(metadata.getIssuer());
+        }
+        if (!authorizeEndpointConfigured) {
+            oidcAgentConfig.setAuthorizeEndpoint(metadata.getAuthorizationEndpointURI());
+        }
+        if (!tokenEndpointConfigured) {
+            oidcAgentConfig.setTokenEndpoint(metadata.getTokenEndpointURI());
+        }
+        if (!jwksEndpointConfigured) {
+            oidcAgentConfig.setJwksEndpoint(metadata.getJWKSetURI());
+        }
+        if (!logoutEndpointConfigured) {
+            oidcAgentConfig.setLogoutEndpoint(metadata.getEndSessionEndpointURI());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OIDCAgentConfig getOidcAgentConfig() {
+
+        return oidcAgentConfig;
+    }
+
+    private static URI getDiscoveryEndpoint(OIDCAgentConfig oidcAgentConfig) throws SSOAgentClientException {
+
+        if (oidcAgentConfig.getDiscoveryEndpoint() != null) {
+            return oidcAgentConfig.getDiscoveryEndpoint();
+        }
+        Issuer issuer = oidcAgentConfig.getIssuer();
+        if (issuer == null) {
+            throw new SSOAgentClientException("Either the discovery endpoint or the issuer must be configured.");
+        }
+        try {
+            return new URI(StringUtils.removeEnd(issuer.getValue(), "/") +
+                    SSOAgentConstants.OIDC_WELL_KNOWN_CONFIGURATION_PATH);
+        } catch (URISyntaxException e) {
+            throw new SSOAgentClientException("URL not formatted properly.", e);
+        }
+    }
+}
@@ -61,6 +61,17 @@ public class FileBasedOIDCConfigProvider implements OIDCConfigProvider {
         initConfig(properties);
     }
 
+    /**
+     * Creates a provider from already loaded properties, e.g. by {@link WatchingOIDCConfigProvider}.
+     *
+     * @param properties The configuration properties.
+     * @throws SSOAgentClientException If a property value is invalid.
+     */
+    FileBasedOIDCConfigProvider(Properties properties) throws SSOAgentClientException {
+
+        initConfig(properties);
+    }
+
     private void initConfig(Properties properties) throws SSOAgentClientException {
 
         ClientID consumerKey = StringUtils.isNotBlank(properties.getProperty(SSOAgentConstants.CONSUMER_KEY)) ?
@@ -87,6 +98,9 @@ public class FileBasedOIDCConfigProvider implements OIDCConfigProvider {
                     new URI(properties.getProperty(SSOAgentConstants.OIDC_TOKEN_ENDPOINT)) : null;
             URI jwksEndpoint = StringUtils.isNotBlank(properties.getProperty(SSOAgentConstants.OIDC_JWKS_ENDPOINT)) ?
                     new URI(properties.getProperty(SSOAgentConstants.OIDC_JWKS_ENDPOINT)) : null;
+            URI discoveryEndpoint =
+                    StringUtils.isNotBlank(properties.getProperty(SSOAgentConstants.OIDC_DISCOVERY_ENDPOINT)) ?
+                            new URI(properties.getProperty(SSOAgentConstants.OIDC_DISCOVERY_ENDPOINT)) : null;
             URI postLogoutRedirectURI =
                     StringUtils.isNotBlank(properties.getProperty(SSOAgentConstants.POST_LOGOUT_REDIRECTION_URI)) ?
                             new URI(properties.getProperty(SSOAgentConstants.POST_LOGOUT_REDIRECTION_URI)) :
@@ -97,6 +111,7 @@ public class FileBasedOIDCConfigProvider implements OIDCConfigProvider {
             oidcAgentConfig.setLogoutEndpoint(logoutEndpoint);
             oidcAgentConfig.setTokenEndpoint(tokenEndpoint);
             oidcAgentConfig.setJwksEndpoint(jwksEndpoint);
+            oidcAgentConfig.setDiscoveryEndpoint(discoveryEndpoint);
             oidcAgentConfig.setPostLogoutRedirectURI(postLogoutRedirectURI);
         } catch (URISyntaxException e) {
             throw new SSOAgentClientException("URL not formatted properly.", e);
@@ -140,6 +155,66 @@ public class FileBasedOIDCConfigProvider implements OIDCConfigProvider {
         oidcAgentConfig.setSkipURIs(skipURIs);
         oidcAgentConfig.setTrustedAudience(trustedAudience);
         oidcAgentConfig.setSignatureAlgorithm(jwsAlgorithm);
+        oidcAgentConfig.setJwksCacheTTL(getLongProperty(properties, SSOAgentConstants.JWKS_CACHE_TTL,
+                SSOAgentConstants.DEFAULT_JWKS_CACHE_TTL));
+        oidcAgentConfig.setJwksRefreshAheadTime(getLongProperty(properties,
+                SSOAgentConstants.JWKS_REFRESH_AHEAD_TIME, SSOAgentConstants.DEFAULT_JWKS_REFRESH_AHEAD_TIME));
+        oidcAgentConfig.setVerifiedTokenCacheSize((int) getLongProperty(properties,
+                SSOAgentConstants.VERIFIED_TOKEN_CACHE_SIZE, 0));
+        oidcAgentConfig.setDiscoveryCacheTTL(getLongProperty(properties, SSOAgentConstants.DISCOVERY_CACHE_TTL,
+                SSOAgentConstants.DEFAULT_DISCOVERY_CACHE_TTL));
+        oidcAgentConfig.setHttpConnectTimeout((int) getLongProperty(properties,
+                SSOAgentConstants.HTTP_CONNECT_TIMEOUT, SSOAgentConstants.DEFAULT_HTTP_CONNECT_TIMEOUT));
+        oidcAgentConfig.setHttpReadTimeout((int) getLongProperty(properties, SSOAgentConstants.HTTP_READ_TIMEOUT,
+                SSOAgentConstants.DEFAULT_HTTP_READ_TIMEOUT));
+        oidcAgentConfig.setHttpMaxConnectionsPerRoute((int) getLongProperty(properties,
+                SSOAgentConstants.HTTP_MAX_CONNECTIONS_PER_ROUTE,
+                SSOAgentConstants.DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE));
+        oidcAgentConfig.setHttpMaxConnections((int) getLongProperty(properties,
+                SSOAgentConstants.HTTP_MAX_CONNECTIONS, SSOAgentConstants.DEFAULT_HTTP_MAX_CONNECTIONS));
+        oidcAgentConfig.setHttpKeepAliveTime(getLongProperty(properties, SSOAgentConstants.HTTP_KEEP_ALIVE_TIME,
+                SSOAgentConstants.DEFAULT_HTTP_KEEP_ALIVE_TIME));
+        oidcAgentConfig.setVirtualThreadsEnabled(
+                Boolean.parseBoolean(properties.getProperty(SSOAgentConstants.VIRTUAL_THREADS_ENABLED)));
+        oidcAgentConfig.setRetainedClaims(getSetProperty(properties, SSOAgentConstants.RETAINED_CLAIMS));
+        oidcAgentConfig.setExcludedClaims(getSetProperty(properties, SSOAgentConstants.EXCLUDED_CLAIMS));
+        oidcAgentConfig.setInternClaims(
+                Boolean.parseBoolean(properties.getProperty(SSOAgentConstants.INTERN_CLAIMS)));
+        if (StringUtils.isNotBlank(properties.getProperty(SSOAgentConstants.STATE_SIGNING_SECRET))) {
+            oidcAgentConfig.setStateSigningSecret(
+                    new Secret(properties.getProperty(SSOAgentConstants.STATE_SIGNING_SECRET)));
+        }
+        oidcAgentConfig.setStateTTL(getLongProperty(properties, SSOAgentConstants.STATE_TTL,
+                SSOAgentConstants.DEFAULT_STATE_TTL));
+    }
+
+    private Set<String> getSetProperty(Properties properties, String key) {
+
+        Set<String> values = new HashSet<String>();
+        String value = properties.getProperty(key);
+        if (StringUtils.isNotBlank(value)) {
+            for (String element : value.split(",")) {
+                if (StringUtils.isNotBlank(element)) {
+                    values.add(element.trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    private long getLongProperty(Properties properties, String key, long defaultValue)
+            throws SSOAgentClientException {
+
+        String value = properties.getProperty(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new SSOAgentClientException(String.format("Invalid value: %s for the property: %s.", value, key),
+                    e);
+        }
     }
 
     /**
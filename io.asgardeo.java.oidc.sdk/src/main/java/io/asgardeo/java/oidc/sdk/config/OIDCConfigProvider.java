@@ -24,6 +24,8 @@ import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
  * A "provider" interface for the {@link OIDCAgentConfig} model.
  *
  * @see FileBasedOIDCConfigProvider
+ * @see DiscoveryBasedOIDCConfigProvider
+ * @see WatchingOIDCConfigProvider
  */
 public interface OIDCConfigProvider {
 
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.config;
+
+import io.asgardeo.java.oidc.sdk.DefaultOIDCManager;
+import io.asgardeo.java.oidc.sdk.config.model.ImmutableOIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A file-based provider for the {@link OIDCAgentConfig} model which reloads the configuration file when it
+ * changes, e.g. to rotate the client secret or to add trusted audiences without restarting the application.
+ *
+ * <p>The file is parsed the same way as by {@link FileBasedOIDCConfigProvider}. A daemon thread watches the
+ * directory of the file and re-parses the file after a change. A configuration which cannot be parsed or
+ * does not pass the validation of {@link DefaultOIDCManager} is rejected and the previous one stays in
+ * effect. A valid configuration is published as an {@link ImmutableOIDCAgentConfig} snapshot to the
+ * registered managers, which swap it in atomically, so requests in progress are not blocked.
+ *
+ * <p>The provided configuration is immutable, hence this provider cannot be wrapped by a
+ * {@link DiscoveryBasedOIDCConfigProvider}. The provider is closed to stop watching the file.
+ */
+public class WatchingOIDCConfigProvider implements OIDCConfigProvider, Closeable {
+
+    private static final Logger logger = LogManager.getLogger(WatchingOIDCConfigProvider.class);
+
+    // Editors often write a file in several steps, hence the changes are collected for this period first.
+    private static final long QUIET_PERIOD = 100L;
+
+    private final Path configFile;
+    private final List<DefaultOIDCManager> managers = new CopyOnWriteArrayList<>();
+    private final Object reloadLock = new Object();
+    private final WatchService watchService;
+    private final Thread watcher;
+    private volatile Properties properties;
+    private volatile ImmutableOIDCAgentConfig oidcAgentConfig;
+
+    /**
+     * Loads the configuration file and starts watching it.
+     *
+     * @param configFile The path of the configuration properties file.
+     * @throws SSOAgentClientException If the file could not be loaded or watched, or a property is invalid.
+     */
+    public WatchingOIDCConfigProvider(Path configFile) throws SSOAgentClientException {
+
+        this.configFile = configFile.toAbsolutePath();
+        this.properties = load();
+        this.oidcAgentConfig = parse(properties);
+
+        try {
+            this.watchService = this.configFile.getFileSystem().newWatchService();
+            this.configFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new SSOAgentClientException("Error while watching the configuration file: " + this.configFile, e);
+        }
+        this.watcher = new Thread(this::watch, "oidc-config-watcher");
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    /**
+     * Registers a manager to receive the reloaded configurations. The current configuration is applied to
+     * the manager right away.
+     *
+     * @param manager The {@link DefaultOIDCManager}.
+     * @throws SSOAgentClientException If the current configuration is not valid for the manager.
+     */
+    public void register(DefaultOIDCManager manager) throws SSOAgentClientException {
+
+        synchronized (reloadLock) {
+            manager.updateConfig(oidcAgentConfig);
+            managers.add(manager);
+        }
+    }
+
+    /**
+     * Unregisters a manager, which keeps the configuration it was given last.
+     *
+     * @param manager The {@link DefaultOIDCManager}.
+     */
+    public void unregister(DefaultOIDCManager manager) {
+
+        managers.remove(manager);
+    }
+
+    /**
+     * Re-parses the configuration file and publishes the configuration to the registered managers, if the
+     * file content changed. This is done by the watcher thread after a change and can be called to reload
+     * the file right away.
+     *
+     * @return True if a changed configuration was published, false if the file content did not change.
+     * @throws SSOAgentClientException If the file could not be loaded or the configuration is invalid. The
+     *                                 previous configuration stays in effect.
+     */
+    public boolean reload() throws SSOAgentClientException {
+
+        synchronized (reloadLock) {
+            Properties reloadedProperties = load();
+            if (reloadedProperties.equals(properties)) {
+                return false;
+            }
+            ImmutableOIDCAgentConfig reloadedConfig = parse(reloadedProperties);
+            // All managers validate alike, hence an invalid configuration is rejected by the first one.
+            for (DefaultOIDCManager manager : managers) {
+                manager.updateConfig(reloadedConfig);
+            }
+            properties = reloadedProperties;
+            oidcAgentConfig = reloadedConfig;
+            return true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ImmutableOIDCAgentConfig getOidcAgentConfig() {
+
+        return oidcAgentConfig;
+    }
+
+    /**
+     * Stops watching the configuration file.
+     *
+     * @throws IOException If the watch service could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+
+        watcher.interrupt();
+        watchService.close();
+    }
+
+    private Properties load() throws SSOAgentClientException {
+
+        Properties loadedProperties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(configFile)) {
+            loadedProperties.load(inputStream);
+        } catch (IOException e) {
+            throw new SSOAgentClientException("Error while loading the configuration file: " + configFile, e);
+        }
+        return loadedProperties;
+    }
+
+    private ImmutableOIDCAgentConfig parse(Properties configProperties) throws SSOAgentClientException {
+
+        try {
+            return ImmutableOIDCAgentConfig.of(new FileBasedOIDCConfigProvider(configProperties)
+                    .getOidcAgentConfig());
+        } catch (RuntimeException e) {
+            // E.g. a missing consumer key.
+            throw new SSOAgentClientException("Invalid configuration file: " + configFile, e);
+        }
+    }
+
+    private void watch() {
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                WatchKey watchKey = watchService.take();
+                boolean changed = isConfigFileChanged(watchKey);
+                if (!watchKey.reset()) {
+                    logger.log(Level.WARN, "Stopped watching the configuration file: " + configFile);
+                    return;
+                }
+                if (changed) {
+                    Thread.sleep(QUIET_PERIOD);
+                    drainPendingChanges();
+                    reloadChangedConfig();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+        }
+    }
+
+    private boolean isConfigFileChanged(WatchKey watchKey) {
+
+        boolean changed = false;
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || configFile.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void drainPendingChanges() {
+
+        WatchKey watchKey;
+        while ((watchKey = watchService.poll()) != null) {
+            watchKey.pollEvents();
+            watchKey.reset();
+        }
+    }
+
+    private void reloadChangedConfig() {
+
+        try {
+            if (reload()) {
+                logger.log(Level.INFO, "Reloaded the configuration file: " + configFile);
+            }
+        } catch (SSOAgentClientException e) {
+            logger.log(Level.ERROR, "Rejected the changed configuration file. The previous configuration is kept.",
+                    e);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.config.model;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.oauth2.sdk.Scope;
+import com.nimbusds.oauth2.sdk.auth.Secret;
+import com.nimbusds.oauth2.sdk.id.ClientID;
+import com.nimbusds.oauth2.sdk.id.Issuer;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of an {@link OIDCAgentConfig}, which can be read by concurrent requests without
+ * synchronization. Defaults which depend on other values are resolved when the snapshot is taken, e.g.
+ * the post logout redirect URI defaults to the callback URL. The setters throw
+ * {@link UnsupportedOperationException}.
+ *
+ * <p>To change the configuration of a running agent, a new snapshot is taken and published, e.g. with
+ * {@link io.asgardeo.java.oidc.sdk.DefaultOIDCManager#updateConfig(OIDCAgentConfig)}.
+ */
+public final class ImmutableOIDCAgentConfig extends OIDCAgentConfig {
+
+    private static final String IMMUTABLE_MESSAGE = "The OIDC agent configuration snapshot is immutable.";
+
+    private ImmutableOIDCAgentConfig(OIDCAgentConfig oidcAgentConfig) {
+
+        super.setConsumerKey(oidcAgentConfig.getConsumerKey());
+        super.setConsumerSecret(oidcAgentConfig.getConsumerSecret());
+        super.setIndexPage(oidcAgentConfig.getIndexPage());
+        super.setErrorPage(oidcAgentConfig.getErrorPage());
+        super.setLogoutURL(oidcAgentConfig.getLogoutURL());
+        super.setCallbackUrl(oidcAgentConfig.getCallbackUrl());
+        super.setScope(copyOf(oidcAgentConfig.getScope()));
+        super.setAuthorizeEndpoint(oidcAgentConfig.getAuthorizeEndpoint());
+        super.setLogoutEndpoint(oidcAgentConfig.getLogoutEndpoint());
+        super.setTokenEndpoint(oidcAgentConfig.getTokenEndpoint());
+        super.setIssuer(oidcAgentConfig.getIssuer());
+        super.setTrustedAudience(copyOf(oidcAgentConfig.getTrustedAudience()));
+        super.setJwksEndpoint(oidcAgentConfig.getJwksEndpoint());
+        super.setPostLogoutRedirectURI(oidcAgentConfig.getPostLogoutRedirectURI() != null ?
+                oidcAgentConfig.getPostLogoutRedirectURI() : oidcAgentConfig.getCallbackUrl());
+        super.setSignatureAlgorithm(oidcAgentConfig.getSignatureAlgorithm());
+        super.setSkipURIs(copyOf(oidcAgentConfig.getSkipURIs()));
+        super.setJwksCacheTTL(oidcAgentConfig.getJwksCacheTTL());
+        super.setJwksRefreshAheadTime(oidcAgentConfig.getJwksRefreshAheadTime());
+        super.setVerifiedTokenCacheSize(oidcAgentConfig.getVerifiedTokenCacheSize());
+        super.setHttpConnectTimeout(oidcAgentConfig.getHttpConnectTimeout());
+        super.setHttpReadTimeout(oidcAgentConfig.getHttpReadTimeout());
+        super.setHttpMaxConnectionsPerRoute(oidcAgentConfig.getHttpMaxConnectionsPerRoute());
+        super.setHttpMaxConnections(oidcAgentConfig.getHttpMaxConnections());
+        super.setHttpKeepAliveTime(oidcAgentConfig.getHttpKeepAliveTime());
+        super.setVirtualThreadsEnabled(oidcAgentConfig.isVirtualThreadsEnabled());
+        super.setDiscoveryEndpoint(oidcAgentConfig.getDiscoveryEndpoint());
+        super.setDiscoveryCacheTTL(oidcAgentConfig.getDiscoveryCacheTTL());
+        super.setRetainedClaims(copyOf(oidcAgentConfig.getRetainedClaims()));
+        super.setExcludedClaims(copyOf(oidcAgentConfig.getExcludedClaims()));
+        super.setInternClaims(oidcAgentConfig.isInternClaims());
+        super.setStateSigningSecret(oidcAgentConfig.getStateSigningSecret());
+        super.setStateTTL(oidcAgentConfig.getStateTTL());
+    }
+
+    /**
+     * Returns an immutable snapshot of a configuration.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig}.
+     * @return The given configuration if it is already a snapshot, a new snapshot of it otherwise.
+     */
+    public static ImmutableOIDCAgentConfig of(OIDCAgentConfig oidcAgentConfig) {
+
+        if (oidcAgentConfig instanceof ImmutableOIDCAgentConfig) {
+            return (ImmutableOIDCAgentConfig) oidcAgentConfig;
+        }
+        return new ImmutableOIDCAgentConfig(oidcAgentConfig);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setConsumerKey(ClientID consumerKey) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setConsumerSecret(Secret consumerSecret) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setIndexPage(String indexPage) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setErrorPage(String errorPage) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setLogoutURL(String logoutURL) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setCallbackUrl(URI callbackUrl) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setScope(Scope scope) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setAuthorizeEndpoint(URI authorizeEndpoint) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setLogoutEndpoint(URI logoutEndpoint) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setTokenEndpoint(URI tokenEndpoint) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setIssuer(Issuer issuer) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setTrustedAudience(Set<String> trustedAudience) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setJwksEndpoint(URI jwksEndpoint) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setPostLogoutRedirectURI(URI postLogoutRedirectURI) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setSignatureAlgorithm(JWSAlgorithm signatureAlgorithm) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setSkipURIs(Set<String> skipURIs) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setJwksCacheTTL(long jwksCacheTTL) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setJwksRefreshAheadTime(long jwksRefreshAheadTime) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setVerifiedTokenCacheSize(int verifiedTokenCacheSize) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setHttpConnectTimeout(int httpConnectTimeout) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setHttpReadTimeout(int httpReadTimeout) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setHttpMaxConnectionsPerRoute(int httpMaxConnectionsPerRoute) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setHttpMaxConnections(int httpMaxConnections) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setHttpKeepAliveTime(long httpKeepAliveTime) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setDiscoveryEndpoint(URI discoveryEndpoint) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setDiscoveryCacheTTL(long discoveryCacheTTL) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setRetainedClaims(Set<String> retainedClaims) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setExcludedClaims(Set<String> excludedClaims) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setInternClaims(boolean internClaims) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setStateSigningSecret(Secret stateSigningSecret) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Not supported, the configuration is immutable.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setStateTTL(long stateTTL) {
+
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    /**
+     * Returns a copy of the scope, as {@link Scope} is a mutable set.
+     *
+     * @return A copy of the scope.
+     */
+    @Override
+    public Scope getScope() {
+
+        return copyOf(super.getScope());
+    }
+
+    private static Set<String> copyOf(Set<String> values) {
+
+        return values != null ? Collections.unmodifiableSet(new HashSet<>(values)) : null;
+    }
+
+    private static Scope copyOf(Scope scope) {
+
+        return scope != null ? new Scope(scope.toArray(new Scope.Value[0])) : null;
+    }
+}
@@ -23,6 +23,7 @@ import com.nimbusds.oauth2.sdk.Scope;
 import com.nimbusds.oauth2.sdk.auth.Secret;
 import com.nimbusds.oauth2.sdk.id.ClientID;
 import com.nimbusds.oauth2.sdk.id.Issuer;
+import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
 
 import java.net.URI;
 import java.util.HashSet;
@@ -46,9 +47,25 @@ public class OIDCAgentConfig {
     private Issuer issuer;
     private Set<String> trustedAudience;
     private URI jwksEndpoint;
+    private URI discoveryEndpoint;
+    private long discoveryCacheTTL = SSOAgentConstants.DEFAULT_DISCOVERY_CACHE_TTL;
     private URI postLogoutRedirectURI;
     private JWSAlgorithm signatureAlgorithm;
     private Set<String> skipURIs = new HashSet<String>();
+    private long jwksCacheTTL = SSOAgentConstants.DEFAULT_JWKS_CACHE_TTL;
+    private long jwksRefreshAheadTime = SSOAgentConstants.DEFAULT_JWKS_REFRESH_AHEAD_TIME;
+    private int verifiedTokenCacheSize;
+    private int httpConnectTimeout = SSOAgentConstants.DEFAULT_HTTP_CONNECT_TIMEOUT;
+    private int httpReadTimeout = SSOAgentConstants.DEFAULT_HTTP_READ_TIMEOUT;
+    private int httpMaxConnectionsPerRoute = SSOAgentConstants.DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE;
+    private int httpMaxConnections = SSOAgentConstants.DEFAULT_HTTP_MAX_CONNECTIONS;
+    private long httpKeepAliveTime = SSOAgentConstants.DEFAULT_HTTP_KEEP_ALIVE_TIME;
+    private boolean virtualThreadsEnabled;
+    private Set<String> retainedClaims = new HashSet<String>();
+    private Set<String> excludedClaims = new HashSet<String>();
+    private boolean internClaims;
+    private Secret stateSigningSecret;
+    private long stateTTL = SSOAgentConstants.DEFAULT_STATE_TTL;
 
     /**
      * Returns the consumer key (Client ID) of the OIDC agent.
@@ -349,4 +366,333 @@ public class OIDCAgentConfig {
 
         this.skipURIs = skipURIs;
     }
+
+    /**
+     * Returns the time in milliseconds for which a fetched JWK set is cached.
+     *
+     * @return The JWK set cache time-to-live of the OIDC agent.
+     */
+    public long getJwksCacheTTL() {
+
+        return jwksCacheTTL;
+    }
+
+    /**
+     * Sets the time in milliseconds for which a fetched JWK set is cached.
+     *
+     * @param jwksCacheTTL The JWK set cache time-to-live of the OIDC agent.
+     */
+    public void setJwksCacheTTL(long jwksCacheTTL) {
+
+        this.jwksCacheTTL = jwksCacheTTL;
+    }
+
+    /**
+     * Returns the time in milliseconds before the expiry of the cached JWK set at which it is refreshed
+     * in the background.
+     *
+     * @return The JWK set refresh-ahead time of the OIDC agent.
+     */
+    public long getJwksRefreshAheadTime() {
+
+        return jwksRefreshAheadTime;
+    }
+
+    /**
+     * Sets the time in milliseconds before the expiry of the cached JWK set at which it is refreshed
+     * in the background.
+     *
+     * @param jwksRefreshAheadTime The JWK set refresh-ahead time of the OIDC agent.
+     */
+    public void setJwksRefreshAheadTime(long jwksRefreshAheadTime) {
+
+        this.jwksRefreshAheadTime = jwksRefreshAheadTime;
+    }
+
+    /**
+     * Returns the maximum number of verified access tokens whose claims are cached, so that repeated tokens
+     * are not verified again until they expire.
+     *
+     * @return The verified token cache size of the OIDC agent, 0 if the cache is disabled.
+     */
+    public int getVerifiedTokenCacheSize() {
+
+        return verifiedTokenCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of verified access tokens whose claims are cached. A size of 0 disables the cache.
+     *
+     * @param verifiedTokenCacheSize The verified token cache size of the OIDC agent.
+     */
+    public void setVerifiedTokenCacheSize(int verifiedTokenCacheSize) {
+
+        this.verifiedTokenCacheSize = verifiedTokenCacheSize;
+    }
+
+    /**
+     * Returns the timeout in milliseconds for establishing a connection to the OP.
+     *
+     * @return The HTTP connect timeout of the OIDC agent.
+     */
+    public int getHttpConnectTimeout() {
+
+        return httpConnectTimeout;
+    }
+
+    /**
+     * Sets the timeout in milliseconds for establishing a connection to the OP.
+     *
+     * @param httpConnectTimeout The HTTP connect timeout of the OIDC agent.
+     */
+    public void setHttpConnectTimeout(int httpConnectTimeout) {
+
+        this.httpConnectTimeout = httpConnectTimeout;
+    }
+
+    /**
+     * Returns the timeout in milliseconds for reading a response from the OP.
+     *
+     * @return The HTTP read timeout of the OIDC agent.
+     */
+    public int getHttpReadTimeout() {
+
+        return httpReadTimeout;
+    }
+
+    /**
+     * Sets the timeout in milliseconds for reading a response from the OP.
+     *
+     * @param httpReadTimeout The HTTP read timeout of the OIDC agent.
+     */
+    public void setHttpReadTimeout(int httpReadTimeout) {
+
+        this.httpReadTimeout = httpReadTimeout;
+    }
+
+    /**
+     * Returns the maximum number of pooled connections kept per OP host.
+     *
+     * @return The maximum number of HTTP connections per route of the OIDC agent.
+     */
+    public int getHttpMaxConnectionsPerRoute() {
+
+        return httpMaxConnectionsPerRoute;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections kept per OP host.
+     *
+     * @param httpMaxConnectionsPerRoute The maximum number of HTTP connections per route of the OIDC agent.
+     */
+    public void setHttpMaxConnectionsPerRoute(int httpMaxConnectionsPerRoute) {
+
+        this.httpMaxConnectionsPerRoute = httpMaxConnectionsPerRoute;
+    }
+
+    /**
+     * Returns the maximum number of pooled connections in total.
+     *
+     * @return The maximum number of HTTP connections of the OIDC agent.
+     */
+    public int getHttpMaxConnections() {
+
+        return httpMaxConnections;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections in total.
+     *
+     * @param httpMaxConnections The maximum number of HTTP connections of the OIDC agent.
+     */
+    public void setHttpMaxConnections(int httpMaxConnections) {
+
+        this.httpMaxConnections = httpMaxConnections;
+    }
+
+    /**
+     * Returns the time in milliseconds for which an idle connection is kept alive, when the OP does not
+     * specify one with a Keep-Alive header.
+     *
+     * @return The HTTP keep-alive time of the OIDC agent.
+     */
+    public long getHttpKeepAliveTime() {
+
+        return httpKeepAliveTime;
+    }
+
+    /**
+     * Sets the time in milliseconds for which an idle connection is kept alive, when the OP does not
+     * specify one with a Keep-Alive header.
+     *
+     * @param httpKeepAliveTime The HTTP keep-alive time of the OIDC agent.
+     */
+    public void setHttpKeepAliveTime(long httpKeepAliveTime) {
+
+        this.httpKeepAliveTime = httpKeepAliveTime;
+    }
+
+    /**
+     * Checks whether the asynchronous back-channel calls to the OP are run on virtual threads, when supported by the runtime.
+     *
+     * @return True if virtual threads are enabled for the OIDC agent, false otherwise.
+     */
+    public boolean isVirtualThreadsEnabled() {
+
+        return virtualThreadsEnabled;
+    }
+
+    /**
+     * Sets whether the asynchronous back-channel calls to the OP are run on virtual threads, when supported by the runtime.
+     *
+     * @param virtualThreadsEnabled True to enable virtual threads for the OIDC agent.
+     */
+    public void setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+    }
+
+    /**
+     * Returns the discovery endpoint URI of the OIDC agent, from which the OpenID Provider metadata is loaded.
+     *
+     * @return The discovery endpoint URI of the OIDC agent.
+     */
+    public URI getDiscoveryEndpoint() {
+
+        return discoveryEndpoint;
+    }
+
+    /**
+     * Sets the discovery endpoint URI of the OIDC agent, from which the OpenID Provider metadata is loaded.
+     *
+     * @param discoveryEndpoint The discovery endpoint URI of the OIDC agent.
+     */
+    public void setDiscoveryEndpoint(URI discoveryEndpoint) {
+
+        this.discoveryEndpoint = discoveryEndpoint;
+    }
+
+    /**
+     * Returns the time in milliseconds for which the fetched OpenID Provider metadata is cached.
+     *
+     * @return The provider metadata cache time-to-live of the OIDC agent.
+     */
+    public long getDiscoveryCacheTTL() {
+
+        return discoveryCacheTTL;
+    }
+
+    /**
+     * Sets the time in milliseconds for which the fetched OpenID Provider metadata is cached.
+     *
+     * @param discoveryCacheTTL The provider metadata cache time-to-live of the OIDC agent.
+     */
+    public void setDiscoveryCacheTTL(long discoveryCacheTTL) {
+
+        this.discoveryCacheTTL = discoveryCacheTTL;
+    }
+
+    /**
+     * Returns the ID token claims retained as user attributes. If empty, all claims other than the
+     * OIDC metadata claims are retained.
+     *
+     * @return The retained claims of the OIDC agent.
+     */
+    public Set<String> getRetainedClaims() {
+
+        return retainedClaims;
+    }
+
+    /**
+     * Sets the ID token claims retained as user attributes.
+     *
+     * @param retainedClaims The retained claims of the OIDC agent.
+     */
+    public void setRetainedClaims(Set<String> retainedClaims) {
+
+        this.retainedClaims = retainedClaims;
+    }
+
+    /**
+     * Returns the ID token claims which are not retained as user attributes.
+     *
+     * @return The excluded claims of the OIDC agent.
+     */
+    public Set<String> getExcludedClaims() {
+
+        return excludedClaims;
+    }
+
+    /**
+     * Sets the ID token claims which are not retained as user attributes.
+     *
+     * @param excludedClaims The excluded claims of the OIDC agent.
+     */
+    public void setExcludedClaims(Set<String> excludedClaims) {
+
+        this.excludedClaims = excludedClaims;
+    }
+
+    /**
+     * Returns whether the claim names and string values of the user attributes are shared between users
+     * through a pool of canonical strings.
+     *
+     * @return True if claim interning is enabled, false otherwise.
+     */
+    public boolean isInternClaims() {
+
+        return internClaims;
+    }
+
+    /**
+     * Sets whether the claim names and string values of the user attributes are shared between users
+     * through a pool of canonical strings.
+     *
+     * @param internClaims True to enable claim interning.
+     */
+    public void setInternClaims(boolean internClaims) {
+
+        this.internClaims = internClaims;
+    }
+
+    /**
+     * Returns the secret used to sign the state parameter. If set, the nonce of an authentication request
+     * is encoded into the state parameter instead of being stored on the server.
+     *
+     * @return {@link Secret} for the state parameter, {@code null} if not set.
+     */
+    public Secret getStateSigningSecret() {
+
+        return stateSigningSecret;
+    }
+
+    /**
+     * Sets the secret used to sign the state parameter.
+     *
+     * @param stateSigningSecret The state signing secret of the OIDC agent.
+     */
+    public void setStateSigningSecret(Secret stateSigningSecret) {
+
+        this.stateSigningSecret = stateSigningSecret;
+    }
+
+    /**
+     * Returns the time in milliseconds for which a signed state parameter is valid.
+     *
+     * @return The state time-to-live of the OIDC agent.
+     */
+    public long getStateTTL() {
+
+        return stateTTL;
+    }
+
+    /**
+     * Sets the time in milliseconds for which a signed state parameter is valid.
+     *
+     * @param stateTTL The state time-to-live of the OIDC agent.
+     */
+    public void setStateTTL(long stateTTL) {
+
+        this.stateTTL = stateTTL;
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.http;
+
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provides the executors on which the asynchronous back-channel calls to the OpenID Provider are run off the
+ * request threads, i.e. the asynchronous callback processing and token refresh of the {@code AsyncOIDCManager}
+ * and the background JWK set refresh. The synchronous token exchange, token refresh and discovery document
+ * retrieval still run on the calling thread.
+ *
+ * <p>By default a shared pool of daemon platform threads is used. When virtual threads are enabled in the
+ * {@link OIDCAgentConfig} and the runtime supports them (JDK 21 or later), a virtual-thread-per-task
+ * executor is used instead. The virtual thread executor is looked up reflectively, so the SDK keeps
+ * running on older runtimes, where it falls back to the platform thread pool.
+ */
+public final class BackChannelExecutors {
+
+    private static final Logger logger = LogManager.getLogger(BackChannelExecutors.class);
+
+    private static final ExecutorService PLATFORM_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "oidc-back-channel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final ExecutorService VIRTUAL_THREAD_EXECUTOR = createVirtualThreadExecutor();
+
+    private BackChannelExecutors() {
+
+    }
+
+    /**
+     * Returns the back-channel executor for the given {@link OIDCAgentConfig}.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} of the OIDC agent.
+     * @return The virtual thread executor if enabled and supported, the shared platform thread pool otherwise.
+     */
+    public static Executor getExecutor(OIDCAgentConfig oidcAgentConfig) {
+
+        if (oidcAgentConfig != null && oidcAgentConfig.isVirtualThreadsEnabled()) {
+            if (VIRTUAL_THREAD_EXECUTOR != null) {
+                return VIRTUAL_THREAD_EXECUTOR;
+            }
+            logger.log(Level.WARN, "Virtual threads are not supported by the runtime. Using platform threads for " +
+                    "the back-channel calls.");
+        }
+        return PLATFORM_EXECUTOR;
+    }
+
+    /**
+     * Returns the shared pool of daemon platform threads.
+     *
+     * @return The platform thread executor.
+     */
+    public static Executor getDefaultExecutor() {
+
+        return PLATFORM_EXECUTOR;
+    }
+
+    /**
+     * Checks whether the runtime supports virtual threads.
+     *
+     * @return True if a virtual-thread-per-task executor is available, false otherwise.
+     */
+    public static boolean isVirtualThreadsSupported() {
+
+        return VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.log(Level.DEBUG, "Virtual threads are not available in the runtime.");
+            return null;
+        }
+    }
+}
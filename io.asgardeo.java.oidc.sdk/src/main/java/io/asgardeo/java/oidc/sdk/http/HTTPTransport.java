@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.http;
+
+import com.nimbusds.oauth2.sdk.http.HTTPRequest;
+import com.nimbusds.oauth2.sdk.http.HTTPResponse;
+
+import java.io.IOException;
+
+/**
+ * A transport interface for the back-channel HTTP calls made to the OpenID Provider, such as
+ * token requests and JWK set retrievals.
+ *
+ * <p>Implementations must be thread-safe as a single instance is shared by all the requests
+ * handled by an OIDC manager.
+ *
+ * @see PooledHTTPTransport
+ */
+public interface HTTPTransport {
+
+    /**
+     * Sends the given HTTP request to the OpenID Provider and returns the response.
+     *
+     * @param httpRequest The {@link HTTPRequest} to send.
+     * @return The {@link HTTPResponse} received from the OpenID Provider.
+     * @throws IOException If the request couldn't be sent or the response couldn't be read.
+     */
+    HTTPResponse send(HTTPRequest httpRequest) throws IOException;
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.http;
+
+import com.nimbusds.jose.jwk.source.RemoteJWKSet;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.oauth2.sdk.http.HTTPRequest;
+import com.nimbusds.oauth2.sdk.http.HTTPResponse;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link ResourceRetriever} which retrieves resources, such as the JWK set of the OpenID Provider,
+ * through an {@link HTTPTransport}. Resources larger than the size limit, by default the same as for the
+ * JWK sets retrieved by Nimbus, are rejected.
+ *
+ * <p>Two retrievers are equal if they use the same transport instance and size limit.
+ */
+public class HTTPTransportResourceRetriever implements ResourceRetriever {
+
+    private final HTTPTransport httpTransport;
+    private final int sizeLimit;
+
+    public HTTPTransportResourceRetriever(HTTPTransport httpTransport) {
+
+        this(httpTransport, RemoteJWKSet.DEFAULT_HTTP_SIZE_LIMIT);
+    }
+
+    public HTTPTransportResourceRetriever(HTTPTransport httpTransport, int sizeLimit) {
+
+        this.httpTransport = httpTransport;
+        this.sizeLimit = sizeLimit;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Resource retrieveResource(URL url) throws IOException {
+
+        HTTPResponse httpResponse = httpTransport.send(new HTTPRequest(HTTPRequest.Method.GET, url));
+
+        if (httpResponse.getStatusCode() != HTTPResponse.SC_OK) {
+            throw new IOException(String.format("HTTP %s: %s", httpResponse.getStatusCode(),
+                    httpResponse.getStatusMessage()));
+        }
+        String contentType = httpResponse.getEntityContentType() != null ?
+                httpResponse.getEntityContentType().toString() : null;
+        String content = httpResponse.getContent();
+        // Transports other than the pooled transport may not enforce a size limit on their own.
+        if (content != null && content.getBytes(StandardCharsets.UTF_8).length > sizeLimit) {
+            throw new IOException(String.format("Resource at %s exceeds the size limit of %d bytes.", url,
+                    sizeLimit));
+        }
+        return new Resource(content, contentType);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HTTPTransportResourceRetriever that = (HTTPTransportResourceRetriever) o;
+        return httpTransport == that.httpTransport && sizeLimit == that.sizeLimit;
+    }
+
+    @Override
+    public int hashCode() {
+
+        return System.identityHashCode(httpTransport) * 31 + sizeLimit;
+    }
+}
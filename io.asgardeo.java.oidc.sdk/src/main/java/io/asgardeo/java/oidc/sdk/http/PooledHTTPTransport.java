@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.http;
+
+import com.nimbusds.jose.jwk.source.RemoteJWKSet;
+import com.nimbusds.oauth2.sdk.ParseException;
+import com.nimbusds.oauth2.sdk.http.HTTPRequest;
+import com.nimbusds.oauth2.sdk.http.HTTPResponse;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The default {@link HTTPTransport}, backed by an Apache HttpClient with a pool of persistent connections.
+ *
+ * <p>Connections to the OpenID Provider are kept alive and reused across requests, so the TCP and TLS
+ * handshakes are done once per pooled connection instead of once per back-channel call. TLS and proxies
+ * are set up from the JVM system properties, i.e. {@code javax.net.ssl.*}, {@code http(s).proxyHost},
+ * {@code http(s).proxyPort} and {@code http.nonProxyHosts}, the same as for {@link HTTPRequest#send()}.
+ *
+ * <p>Response entities are read up to a size limit, {@link #DEFAULT_SIZE_LIMIT} by default, so that a
+ * misbehaving endpoint cannot exhaust the memory of the agent.
+ *
+ * <p>One transport is shared per distinct set of connection settings, see {@link #getInstance(OIDCAgentConfig)}.
+ * Shared transports are not closed by {@link #close()}, as other holders keep using them.
+ */
+public class PooledHTTPTransport implements HTTPTransport, Closeable {
+
+    private static final ConcurrentMap<TransportSettings, PooledHTTPTransport> TRANSPORTS =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The default maximum size in bytes of a response entity, the same as for the JWK sets retrieved by Nimbus.
+     */
+    public static final int DEFAULT_SIZE_LIMIT = RemoteJWKSet.DEFAULT_HTTP_SIZE_LIMIT;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final RequestConfig requestConfig;
+    private final int sizeLimit;
+    private final boolean shared;
+
+    /**
+     * Creates a new pooled HTTP transport.
+     *
+     * @param connectTimeout           The timeout in milliseconds for establishing a connection.
+     * @param readTimeout              The timeout in milliseconds for reading a response.
+     * @param maxConnectionsPerRoute   The maximum number of pooled connections per host.
+     * @param maxConnections           The maximum number of pooled connections in total.
+     * @param keepAliveTime            The time in milliseconds for which an idle connection is kept alive
+     *                                 when the server does not specify one.
+     */
+    public PooledHTTPTransport(int connectTimeout, int readTimeout, int maxConnectionsPerRoute, int maxConnections,
+                               long keepAliveTime) {
+
+        this(connectTimeout, readTimeout, maxConnectionsPerRoute, maxConnections, keepAliveTime, DEFAULT_SIZE_LIMIT,
+                false);
+    }
+
+    /**
+     * Creates a new pooled HTTP transport.
+     *
+     * @param connectTimeout           The timeout in milliseconds for establishing a connection.
+     * @param readTimeout              The timeout in milliseconds for reading a response.
+     * @param maxConnectionsPerRoute   The maximum number of pooled connections per host.
+     * @param maxConnections           The maximum number of pooled connections in total.
+     * @param keepAliveTime            The time in milliseconds for which an idle connection is kept alive
+     *                                 when the server does not specify one.
+     * @param sizeLimit                The maximum size in bytes of a response entity.
+     */
+    public PooledHTTPTransport(int connectTimeout, int readTimeout, int maxConnectionsPerRoute, int maxConnections,
+                               long keepAliveTime, int sizeLimit) {
+
+        this(connectTimeout, readTimeout, maxConnectionsPerRoute, maxConnections, keepAliveTime, sizeLimit, false);
+    }
+
+    private PooledHTTPTransport(int connectTimeout, int readTimeout, int maxConnectionsPerRoute, int maxConnections,
+                                long keepAliveTime, int sizeLimit, boolean shared) {
+
+        this.sizeLimit = sizeLimit;
+        this.shared = shared;
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                .build();
+        this.connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        this.connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        this.connectionManager.setMaxTotal(maxConnections);
+
+        this.requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .setStaleConnectionCheckEnabled(true)
+                .build();
+
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : keepAliveTime;
+        };
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .useSystemProperties()
+                .build();
+    }
+
+    /**
+     * Returns the shared {@code PooledHTTPTransport} for the connection settings of the given
+     * {@link OIDCAgentConfig}, creating it on first use.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} of the OIDC agent.
+     * @return The {@link PooledHTTPTransport} for the connection settings.
+     */
+    public static PooledHTTPTransport getInstance(OIDCAgentConfig oidcAgentConfig) {
+
+        return TRANSPORTS.computeIfAbsent(new TransportSettings(oidcAgentConfig),
+                settings -> new PooledHTTPTransport(settings.connectTimeout, settings.readTimeout,
+                        settings.maxConnectionsPerRoute, settings.maxConnections, settings.keepAliveTime,
+                        DEFAULT_SIZE_LIMIT, true));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HTTPResponse send(HTTPRequest httpRequest) throws IOException {
+
+        HttpRequestBase request = toHttpRequest(httpRequest);
+
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            return toHTTPResponse(response);
+        }
+    }
+
+    /**
+     * Closes the pooled connections of this transport. Does nothing for the shared transports returned by
+     * {@link #getInstance(OIDCAgentConfig)}, which live as long as the JVM.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (!shared) {
+            httpClient.close();
+        }
+    }
+
+    private HttpRequestBase toHttpRequest(HTTPRequest httpRequest) throws IOException {
+
+        String url = httpRequest.getURL().toString();
+        String query = httpRequest.getQuery();
+        HttpRequestBase request;
+
+        switch (httpRequest.getMethod()) {
+            case GET:
+                request = new HttpGet(appendQuery(url, query));
+                break;
+            case DELETE:
+                request = new HttpDelete(appendQuery(url, query));
+                break;
+            case POST:
+                request = new HttpPost(url);
+                break;
+            case PUT:
+                request = new HttpPut(url);
+                break;
+            default:
+                throw new IOException("Unsupported HTTP method: " + httpRequest.getMethod());
+        }
+
+        for (Map.Entry<String, List<String>> header : httpRequest.getHeaderMap().entrySet()) {
+            for (String value : header.getValue()) {
+                request.addHeader(header.getKey(), value);
+            }
+        }
+        if (request instanceof HttpEntityEnclosingRequestBase && query != null) {
+            ((HttpEntityEnclosingRequestBase) request).setEntity(new StringEntity(query, "UTF-8"));
+        }
+
+        if (httpRequest.getConnectTimeout() > 0 || httpRequest.getReadTimeout() > 0) {
+            RequestConfig.Builder builder = RequestConfig.copy(requestConfig);
+            if (httpRequest.getConnectTimeout() > 0) {
+                builder.setConnectTimeout(httpRequest.getConnectTimeout());
+            }
+            if (httpRequest.getReadTimeout() > 0) {
+                builder.setSocketTimeout(httpRequest.getReadTimeout());
+            }
+            request.setConfig(builder.build());
+        }
+        return request;
+    }
+
+    private HTTPResponse toHTTPResponse(CloseableHttpResponse response) throws IOException {
+
+        HTTPResponse httpResponse = new HTTPResponse(response.getStatusLine().getStatusCode());
+        httpResponse.setStatusMessage(response.getStatusLine().getReasonPhrase());
+
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (Header header : response.getAllHeaders()) {
+            headers.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+        }
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            httpResponse.setHeader(header.getKey(), header.getValue().toArray(new String[0]));
+        }
+
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return httpResponse;
+        }
+        if (entity.getContentType() != null) {
+            try {
+                httpResponse.setContentType(entity.getContentType().getValue());
+            } catch (ParseException e) {
+                throw new IOException("Couldn't parse Content-Type header: " + e.getMessage(), e);
+            }
+        }
+        String content = readContent(entity);
+        if (StringUtils.isNotEmpty(content)) {
+            httpResponse.setContent(content);
+        }
+        return httpResponse;
+    }
+
+    private String readContent(HttpEntity entity) throws IOException {
+
+        long contentLength = entity.getContentLength();
+        if (contentLength > sizeLimit) {
+            throw new IOException(String.format("Response entity of %d bytes exceeds the size limit of %d bytes.",
+                    contentLength, sizeLimit));
+        }
+        ContentType contentType = ContentType.getOrDefault(entity);
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+
+        try (InputStream inputStream = entity.getContent()) {
+            if (inputStream == null) {
+                return null;
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength :
+                    BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                if (content.size() + read > sizeLimit) {
+                    throw new IOException(String.format("Response entity exceeds the size limit of %d bytes.",
+                            sizeLimit));
+                }
+                content.write(buffer, 0, read);
+            }
+            return new String(content.toByteArray(), charset);
+        }
+    }
+
+    private String appendQuery(String url, String query) {
+
+        if (StringUtils.isEmpty(query)) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + query;
+    }
+
+    /**
+     * An immutable snapshot of the connection settings of an {@link OIDCAgentConfig}.
+     */
+    private static final class TransportSettings {
+
+        private final int connectTimeout;
+        private final int readTimeout;
+        private final int maxConnectionsPerRoute;
+        private final int maxConnections;
+        private final long keepAliveTime;
+
+        TransportSettings(OIDCAgentConfig oidcAgentConfig) {
+
+            this.connectTimeout = oidcAgentConfig.getHttpConnectTimeout();
+            this.readTimeout = oidcAgentConfig.getHttpReadTimeout();
+            this.maxConnectionsPerRoute = oidcAgentConfig.getHttpMaxConnectionsPerRoute();
+            this.maxConnections = oidcAgentConfig.getHttpMaxConnections();
+            this.keepAliveTime = oidcAgentConfig.getHttpKeepAliveTime();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TransportSettings that = (TransportSettings) o;
+            return connectTimeout == that.connectTimeout && readTimeout == that.readTimeout &&
+                    maxConnectionsPerRoute == that.maxConnectionsPerRoute && maxConnections == that.maxConnections &&
+                    keepAliveTime == that.keepAliveTime;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(connectTimeout, readTimeout, maxConnectionsPerRoute, maxConnections, keepAliveTime);
+        }
+    }
+}
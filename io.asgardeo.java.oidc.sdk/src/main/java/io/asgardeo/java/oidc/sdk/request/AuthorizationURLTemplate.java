@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.request;
+
+import com.nimbusds.oauth2.sdk.ResponseType;
+import com.nimbusds.oauth2.sdk.Scope;
+import com.nimbusds.oauth2.sdk.id.ClientID;
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.openid.connect.sdk.AuthenticationRequest;
+import com.nimbusds.openid.connect.sdk.Nonce;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * The authorization URL of the agent, split around its per-request state and nonce parameters.
+ *
+ * <p>The static parts are serialized once by Nimbus, with placeholder state and nonce values, so that
+ * building the URL of a login request only appends the state and the nonce to the precomputed parts.
+ * The template records the configuration values it was built from, to detect a changed configuration,
+ * e.g. after the provider metadata is refreshed.
+ */
+public class AuthorizationURLTemplate {
+
+    private static final String STATE_PLACEHOLDER = "__state__";
+    private static final String NONCE_PLACEHOLDER = "__nonce__";
+
+    private final URI authorizationEndpoint;
+    private final ClientID clientID;
+    private final Scope scope;
+    private final URI callbackURI;
+    private final String prefix;
+    private final String infix;
+    private final String suffix;
+
+    private AuthorizationURLTemplate(URI authorizationEndpoint, ClientID clientID, Scope scope, URI callbackURI) {
+
+        this.authorizationEndpoint = authorizationEndpoint;
+        this.clientID = clientID;
+        this.scope = scope;
+        this.callbackURI = callbackURI;
+
+        String url = new AuthenticationRequest.Builder(new ResponseType(ResponseType.Value.CODE), scope, clientID,
+                callbackURI)
+                .state(new State(STATE_PLACEHOLDER))
+                .endpointURI(authorizationEndpoint)
+                .nonce(new Nonce(NONCE_PLACEHOLDER))
+                .build()
+                .toURI()
+                .toString();
+        int stateIndex = url.indexOf(STATE_PLACEHOLDER);
+        int nonceIndex = url.indexOf(NONCE_PLACEHOLDER);
+        this.prefix = url.substring(0, stateIndex);
+        this.infix = url.substring(stateIndex + STATE_PLACEHOLDER.length(), nonceIndex);
+        this.suffix = url.substring(nonceIndex + NONCE_PLACEHOLDER.length());
+    }
+
+    /**
+     * Creates the template for the client ID, scope, callback URI and authorization endpoint of the
+     * configuration.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} of the agent.
+     * @return The {@link AuthorizationURLTemplate} of the configuration.
+     */
+    public static AuthorizationURLTemplate of(OIDCAgentConfig oidcAgentConfig) {
+
+        return new AuthorizationURLTemplate(oidcAgentConfig.getAuthorizeEndpoint(), oidcAgentConfig.getConsumerKey(),
+                oidcAgentConfig.getScope(), oidcAgentConfig.getCallbackUrl());
+    }
+
+    /**
+     * Checks if the template was built from the current values of a configuration.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} of the agent.
+     * @return True if the template is up to date, false otherwise.
+     */
+    public boolean matches(OIDCAgentConfig oidcAgentConfig) {
+
+        return Objects.equals(authorizationEndpoint, oidcAgentConfig.getAuthorizeEndpoint()) &&
+                Objects.equals(clientID, oidcAgentConfig.getConsumerKey()) &&
+                Objects.equals(scope, oidcAgentConfig.getScope()) &&
+                Objects.equals(callbackURI, oidcAgentConfig.getCallbackUrl());
+    }
+
+    /**
+     * Builds the authorization URL of a login request.
+     *
+     * @param state The state of the request.
+     * @param nonce The nonce of the request.
+     * @return The authorization URL.
+     */
+    public URI build(State state, Nonce nonce) {
+
+        String stateValue = encode(state.getValue());
+        String nonceValue = encode(nonce.getValue());
+        return URI.create(new StringBuilder(prefix.length() + stateValue.length() + infix.length() +
+                nonceValue.length() + suffix.length())
+                .append(prefix)
+                .append(stateValue)
+                .append(infix)
+                .append(nonceValue)
+                .append(suffix)
+                .toString());
+    }
+
+    private static String encode(String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_' ||
+                    c == '.')) {
+                try {
+                    return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+                } catch (UnsupportedEncodingException e) {
+                    // UTF-8 is supported by every Java platform.
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        // The generated values are Base64URL encoded, which needs no URL encoding.
+        return value;
+    }
+}
@@ -20,14 +20,10 @@ package io.asgardeo.java.oidc.sdk.request;
 
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTParser;
-import com.nimbusds.oauth2.sdk.ResponseType;
-import com.nimbusds.oauth2.sdk.Scope;
-import com.nimbusds.oauth2.sdk.id.ClientID;
 import com.nimbusds.oauth2.sdk.id.State;
-import com.nimbusds.openid.connect.sdk.AuthenticationRequest;
 import com.nimbusds.openid.connect.sdk.LogoutRequest;
-import com.nimbusds.openid.connect.sdk.Nonce;
 import io.asgardeo.java.oidc.sdk.OIDCManager;
+import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
 import io.asgardeo.java.oidc.sdk.bean.RequestContext;
 import io.asgardeo.java.oidc.sdk.bean.SessionContext;
 import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
@@ -37,7 +33,6 @@ import org.apache.logging.log4j.Logger;
 
 import java.net.URI;
 import java.text.ParseException;
-import java.util.UUID;
 
 /**
  * OIDCRequestBuilder is the class responsible for building requests
@@ -56,10 +51,42 @@ public class OIDCRequestBuilder {
     private static final Logger logger = LogManager.getLogger(OIDCRequestResolver.class);
 
     OIDCAgentConfig oidcAgentConfig;
+    private final SignedStateCodec stateCodec;
+    private final AuthorizationURLTemplate authorizationURLTemplate;
 
     public OIDCRequestBuilder(OIDCAgentConfig oidcAgentConfig) {
 
+        this(oidcAgentConfig, null, null);
+    }
+
+    /**
+     * Creates a request builder which encodes the nonce of authentication requests into a signed state
+     * parameter.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} of the agent.
+     * @param stateCodec      The {@link SignedStateCodec} for the state parameter. If {@code null}, a random
+     *                        state is used.
+     */
+    public OIDCRequestBuilder(OIDCAgentConfig oidcAgentConfig, SignedStateCodec stateCodec) {
+
+        this(oidcAgentConfig, stateCodec, null);
+    }
+
+    /**
+     * Creates a request builder which builds the authorization URL from a precomputed template.
+     *
+     * @param oidcAgentConfig          The {@link OIDCAgentConfig} of the agent.
+     * @param stateCodec               The {@link SignedStateCodec} for the state parameter. If {@code null}, a
+     *                                 random state is used.
+     * @param authorizationURLTemplate The {@link AuthorizationURLTemplate} of the configuration. If {@code null}
+     *                                 or out of date, the template is built for the request.
+     */
+    public OIDCRequestBuilder(OIDCAgentConfig oidcAgentConfig, SignedStateCodec stateCodec,
+                              AuthorizationURLTemplate authorizationURLTemplate) {
+
         this.oidcAgentConfig = oidcAgentConfig;
+        this.stateCodec = stateCodec;
+        this.authorizationURLTemplate = authorizationURLTemplate;
     }
 
     /**
@@ -71,32 +98,28 @@ public class OIDCRequestBuilder {
      * <li>The callback URI
      * <li>The authorization endpoint URI
      * </ul>
+     * If the builder has a {@link SignedStateCodec}, the nonce is encoded into the state parameter and the
+     * value of the binding cookie is set as the {@link SSOAgentConstants#STATE_BINDING} parameter of the
+     * {@link RequestContext}.
      *
      * @return Authentication request.
      */
     public io.asgardeo.java.oidc.sdk.request.model.AuthenticationRequest buildAuthenticationRequest() {
 
-        ResponseType responseType = new ResponseType(ResponseType.Value.CODE);
-        ClientID clientID = oidcAgentConfig.getConsumerKey();
-        Scope authScope = oidcAgentConfig.getScope();
-        URI callBackURI = oidcAgentConfig.getCallbackUrl();
-        URI authorizationEndpoint = oidcAgentConfig.getAuthorizeEndpoint();
-        State state = generateStateParameter();
-        Nonce nonce = new Nonce();
-        RequestContext requestContext = new RequestContext(state, nonce);
-
-        AuthenticationRequest authenticationRequest = new AuthenticationRequest.Builder(responseType, authScope,
-                clientID, callBackURI)
-                .state(state)
-                .endpointURI(authorizationEndpoint)
-                .nonce(nonce)
-                .build();
-
-        io.asgardeo.java.oidc.sdk.request.model.AuthenticationRequest authRequest =
-                new io.asgardeo.java.oidc.sdk.request.model.AuthenticationRequest(authenticationRequest.toURI(),
-                        requestContext);
-
-        return authRequest;
+        RequestContext requestContext = StateNonceGenerator.getInstance().generateRequestContext();
+        if (stateCodec != null) {
+            // The random state is used as the cookie binding of the signed state.
+            String binding = requestContext.getState().getValue();
+            requestContext.setState(stateCodec.encode(requestContext.getNonce(), binding));
+            requestContext.setParameter(SSOAgentConstants.STATE_BINDING, binding);
+        }
+        AuthorizationURLTemplate urlTemplate = authorizationURLTemplate != null &&
+                authorizationURLTemplate.matches(oidcAgentConfig) ? authorizationURLTemplate :
+                AuthorizationURLTemplate.of(oidcAgentConfig);
+        URI authenticationRequestURI = urlTemplate.build(requestContext.getState(), requestContext.getNonce());
+
+        return new io.asgardeo.java.oidc.sdk.request.model.AuthenticationRequest(authenticationRequestURI,
+                requestContext);
     }
 
     /**
@@ -122,7 +145,7 @@ public class OIDCRequestBuilder {
         } catch (ParseException e) {
             throw new SSOAgentServerException(e.getMessage(), e);
         }
-        State state = generateStateParameter();
+        State state = StateNonceGenerator.getInstance().generateState();
         RequestContext requestContext = new RequestContext();
 
         requestContext.setState(state);
@@ -136,10 +159,4 @@ public class OIDCRequestBuilder {
 
         return new io.asgardeo.java.oidc.sdk.request.model.LogoutRequest(logoutRequestURI, requestContext);
     }
-
-    private State generateStateParameter() {
-
-        UUID uuid = UUID.randomUUID();
-        return new State(uuid.toString());
-    }
 }
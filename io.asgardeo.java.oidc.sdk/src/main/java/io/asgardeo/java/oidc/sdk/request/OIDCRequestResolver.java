@@ -18,19 +18,12 @@
 
 package io.asgardeo.java.oidc.sdk.request;
 
-import com.nimbusds.oauth2.sdk.AuthorizationErrorResponse;
-import com.nimbusds.oauth2.sdk.AuthorizationResponse;
-import com.nimbusds.oauth2.sdk.http.ServletUtils;
-import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
 import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
-import net.minidev.json.JSONObject;
-import org.apache.commons.lang.StringUtils;
+import io.asgardeo.java.oidc.sdk.request.model.CallbackResponse;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.IOException;
-
 import javax.servlet.http.HttpServletRequest;
 
 /**
@@ -54,6 +47,7 @@ public class OIDCRequestResolver {
 
     OIDCAgentConfig oidcAgentConfig;
     HttpServletRequest request;
+    private CallbackResponse callbackResponse;
 
     public OIDCRequestResolver(HttpServletRequest request, OIDCAgentConfig oidcAgentConfig) {
 
@@ -68,8 +62,7 @@ public class OIDCRequestResolver {
      */
     public boolean isError() {
 
-        String error = request.getParameter(SSOAgentConstants.ERROR);
-        return StringUtils.isNotBlank(error);
+        return getCallbackResponse().isError();
     }
 
     /**
@@ -79,21 +72,34 @@ public class OIDCRequestResolver {
      */
     public boolean isAuthorizationCodeResponse() {
 
-        AuthorizationResponse authorizationResponse;
+        CallbackResponse response = getCallbackResponse();
 
-        try {
-            authorizationResponse = AuthorizationResponse.parse(ServletUtils.createHTTPRequest(request));
-        } catch (com.nimbusds.oauth2.sdk.ParseException | IOException e) {
-            logger.log(Level.ERROR, "Error occurred while parsing the authorization response.", e);
+        if (response.isError()) {
+            logErrorAuthorizationResponse(response);
             return false;
         }
-        if (!authorizationResponse.indicatesSuccess()) {
-            logErrorAuthorizationResponse(authorizationResponse);
+        if (!response.indicatesSuccess()) {
+            logger.log(Level.ERROR, "Error occurred while parsing the authorization response. Missing " +
+                    "authorization code.");
             return false;
         }
         return true;
     }
 
+    /**
+     * Returns the Authorization response parameters of the request. The request is parsed on the first call
+     * and the same {@link CallbackResponse} is returned for subsequent calls.
+     *
+     * @return {@link CallbackResponse} of the request.
+     */
+    public CallbackResponse getCallbackResponse() {
+
+        if (callbackResponse == null) {
+            callbackResponse = CallbackResponse.parse(request);
+        }
+        return callbackResponse;
+    }
+
     /**
      * Checks if the request is a logout request.
      *
@@ -105,7 +111,8 @@ public class OIDCRequestResolver {
     }
 
     /**
-     * Checks if the request is a URI to skip.
+     * Checks if the request is a URI to skip. Only exact skip URIs are matched, the path prefix, extension and
+     * glob patterns are matched by a {@link RouteTable}.
      *
      * @return True if the request is a URL configured in the {@link OIDCAgentConfig} as skipURIs, false otherwise.
      */
@@ -127,11 +134,9 @@ public class OIDCRequestResolver {
         return request.getRequestURI().contains(callbackContext);
     }
 
-    private void logErrorAuthorizationResponse(AuthorizationResponse authzResponse) {
-
-        AuthorizationErrorResponse errorResponse = authzResponse.toErrorResponse();
-        JSONObject responseObject = errorResponse.getErrorObject().toJSONObject();
+    private void logErrorAuthorizationResponse(CallbackResponse response) {
 
-        logger.log(Level.INFO, "Error response object: ", responseObject);
+        logger.log(Level.INFO, "Error response object: {error: " + response.getError() + ", error_description: " +
+                response.getErrorDescription() + "}");
     }
 }
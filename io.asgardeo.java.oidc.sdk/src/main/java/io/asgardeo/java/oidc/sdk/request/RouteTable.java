@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.request;
+
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import org.apache.commons.lang.StringUtils;
+
+import java.net.URI;
+import java.util.Arrays;
+
+/**
+ * A precompiled table which classifies request URIs into the {@link Route} the agent takes for them. It is
+ * built once from the {@link OIDCAgentConfig} and is safe for concurrent use.
+ *
+ * <p>The skip URIs support the patterns of servlet mappings:
+ * <ul>
+ * <li>An exact path, e.g. {@code /app/index.html}
+ * <li>A path prefix, e.g. {@code /app/static/*}, which matches {@code /app/static} and every path below it
+ * <li>An extension, e.g. {@code *.css}
+ * </ul>
+ * Any other skip URI containing {@code *} or {@code ?} is a glob pattern, e.g. {@code /app/assets/main-*.js}
+ * or {@code /app/**}{@code /*.png}. In a glob pattern, {@code ?} matches one character and {@code *} any
+ * number of characters, both other than {@code /}, while {@code **} matches any number of characters including
+ * {@code /}, so that {@code /app/**}{@code /*.png} matches {@code /app/logo.png} as well as
+ * {@code /app/img/logo.png}.
+ *
+ * <p>The logout URL matches every request URI ending with it and the callback URL matches its exact path.
+ * Exact, prefix and glob patterns are kept in a character trie walked from the start of the request URI,
+ * extension and suffix patterns in a trie walked from its end. The wildcards of the glob patterns are edges of
+ * the trie, so all the patterns are matched together while the request URI is read once, and a pattern only
+ * costs time while its literal characters keep matching. A request URI is hence classified in time
+ * proportional to its length times the few wildcards matching at the same position, without allocating.
+ * If a request URI matches more than one route, {@link Route#SKIP} takes precedence over
+ * {@link Route#LOGOUT}, which takes precedence over {@link Route#CALLBACK}.
+ *
+ * <p>The table matches paths literally and expects them decoded and normalized, e.g. the context path, servlet
+ * path and path info of the request, not the raw request URI. Otherwise {@code /app/static/../secret.jsp} would
+ * match {@code /app/static/*}, and {@code /app/secret.jsp;.css} would match {@code *.css}. As a safeguard, a
+ * path containing a {@code .} or {@code ..} segment, a {@code ;}, a {@code \} or a {@code %} is not normalized
+ * and is always routed as {@link Route#PROTECTED}.
+ */
+public final class RouteTable {
+
+    private static final String PREFIX_WILDCARD = "/*";
+    private static final String EXTENSION_WILDCARD = "*.";
+    private static final String MULTI_SEGMENT_WILDCARD = "**";
+    private static final String MULTI_SEGMENT_WILDCARD_DIRECTORY = "**/";
+    private static final char WILDCARD = '*';
+    private static final char SINGLE_CHARACTER_WILDCARD = '?';
+    private static final char PATH_SEPARATOR = '/';
+    private static final char DOT = '.';
+    private static final String UNNORMALIZED_CHARACTERS = ";\\%";
+
+    // The nodes a glob match is in, reused by the threads so that a lookup does not allocate.
+    private static final ThreadLocal<MatchState> MATCH_STATE = ThreadLocal.withInitial(MatchState::new);
+
+    private final Node paths = new Node();
+    private final Node suffixes = new Node();
+    private final boolean globPatterns;
+
+    /**
+     * The routes of the agent.
+     */
+    public enum Route {
+
+        /**
+         * A URI which is served without authentication.
+         */
+        SKIP,
+
+        /**
+         * The logout URL.
+         */
+        LOGOUT,
+
+        /**
+         * The callback URL receiving the Authorization responses.
+         */
+        CALLBACK,
+
+        /**
+         * Any other URI, which requires an authenticated session.
+         */
+        PROTECTED
+    }
+
+    private RouteTable(OIDCAgentConfig oidcAgentConfig) {
+
+        boolean hasGlobPatterns = false;
+        if (oidcAgentConfig.getSkipURIs() != null) {
+            for (String skipURI : oidcAgentConfig.getSkipURIs()) {
+                if (StringUtils.isNotBlank(skipURI)) {
+                    hasGlobPatterns |= addPattern(skipURI.trim(), Route.SKIP);
+                }
+            }
+        }
+        if (StringUtils.isNotBlank(oidcAgentConfig.getLogoutURL())) {
+            suffixes.addReversed(oidcAgentConfig.getLogoutURL()).setSuffixRoute(Route.LOGOUT);
+        }
+        URI callbackUrl = oidcAgentConfig.getCallbackUrl();
+        if (callbackUrl != null && StringUtils.isNotEmpty(callbackUrl.getPath())) {
+            paths.add(callbackUrl.getPath()).setExactRoute(Route.CALLBACK);
+        }
+        this.globPatterns = hasGlobPatterns;
+    }
+
+    /**
+     * Builds the route table of a configuration.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig}.
+     * @return The {@link RouteTable}.
+     */
+    public static RouteTable of(OIDCAgentConfig oidcAgentConfig) {
+
+        return new RouteTable(oidcAgentConfig);
+    }
+
+    /**
+     * Classifies a request path.
+     *
+     * @param requestURI The decoded and normalized request path, i.e. the context path, servlet path and path info
+     *                   of the request.
+     * @return The {@link Route} of the request path, {@link Route#PROTECTED} if it is not normalized.
+     */
+    public Route route(String requestURI) {
+
+        if (!isNormalized(requestURI)) {
+            return Route.PROTECTED;
+        }
+        Route route = globPatterns ? routePaths(requestURI) : routeLiteralPaths(requestURI);
+
+        Node node = suffixes;
+        for (int i = requestURI.length() - 1; i >= 0 && route != Route.SKIP; i--) {
+            node = node.getChild(requestURI.charAt(i));
+            if (node == null) {
+                break;
+            }
+            route = precede(route, node.suffixRoute);
+        }
+        return route;
+    }
+
+    private Route routeLiteralPaths(String requestURI) {
+
+        Route route = Route.PROTECTED;
+        Node node = paths;
+        for (int i = 0; i < requestURI.length() && node != null; i++) {
+            route = precede(route, node.prefixRoute);
+            node = node.getChild(requestURI.charAt(i));
+        }
+        if (node != null) {
+            route = precede(precede(route, node.prefixRoute), node.exactRoute);
+        }
+        return route;
+    }
+
+    private Route routePaths(String requestURI) {
+
+        Route route = Route.PROTECTED;
+        MatchState state = MATCH_STATE.get();
+        state.clear();
+        state.addWithWildcards(paths);
+
+        for (int i = 0; i < requestURI.length() && state.size > 0 && route != Route.SKIP; i++) {
+            char c = requestURI.charAt(i);
+            for (int j = 0; j < state.size; j++) {
+                route = precede(route, state.nodes[j].prefixRoute);
+            }
+            state.advance(c);
+        }
+        for (int j = 0; j < state.size; j++) {
+            route = precede(precede(route, state.nodes[j].prefixRoute), state.nodes[j].exactRoute);
+        }
+        state.clear();
+        return route;
+    }
+
+    private boolean addPattern(String pattern, Route route) {
+
+        if (pattern.endsWith(PREFIX_WILDCARD) && !isGlob(pattern, 0, pattern.length() - 1)) {
+            // "/static/*" matches "/static" as well as every path starting with "/static/".
+            String prefix = pattern.substring(0, pattern.length() - 1);
+            paths.add(prefix).setPrefixRoute(route);
+            if (prefix.length() > 1) {
+                paths.add(prefix.substring(0, prefix.length() - 1)).setExactRoute(route);
+            }
+            return false;
+        }
+        if (pattern.startsWith(EXTENSION_WILDCARD) && !isGlob(pattern, 1, pattern.length())) {
+            suffixes.addReversed(pattern.substring(1)).setSuffixRoute(route);
+            return false;
+        }
+        if (isGlob(pattern, 0, pattern.length())) {
+            paths.addGlob(pattern, 0, route);
+            return true;
+        }
+        paths.add(pattern).setExactRoute(route);
+        return false;
+    }
+
+    private static boolean isNormalized(String path) {
+
+        int segmentStart = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            char c = i < path.length() ? path.charAt(i) : PATH_SEPARATOR;
+            if (UNNORMALIZED_CHARACTERS.indexOf(c) >= 0) {
+                return false;
+            }
+            if (c == PATH_SEPARATOR) {
+                // A "." or ".." segment.
+                int length = i - segmentStart;
+                if (length > 0 && length <= 2 && path.charAt(segmentStart) == DOT && path.charAt(i - 1) == DOT) {
+                    return false;
+                }
+                segmentStart = i + 1;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isGlob(String pattern, int beginIndex, int endIndex) {
+
+        for (int i = beginIndex; i < endIndex; i++) {
+            char c = pattern.charAt(i);
+            if (c == WILDCARD || c == SINGLE_CHARACTER_WILDCARD) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Route precede(Route route, Route candidate) {
+
+        return candidate != null && candidate.ordinal() < route.ordinal() ? candidate : route;
+    }
+
+    /**
+     * A trie node. The children are kept in arrays sorted by their character, so that a lookup is a binary
+     * search. The wildcards of glob patterns are separate children: a {@code *} or {@code **} child is entered
+     * without reading a character and stays active while it reads characters it matches. The nodes are only
+     * modified while the table is built.
+     */
+    private static final class Node {
+
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private Node anyCharacter;
+        private Node segmentWildcard;
+        private Node multiSegmentWildcard;
+        private boolean wildcard;
+        private boolean matchesSeparator;
+        private Route exactRoute;
+        private Route prefixRoute;
+        private Route suffixRoute;
+
+        private Node getChild(char label) {
+
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node getOrAddChild(char label) {
+
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertionPoint = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertionPoint);
+            System.arraycopy(children, 0, newChildren, 0, insertionPoint);
+            System.arraycopy(labels, insertionPoint, newLabels, insertionPoint + 1, labels.length - insertionPoint);
+            System.arraycopy(children, insertionPoint, newChildren, insertionPoint + 1,
+                    children.length - insertionPoint);
+            Node child = new Node();
+            newLabels[insertionPoint] = label;
+            newChildren[insertionPoint] = child;
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        private Node add(String path) {
+
+            Node node = this;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.getOrAddChild(path.charAt(i));
+            }
+            return node;
+        }
+
+        private Node addReversed(String suffix) {
+
+            Node node = this;
+            for (int i = suffix.length() - 1; i >= 0; i--) {
+                node = node.getOrAddChild(suffix.charAt(i));
+            }
+            return node;
+        }
+
+        private void addGlob(String pattern, int beginIndex, Route route) {
+
+            Node node = this;
+            for (int i = beginIndex; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (pattern.startsWith(MULTI_SEGMENT_WILDCARD_DIRECTORY, i)) {
+                    // "/a/**/b" also matches "/a/b", hence the rest of the pattern is added below both nodes.
+                    node.addGlob(pattern, i + 3, route);
+                    node = node.getOrAddMultiSegmentWildcard().getOrAddChild(PATH_SEPARATOR);
+                    i += 2;
+                } else if (pattern.startsWith(MULTI_SEGMENT_WILDCARD, i)) {
+                    node = node.getOrAddMultiSegmentWildcard();
+                    i++;
+                } else if (c == WILDCARD) {
+                    if (node.segmentWildcard == null) {
+                        node.segmentWildcard = new Node();
+                        node.segmentWildcard.wildcard = true;
+                    }
+                    node = node.segmentWildcard;
+                } else if (c == SINGLE_CHARACTER_WILDCARD) {
+                    if (node.anyCharacter == null) {
+                        node.anyCharacter = new Node();
+                    }
+                    node = node.anyCharacter;
+                } else {
+                    node = node.getOrAddChild(c);
+                }
+            }
+            node.setExactRoute(route);
+        }
+
+        private Node getOrAddMultiSegmentWildcard() {
+
+            if (multiSegmentWildcard == null) {
+                multiSegmentWildcard = new Node();
+                multiSegmentWildcard.wildcard = true;
+                multiSegmentWildcard.matchesSeparator = true;
+            }
+            return multiSegmentWildcard;
+        }
+
+        private void setExactRoute(Route route) {
+
+            exactRoute = precede(exactRoute != null ? exactRoute : Route.PROTECTED, route);
+        }
+
+        private void setPrefixRoute(Route route) {
+
+            prefixRoute = precede(prefixRoute != null ? prefixRoute : Route.PROTECTED, route);
+        }
+
+        private void setSuffixRoute(Route route) {
+
+            suffixRoute = precede(suffixRoute != null ? suffixRoute : Route.PROTECTED, route);
+        }
+    }
+
+    /**
+     * The set of trie nodes a glob match is in.
+     */
+    private static final class MatchState {
+
+        private Node[] nodes = new Node[16];
+        private Node[] nextNodes = new Node[16];
+        private int size;
+
+        private void clear() {
+
+            Arrays.fill(nodes, 0, size, null);
+            size = 0;
+        }
+
+        private void addWithWildcards(Node node) {
+
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    return;
+                }
+            }
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size++] = node;
+            // The wildcards also match no characters.
+            if (node.segmentWildcard != null) {
+                addWithWildcards(node.segmentWildcard);
+            }
+            if (node.multiSegmentWildcard != null) {
+                addWithWildcards(node.multiSegmentWildcard);
+            }
+        }
+
+        private void advance(char c) {
+
+            Node[] currentNodes = nodes;
+            int currentSize = size;
+            nodes = nextNodes;
+            size = 0;
+            for (int i = 0; i < currentSize; i++) {
+                Node node = currentNodes[i];
+                Node child = node.getChild(c);
+                if (child != null) {
+                    addWithWildcards(child);
+                }
+                if (c != PATH_SEPARATOR && node.anyCharacter != null) {
+                    addWithWildcards(node.anyCharacter);
+                }
+                if (node.wildcard && (c != PATH_SEPARATOR || node.matchesSeparator)) {
+                    addWithWildcards(node);
+                }
+                currentNodes[i] = null;
+            }
+            nextNodes = currentNodes;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.request;
+
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.oauth2.sdk.auth.Secret;
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.openid.connect.sdk.Nonce;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Encodes the nonce and the expiry time of an authentication request into an HMAC-SHA256 protected
+ * state parameter, so that the callback can be verified without a server side lookup of the
+ * {@link io.asgardeo.java.oidc.sdk.bean.RequestContext}.
+ *
+ * <p>The state is also bound to a random value, which is sent to the user agent in a cookie. Only
+ * the SHA-256 hash of the binding value is embedded in the state, so that a state leaked from the
+ * URL cannot be used by another user agent.
+ */
+public class SignedStateCodec {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = 1 + Long.BYTES + 32;
+    private static final char SEPARATOR = '.';
+
+    private final SecretKeySpec key;
+    private final long ttl;
+
+    /**
+     * Creates a codec.
+     *
+     * @param secret The secret used for the HMAC, of at least 32 bytes.
+     * @param ttl    The time in milliseconds for which an encoded state is valid.
+     * @throws SSOAgentClientException If the secret is too short.
+     */
+    public SignedStateCodec(Secret secret, long ttl) throws SSOAgentClientException {
+
+        if (secret == null || secret.getValueBytes().length < MIN_SECRET_LENGTH) {
+            throw new SSOAgentClientException("The state signing secret must be at least " + MIN_SECRET_LENGTH +
+                    " bytes long.");
+        }
+        this.key = new SecretKeySpec(secret.getValueBytes(), HMAC_ALGORITHM);
+        this.ttl = ttl;
+        try {
+            getMac();
+        } catch (GeneralSecurityException e) {
+            throw new SSOAgentClientException("Invalid state signing secret.", e);
+        }
+    }
+
+    /**
+     * Returns the time for which an encoded state is valid.
+     *
+     * @return The state time-to-live in milliseconds.
+     */
+    public long getTTL() {
+
+        return ttl;
+    }
+
+    /**
+     * Encodes a state parameter.
+     *
+     * @param nonce   The nonce of the authentication request.
+     * @param binding The value of the cookie to which the state is bound.
+     * @return The encoded {@link State}.
+     */
+    public State encode(Nonce nonce, String binding) {
+
+        byte[] nonceBytes = nonce.getValue().getBytes(StandardCharsets.UTF_8);
+        byte[] payload = ByteBuffer.allocate(HEADER_LENGTH + nonceBytes.length)
+                .put(VERSION)
+                .putLong(System.currentTimeMillis() + ttl)
+                .put(hash(binding))
+                .put(nonceBytes)
+                .array();
+
+        return new State(Base64URL.encode(payload).toString() + SEPARATOR + Base64URL.encode(sign(payload)));
+    }
+
+    /**
+     * Verifies a state parameter and returns the nonce encoded in it.
+     *
+     * @param state   The state parameter of the callback request.
+     * @param binding The value of the binding cookie of the user agent.
+     * @return The {@link Nonce} of the authentication request, {@code null} if the state is invalid,
+     * expired or not bound to the given value.
+     */
+    public Nonce decode(String state, String binding) {
+
+        int separatorIndex = state != null ? state.indexOf(SEPARATOR) : -1;
+        if (separatorIndex < 0 || binding == null) {
+            return null;
+        }
+
+        byte[] payload = new Base64URL(state.substring(0, separatorIndex)).decode();
+        byte[] signature = new Base64URL(state.substring(separatorIndex + 1)).decode();
+        if (payload.length <= HEADER_LENGTH || !MessageDigest.isEqual(sign(payload), signature)) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (buffer.get() != VERSION || buffer.getLong() < System.currentTimeMillis()) {
+            return null;
+        }
+        byte[] bindingHash = new byte[32];
+        buffer.get(bindingHash);
+        if (!MessageDigest.isEqual(hash(binding), bindingHash)) {
+            return null;
+        }
+        return new Nonce(new String(payload, HEADER_LENGTH, payload.length - HEADER_LENGTH, StandardCharsets.UTF_8));
+    }
+
+    private byte[] sign(byte[] payload) {
+
+        try {
+            return getMac().doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            // The key was verified when the codec was created.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Mac getMac() throws GeneralSecurityException {
+
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(key);
+        return mac;
+    }
+
+    private static byte[] hash(String value) {
+
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+}
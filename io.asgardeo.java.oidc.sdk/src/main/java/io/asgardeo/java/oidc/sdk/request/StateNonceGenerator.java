@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.request;
+
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.openid.connect.sdk.Nonce;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Generates the state and nonce values of the OIDC requests.
+ *
+ * <p>{@link java.util.UUID#randomUUID()} and the Nimbus identifiers draw from shared {@link SecureRandom}
+ * instances, which are contended under load. This generator keeps a {@link SecureRandom} per thread,
+ * the non-blocking DRBG where the platform provides it, and draws the bytes of both the state and the
+ * nonce at once.
+ */
+public class StateNonceGenerator {
+
+    /**
+     * The number of random bytes of a generated value, i.e. 256 bits.
+     */
+    public static final int VALUE_LENGTH = 32;
+
+    private static final StateNonceGenerator INSTANCE = new StateNonceGenerator();
+
+    private final ThreadLocal<SecureRandom> secureRandom = ThreadLocal.withInitial(
+            StateNonceGenerator::createSecureRandom);
+
+    /**
+     * Returns the shared generator.
+     *
+     * @return The shared {@link StateNonceGenerator}.
+     */
+    public static StateNonceGenerator getInstance() {
+
+        return INSTANCE;
+    }
+
+    /**
+     * Generates a {@link RequestContext} with a new state and nonce, drawn from a single call to the
+     * random generator.
+     *
+     * @return A {@link RequestContext} with the generated state and nonce.
+     */
+    public RequestContext generateRequestContext() {
+
+        byte[] bytes = new byte[VALUE_LENGTH * 2];
+        secureRandom.get().nextBytes(bytes);
+
+        State state = new State(Base64URL.encode(Arrays.copyOfRange(bytes, 0, VALUE_LENGTH)).toString());
+        Nonce nonce = new Nonce(Base64URL.encode(Arrays.copyOfRange(bytes, VALUE_LENGTH, bytes.length)).toString());
+        return new RequestContext(state, nonce);
+    }
+
+    /**
+     * Generates a new state.
+     *
+     * @return The generated {@link State}.
+     */
+    public State generateState() {
+
+        byte[] bytes = new byte[VALUE_LENGTH];
+        secureRandom.get().nextBytes(bytes);
+        return new State(Base64URL.encode(bytes).toString());
+    }
+
+    private static SecureRandom createSecureRandom() {
+
+        try {
+            // Available from Java 9. Seeded once, it never blocks on the entropy source.
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            // On Linux, the default is backed by the non-blocking /dev/urandom.
+            return new SecureRandom();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.request.model;
+
+import com.nimbusds.oauth2.sdk.AuthorizationCode;
+import com.nimbusds.oauth2.sdk.id.State;
+import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.Serializable;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * A data model class to define the parsed OIDC Authorization response received at the callback URL.
+ * It is created once per callback request and passed through the authentication flow.
+ */
+public class CallbackResponse implements Serializable {
+
+    private static final long serialVersionUID = -5301398563092418461L;
+
+    private final AuthorizationCode authorizationCode;
+    private final State state;
+    private final String error;
+    private final String errorDescription;
+    private final String sessionState;
+
+    public CallbackResponse(AuthorizationCode authorizationCode, State state, String error, String errorDescription,
+                            String sessionState) {
+
+        this.authorizationCode = authorizationCode;
+        this.state = state;
+        this.error = error;
+        this.errorDescription = errorDescription;
+        this.sessionState = sessionState;
+    }
+
+    /**
+     * Parses the Authorization response parameters of the callback request. The parameters are read as
+     * already decoded by the servlet container, for both query and form-encoded responses.
+     *
+     * @param request Incoming {@link HttpServletRequest} to the callback URL.
+     * @return The parsed {@link CallbackResponse}.
+     */
+    public static CallbackResponse parse(HttpServletRequest request) {
+
+        String code = request.getParameter(SSOAgentConstants.CODE);
+        String state = request.getParameter(SSOAgentConstants.STATE);
+
+        return new CallbackResponse(StringUtils.isNotBlank(code) ? new AuthorizationCode(code) : null,
+                StringUtils.isNotBlank(state) ? new State(state) : null,
+                StringUtils.trimToNull(request.getParameter(SSOAgentConstants.ERROR)),
+                request.getParameter(SSOAgentConstants.ERROR_DESCRIPTION),
+                request.getParameter(SSOAgentConstants.SESSION_STATE));
+    }
+
+    /**
+     * Returns the authorization code.
+     *
+     * @return {@link AuthorizationCode} of the response, {@code null} if none.
+     */
+    public AuthorizationCode getAuthorizationCode() {
+
+        return authorizationCode;
+    }
+
+    /**
+     * Returns the state.
+     *
+     * @return {@link State} of the response, {@code null} if none.
+     */
+    public State getState() {
+
+        return state;
+    }
+
+    /**
+     * Returns the error code.
+     *
+     * @return The error code of the response, {@code null} if none.
+     */
+    public String getError() {
+
+        return error;
+    }
+
+    /**
+     * Returns the error description.
+     *
+     * @return The error description of the response, {@code null} if none.
+     */
+    public String getErrorDescription() {
+
+        return errorDescription;
+    }
+
+    /**
+     * Returns the session state.
+     *
+     * @return The session state of the response, {@code null} if none.
+     */
+    public String getSessionState() {
+
+        return sessionState;
+    }
+
+    /**
+     * Checks if the response is an error response.
+     *
+     * @return True if the response contains an error code, false otherwise.
+     */
+    public boolean isError() {
+
+        return error != null;
+    }
+
+    /**
+     * Checks if the response is a successful Authorization Code response.
+     *
+     * @return True if the response contains an authorization code and no error, false otherwise.
+     */
+    public boolean indicatesSuccess() {
+
+        return error == null && authorizationCode != null;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import com.nimbusds.jose.util.Base64URL;
+import io.asgardeo.java.oidc.sdk.bean.AuthenticationMarker;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentServerException;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A {@link SessionStore} which keeps no server side state. The {@link RequestContext} and {@link SessionContext}
+ * are serialized, encrypted and authenticated with AES-GCM and sent to the user agent in HttpOnly cookies,
+ * which are split into chunks if the session context exceeds the size limit of a single cookie.
+ *
+ * <p>The {@link AuthenticationMarker} of the session context is sent in a separate small cookie, so that
+ * checking whether a user agent is logged in does not decrypt and deserialize the session context.
+ *
+ * <p>The expiry time of a cookie is embedded in its encrypted value, so that a replayed cookie is rejected
+ * once expired. Since the session context holds the tokens of the user, the key must be kept secret and
+ * shared by all nodes serving the application.
+ */
+public class CookieSessionStore implements SessionStore {
+
+    private static final Logger logger = LogManager.getLogger(CookieSessionStore.class);
+
+    public static final String REQUEST_CONTEXT_COOKIE_NAME = "ASGARDEO_REQUEST_CONTEXT";
+    public static final String SESSION_CONTEXT_COOKIE_NAME = "ASGARDEO_SESSION_CONTEXT";
+    public static final String AUTHENTICATION_MARKER_COOKIE_NAME = "ASGARDEO_AUTHENTICATION_MARKER";
+    public static final long DEFAULT_REQUEST_CONTEXT_MAX_AGE = TimeUnit.MINUTES.toMillis(10);
+    public static final long DEFAULT_SESSION_CONTEXT_MAX_AGE = TimeUnit.HOURS.toMillis(8);
+
+    private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final int COOKIE_CHUNK_SIZE = 3800;
+
+    private final SecretKey secretKey;
+    private final long requestContextMaxAge;
+    private final long sessionContextMaxAge;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public CookieSessionStore(SecretKey secretKey) throws SSOAgentClientException {
+
+        this(secretKey, DEFAULT_REQUEST_CONTEXT_MAX_AGE, DEFAULT_SESSION_CONTEXT_MAX_AGE);
+    }
+
+    public CookieSessionStore(SecretKey secretKey, long requestContextMaxAge, long sessionContextMaxAge)
+            throws SSOAgentClientException {
+
+        if (secretKey == null || !"AES".equalsIgnoreCase(secretKey.getAlgorithm())) {
+            throw new SSOAgentClientException("An AES secret key is required for the cookie session store.");
+        }
+        this.secretKey = secretKey;
+        this.requestContextMaxAge = requestContextMaxAge;
+        this.sessionContextMaxAge = sessionContextMaxAge;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeRequestContext(HttpServletRequest request, HttpServletResponse response,
+                                    RequestContext requestContext) throws SSOAgentServerException {
+
+        store(request, response, REQUEST_CONTEXT_COOKIE_NAME, requestContext, requestContextMaxAge);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RequestContext getRequestContext(HttpServletRequest request) {
+
+        return read(request, REQUEST_CONTEXT_COOKIE_NAME, RequestContext.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeSessionContext(HttpServletRequest request, HttpServletResponse response,
+                                    SessionContext sessionContext) throws SSOAgentServerException {
+
+        store(request, response, SESSION_CONTEXT_COOKIE_NAME, sessionContext, sessionContextMaxAge);
+        store(request, response, AUTHENTICATION_MARKER_COOKIE_NAME,
+                AuthenticationMarker.of(sessionContext, System.currentTimeMillis() + sessionContextMaxAge),
+                sessionContextMaxAge);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SessionContext getSessionContext(HttpServletRequest request) {
+
+        return read(request, SESSION_CONTEXT_COOKIE_NAME, SessionContext.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AuthenticationMarker getAuthenticationMarker(HttpServletRequest request) {
+
+        return read(request, AUTHENTICATION_MARKER_COOKIE_NAME, AuthenticationMarker.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear(HttpServletRequest request, HttpServletResponse response) {
+
+        SessionCookies.removeChunked(request, response, REQUEST_CONTEXT_COOKIE_NAME);
+        SessionCookies.removeChunked(request, response, SESSION_CONTEXT_COOKIE_NAME);
+        SessionCookies.removeChunked(request, response, AUTHENTICATION_MARKER_COOKIE_NAME);
+    }
+
+    private void store(HttpServletRequest request, HttpServletResponse response, String cookieName,
+                       Serializable value, long maxAge) throws SSOAgentServerException {
+
+        String token = encrypt(cookieName, value, System.currentTimeMillis() + maxAge);
+        SessionCookies.addChunked(request, response, cookieName, token, (int) TimeUnit.MILLISECONDS.toSeconds(maxAge),
+                COOKIE_CHUNK_SIZE);
+    }
+
+    private <T> T read(HttpServletRequest request, String cookieName, Class<T> type) {
+
+        String token = SessionCookies.getChunkedValue(request, cookieName);
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return type.cast(decrypt(cookieName, token));
+        } catch (GeneralSecurityException | IOException | ClassNotFoundException | ClassCastException e) {
+            logger.log(Level.DEBUG, "Ignoring invalid " + cookieName + " cookie.", e);
+            return null;
+        }
+    }
+
+    private String encrypt(String cookieName, Serializable value, long expiryTime) throws SSOAgentServerException {
+
+        try {
+            ByteArrayOutputStream plainText = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(plainText)) {
+                out.writeLong(expiryTime);
+                out.writeObject(value);
+            }
+
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+            cipher.updateAAD(cookieName.getBytes(StandardCharsets.UTF_8));
+            byte[] cipherText = cipher.doFinal(plainText.toByteArray());
+
+            return Base64URL.encode(ByteBuffer.allocate(IV_LENGTH + cipherText.length).put(iv).put(cipherText)
+                    .array()).toString();
+        } catch (GeneralSecurityException | IOException e) {
+            throw new SSOAgentServerException("Error while encrypting the " + cookieName + " cookie.", e);
+        }
+    }
+
+    private Object decrypt(String cookieName, String token)
+            throws GeneralSecurityException, IOException, ClassNotFoundException {
+
+        byte[] bytes = new Base64URL(token).decode();
+        if (bytes.length <= IV_LENGTH) {
+            return null;
+        }
+
+        Cipher cipher = Cipher.getInstance(CIPHER_ALGORITHM);
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, bytes, 0, IV_LENGTH));
+        cipher.updateAAD(cookieName.getBytes(StandardCharsets.UTF_8));
+        byte[] plainText = cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH);
+
+        // Only authenticated content, written by this store, reaches deserialization.
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(plainText))) {
+            if (in.readLong() < System.currentTimeMillis()) {
+                return null;
+            }
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
+import io.asgardeo.java.oidc.sdk.bean.AuthenticationMarker;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * A {@link SessionStore} which keeps the {@link RequestContext} and {@link SessionContext} as attributes
+ * of the container managed {@link HttpSession}. Clearing the store invalidates the http session.
+ *
+ * <p>The {@link AuthenticationMarker} of the session context is kept in a separate attribute, so that
+ * session managers which load the attributes of a session on demand do not load the session context to
+ * check whether a user agent is logged in.
+ */
+public class HTTPSessionStore implements SessionStore {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeRequestContext(HttpServletRequest request, HttpServletResponse response,
+                                    RequestContext requestContext) {
+
+        request.getSession().setAttribute(SSOAgentConstants.REQUEST_CONTEXT, requestContext);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RequestContext getRequestContext(HttpServletRequest request) {
+
+        HttpSession session = request.getSession(false);
+        return session != null ? (RequestContext) session.getAttribute(SSOAgentConstants.REQUEST_CONTEXT) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeSessionContext(HttpServletRequest request, HttpServletResponse response,
+                                    SessionContext sessionContext) {
+
+        HttpSession session = request.getSession();
+        session.setAttribute(SSOAgentConstants.SESSION_CONTEXT, sessionContext);
+        session.setAttribute(SSOAgentConstants.AUTHENTICATION_MARKER, AuthenticationMarker.of(sessionContext));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SessionContext getSessionContext(HttpServletRequest request) {
+
+        HttpSession session = request.getSession(false);
+        return session != null ? (SessionContext) session.getAttribute(SSOAgentConstants.SESSION_CONTEXT) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AuthenticationMarker getAuthenticationMarker(HttpServletRequest request) {
+
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        AuthenticationMarker authenticationMarker =
+                (AuthenticationMarker) session.getAttribute(SSOAgentConstants.AUTHENTICATION_MARKER);
+        if (authenticationMarker != null) {
+            return authenticationMarker;
+        }
+        // Sessions stored without a marker.
+        SessionContext sessionContext = (SessionContext) session.getAttribute(SSOAgentConstants.SESSION_CONTEXT);
+        return sessionContext != null ? AuthenticationMarker.of(sessionContext) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear(HttpServletRequest request, HttpServletResponse response) {
+
+        HttpSession session = request.getSession(false);
+
+        if (session != null) {
+            session.invalidate();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import com.nimbusds.jose.util.Base64URL;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A {@link SessionStore} which keeps the {@link RequestContext} and {@link SessionContext} in a bounded
+ * in-memory map, keyed by a random identifier sent to the user agent in an HttpOnly cookie.
+ *
+ * <p>Entries which have not been accessed within the idle timeout are expired, and once the maximum
+ * number of entries is reached the least recently accessed entry is evicted. Unlike the http session
+ * of the container, the entries are not replicated, hence this store suits single node deployments or
+ * deployments with sticky sessions.
+ */
+public class InMemorySessionStore implements SessionStore {
+
+    public static final String DEFAULT_COOKIE_NAME = "ASGARDEO_SESSION_ID";
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+
+    private static final int SESSION_ID_LENGTH = 32;
+
+    private final String cookieName;
+    private final int maxEntries;
+    private final long idleTimeout;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, StoreEntry> entries;
+
+    public InMemorySessionStore() {
+
+        this(DEFAULT_COOKIE_NAME, DEFAULT_MAX_ENTRIES, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public InMemorySessionStore(String cookieName, int maxEntries, long idleTimeout) {
+
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum entries must be positive.");
+        }
+        this.cookieName = cookieName;
+        this.maxEntries = maxEntries;
+        this.idleTimeout = idleTimeout;
+        this.entries = new LinkedHashMap<String, StoreEntry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 3296528391564203957L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoreEntry> eldest) {
+
+                return size() > InMemorySessionStore.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeRequestContext(HttpServletRequest request, HttpServletResponse response,
+                                    RequestContext requestContext) {
+
+        getOrCreateEntry(request, response).requestContext = requestContext;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RequestContext getRequestContext(HttpServletRequest request) {
+
+        StoreEntry entry = getEntry(request);
+        return entry != null ? entry.requestContext : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeSessionContext(HttpServletRequest request, HttpServletResponse response,
+                                    SessionContext sessionContext) {
+
+        getOrCreateEntry(request, response).sessionContext = sessionContext;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SessionContext getSessionContext(HttpServletRequest request) {
+
+        StoreEntry entry = getEntry(request);
+        return entry != null ? entry.sessionContext : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear(HttpServletRequest request, HttpServletResponse response) {
+
+        String sessionId = SessionCookies.getValue(request, cookieName);
+        if (sessionId == null) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            entries.remove(sessionId);
+        } finally {
+            lock.unlock();
+        }
+        request.removeAttribute(cookieName);
+        SessionCookies.remove(request, response, cookieName);
+    }
+
+    /**
+     * Returns the number of stored entries, including expired entries which are yet to be evicted.
+     *
+     * @return The number of stored entries.
+     */
+    public int size() {
+
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private StoreEntry getEntry(HttpServletRequest request) {
+
+        // An identifier issued earlier in the same request takes precedence over the cookie sent by the user agent.
+        String sessionId = (String) request.getAttribute(cookieName);
+        if (sessionId == null) {
+            sessionId = SessionCookies.getValue(request, cookieName);
+        }
+        if (sessionId == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            StoreEntry entry = entries.get(sessionId);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.lastAccessTime > idleTimeout) {
+                entries.remove(sessionId);
+                return null;
+            }
+            entry.lastAccessTime = now;
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private StoreEntry getOrCreateEntry(HttpServletRequest request, HttpServletResponse response) {
+
+        StoreEntry entry = getEntry(request);
+        if (entry != null) {
+            return entry;
+        }
+
+        byte[] bytes = new byte[SESSION_ID_LENGTH];
+        secureRandom.nextBytes(bytes);
+        String sessionId = Base64URL.encode(bytes).toString();
+        entry = new StoreEntry(System.currentTimeMillis());
+
+        lock.lock();
+        try {
+            evictExpiredEntries(entry.lastAccessTime);
+            entries.put(sessionId, entry);
+        } finally {
+            lock.unlock();
+        }
+        request.setAttribute(cookieName, sessionId);
+        SessionCookies.add(request, response, cookieName, sessionId, -1);
+        return entry;
+    }
+
+    private void evictExpiredEntries(long now) {
+
+        // Entries are in access order, hence the expired entries are at the head of the map.
+        Iterator<StoreEntry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastAccessTime <= idleTimeout) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static class StoreEntry {
+
+        private volatile RequestContext requestContext;
+        private volatile SessionContext sessionContext;
+        private long lastAccessTime;
+
+        private StoreEntry(long lastAccessTime) {
+
+            this.lastAccessTime = lastAccessTime;
+        }
+    }
+}
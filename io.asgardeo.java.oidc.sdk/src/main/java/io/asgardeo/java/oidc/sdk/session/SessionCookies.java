@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Helper methods to read and write the cookies of the cookie based {@link SessionStore} implementations.
+ */
+final class SessionCookies {
+
+    private static final String CHUNK_SEPARATOR = ".";
+
+    private SessionCookies() {
+
+    }
+
+    /**
+     * Returns the value of a cookie of the request.
+     *
+     * @param request Incoming {@link HttpServletRequest}.
+     * @param name    Name of the cookie.
+     * @return The cookie value, {@code null} if the cookie is not present.
+     */
+    static String getValue(HttpServletRequest request, String name) {
+
+        Cookie[] cookies = request.getCookies();
+
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (name.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of a cookie which may have been split into chunks by
+     * {@link #addChunked(HttpServletRequest, HttpServletResponse, String, String, int, int)}.
+     *
+     * @param request Incoming {@link HttpServletRequest}.
+     * @param name    Name of the cookie.
+     * @return The joined cookie value, {@code null} if the cookie is not present.
+     */
+    static String getChunkedValue(HttpServletRequest request, String name) {
+
+        String value = getValue(request, name);
+        if (value == null) {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder(value);
+        for (int i = 1; (value = getValue(request, name + CHUNK_SEPARATOR + i)) != null; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Adds a cookie to the response.
+     *
+     * @param request  Incoming {@link HttpServletRequest}.
+     * @param response Outgoing {@link HttpServletResponse}.
+     * @param name     Name of the cookie.
+     * @param value    Value of the cookie.
+     * @param maxAge   Maximum age of the cookie in seconds, a negative value for a browser session cookie.
+     */
+    static void add(HttpServletRequest request, HttpServletResponse response, String name, String value,
+                    int maxAge) {
+
+        Cookie cookie = new Cookie(name, value);
+        cookie.setPath(getPath(request));
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setMaxAge(maxAge);
+        response.addCookie(cookie);
+    }
+
+    /**
+     * Adds a cookie to the response, split into chunks of the given size. Chunks of a previously
+     * written longer value which are no longer needed are removed.
+     *
+     * @param request   Incoming {@link HttpServletRequest}.
+     * @param response  Outgoing {@link HttpServletResponse}.
+     * @param name      Name of the cookie.
+     * @param value     Value of the cookie.
+     * @param maxAge    Maximum age of the cookie in seconds, a negative value for a browser session cookie.
+     * @param chunkSize Maximum length of the value of a single cookie.
+     */
+    static void addChunked(HttpServletRequest request, HttpServletResponse response, String name, String value,
+                           int maxAge, int chunkSize) {
+
+        int chunks = 0;
+        for (int start = 0; start < value.length(); start += chunkSize, chunks++) {
+            add(request, response, getChunkName(name, chunks),
+                    value.substring(start, Math.min(value.length(), start + chunkSize)), maxAge);
+        }
+
+        for (String chunkName : getChunkNames(request, name)) {
+            if (!chunkName.equals(name) && Integer.parseInt(chunkName.substring(name.length() + 1)) >= chunks) {
+                remove(request, response, chunkName);
+            }
+        }
+    }
+
+    /**
+     * Removes a cookie, along with its chunks, from the user agent.
+     *
+     * @param request  Incoming {@link HttpServletRequest}.
+     * @param response Outgoing {@link HttpServletResponse}.
+     * @param name     Name of the cookie.
+     */
+    static void removeChunked(HttpServletRequest request, HttpServletResponse response, String name) {
+
+        for (String chunkName : getChunkNames(request, name)) {
+            remove(request, response, chunkName);
+        }
+    }
+
+    /**
+     * Removes a cookie from the user agent.
+     *
+     * @param request  Incoming {@link HttpServletRequest}.
+     * @param response Outgoing {@link HttpServletResponse}.
+     * @param name     Name of the cookie.
+     */
+    static void remove(HttpServletRequest request, HttpServletResponse response, String name) {
+
+        add(request, response, name, "", 0);
+    }
+
+    private static List<String> getChunkNames(HttpServletRequest request, String name) {
+
+        List<String> chunkNames = new ArrayList<>();
+        Cookie[] cookies = request.getCookies();
+
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                String cookieName = cookie.getName();
+                if (cookieName.equals(name) || (cookieName.startsWith(name + CHUNK_SEPARATOR) &&
+                        isNumeric(cookieName.substring(name.length() + 1)))) {
+                    chunkNames.add(cookieName);
+                }
+            }
+        }
+        return chunkNames;
+    }
+
+    private static String getChunkName(String name, int index) {
+
+        return index == 0 ? name : name + CHUNK_SEPARATOR + index;
+    }
+
+    private static boolean isNumeric(String value) {
+
+        if (value.isEmpty() || value.length() > 4) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getPath(HttpServletRequest request) {
+
+        String contextPath = request.getContextPath();
+        return contextPath == null || contextPath.isEmpty() ? "/" : contextPath;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import io.asgardeo.java.oidc.sdk.bean.AuthenticationMarker;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A storage interface for the {@link RequestContext} of an in-progress authentication and the
+ * {@link SessionContext} of a logged in session, between the requests of a user agent.
+ *
+ * <p>Implementations which keep state in cookies write them to the given response, hence the
+ * store methods must be called before the response is committed.
+ *
+ * @see HTTPSessionStore
+ * @see InMemorySessionStore
+ * @see CookieSessionStore
+ * @see StateKeyedSessionStore
+ * @see SignedStateSessionStore
+ */
+public interface SessionStore {
+
+    /**
+     * Stores the {@link RequestContext} of an authentication or logout request.
+     *
+     * @param request        Incoming {@link HttpServletRequest}.
+     * @param response       Outgoing {@link HttpServletResponse}.
+     * @param requestContext The {@link RequestContext} to store.
+     * @throws SSOAgentException If the request context could not be stored.
+     */
+    void storeRequestContext(HttpServletRequest request, HttpServletResponse response, RequestContext requestContext)
+            throws SSOAgentException;
+
+    /**
+     * Returns the stored {@link RequestContext} of the user agent.
+     *
+     * @param request Incoming {@link HttpServletRequest}.
+     * @return The {@link RequestContext}, {@code null} if none.
+     * @throws SSOAgentException If the stored request context could not be read.
+     */
+    RequestContext getRequestContext(HttpServletRequest request) throws SSOAgentException;
+
+    /**
+     * Stores the {@link SessionContext} of a logged in session.
+     *
+     * @param request        Incoming {@link HttpServletRequest}.
+     * @param response       Outgoing {@link HttpServletResponse}.
+     * @param sessionContext The {@link SessionContext} to store.
+     * @throws SSOAgentException If the session context could not be stored.
+     */
+    void storeSessionContext(HttpServletRequest request, HttpServletResponse response, SessionContext sessionContext)
+            throws SSOAgentException;
+
+    /**
+     * Returns the stored {@link SessionContext} of the user agent.
+     *
+     * @param request Incoming {@link HttpServletRequest}.
+     * @return The {@link SessionContext}, {@code null} if none.
+     * @throws SSOAgentException If the stored session context could not be read.
+     */
+    SessionContext getSessionContext(HttpServletRequest request) throws SSOAgentException;
+
+    /**
+     * Returns the {@link AuthenticationMarker} of the stored {@link SessionContext} of the user agent.
+     * Stores which can read the marker without reading the whole session context override this method.
+     *
+     * @param request Incoming {@link HttpServletRequest}.
+     * @return The {@link AuthenticationMarker}, {@code null} if the user agent is not logged in.
+     * @throws SSOAgentException If the stored session could not be read.
+     */
+    default AuthenticationMarker getAuthenticationMarker(HttpServletRequest request) throws SSOAgentException {
+
+        SessionContext sessionContext = getSessionContext(request);
+        return sessionContext != null ? AuthenticationMarker.of(sessionContext) : null;
+    }
+
+    /**
+     * Removes the stored {@link RequestContext} and {@link SessionContext} of the user agent.
+     *
+     * @param request  Incoming {@link HttpServletRequest}.
+     * @param response Outgoing {@link HttpServletResponse}.
+     */
+    void clear(HttpServletRequest request, HttpServletResponse response);
+}
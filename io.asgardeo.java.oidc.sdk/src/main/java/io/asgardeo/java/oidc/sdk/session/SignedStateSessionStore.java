@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.openid.connect.sdk.Nonce;
+import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
+import io.asgardeo.java.oidc.sdk.bean.AuthenticationMarker;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentException;
+import io.asgardeo.java.oidc.sdk.request.SignedStateCodec;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A {@link SessionStore} for agents configured with a state signing secret, which keeps no server side
+ * state for in-progress authentications. The nonce is carried in the signed state parameter, built by the
+ * {@link io.asgardeo.java.oidc.sdk.request.OIDCRequestBuilder}, and the {@link RequestContext} is restored
+ * from the state parameter of the callback request. Storing the request context only sets a short-lived
+ * cookie, to which the state is bound.
+ *
+ * <p>Since no lookup is needed, any node can handle the callback. The {@link SessionContext} of logged in
+ * sessions is delegated to another store.
+ *
+ * <p>The states are verified with a codec built from the configuration the store is created with, until the store
+ * is given the codec of the manager signing the states through {@link #setStateCodecSupplier(Supplier)}. The
+ * {@link io.asgardeo.java.oidc.sdk.HTTPSessionBasedOIDCProcessor} does so for its store, so that a state signing
+ * secret or state TTL rotated by a configuration reload is used for the verification as well.
+ */
+public class SignedStateSessionStore implements SessionStore {
+
+    public static final String BINDING_COOKIE_NAME = "ASGARDEO_STATE_BINDING";
+
+    private final SignedStateCodec stateCodec;
+    private final SessionStore sessionContextStore;
+    private volatile Supplier<SignedStateCodec> stateCodecSupplier;
+
+    public SignedStateSessionStore(OIDCAgentConfig oidcAgentConfig) throws SSOAgentClientException {
+
+        this(oidcAgentConfig, new HTTPSessionStore());
+    }
+
+    public SignedStateSessionStore(OIDCAgentConfig oidcAgentConfig, SessionStore sessionContextStore)
+            throws SSOAgentClientException {
+
+        if (oidcAgentConfig.getStateSigningSecret() == null) {
+            throw new SSOAgentClientException("State signing secret is not configured.");
+        }
+        this.stateCodec = new SignedStateCodec(oidcAgentConfig.getStateSigningSecret(),
+                oidcAgentConfig.getStateTTL());
+        this.sessionContextStore = sessionContextStore;
+    }
+
+    /**
+     * Sets the supplier of the codec the states are verified with, e.g. {@code DefaultOIDCManager::getStateCodec}.
+     * The codec built from the configuration of the store is used while the supplier returns {@code null}.
+     *
+     * @param stateCodecSupplier The supplier of the current {@link SignedStateCodec}.
+     */
+    public void setStateCodecSupplier(Supplier<SignedStateCodec> stateCodecSupplier) {
+
+        this.stateCodecSupplier = stateCodecSupplier;
+    }
+
+    /**
+     * Sets the cookie to which the state of the authentication request is bound. Request contexts
+     * without a binding, e.g. of logout requests, are not stored.
+     *
+     * @param request        Incoming {@link HttpServletRequest}.
+     * @param response       Outgoing {@link HttpServletResponse}.
+     * @param requestContext The {@link RequestContext} to store.
+     */
+    @Override
+    public void storeRequestContext(HttpServletRequest request, HttpServletResponse response,
+                                    RequestContext requestContext) {
+
+        Object binding = requestContext != null ? requestContext.getParameter(SSOAgentConstants.STATE_BINDING) :
+                null;
+        if (binding != null) {
+            SessionCookies.add(request, response, BINDING_COOKIE_NAME, binding.toString(),
+                    (int) TimeUnit.MILLISECONDS.toSeconds(getStateCodec().getTTL()));
+        }
+    }
+
+    /**
+     * Restores the {@link RequestContext} from the signed state parameter of the request.
+     *
+     * @param request Incoming {@link HttpServletRequest}.
+     * @return The {@link RequestContext}, {@code null} if the state is missing, invalid, expired or not
+     * bound to the user agent.
+     */
+    @Override
+    public RequestContext getRequestContext(HttpServletRequest request) {
+
+        String state = request.getParameter(SSOAgentConstants.STATE);
+        if (StringUtils.isBlank(state)) {
+            return null;
+        }
+
+        Nonce nonce = getStateCodec().decode(state, SessionCookies.getValue(request, BINDING_COOKIE_NAME));
+        return nonce != null ? new RequestContext(new State(state), nonce) : null;
+    }
+
+    private SignedStateCodec getStateCodec() {
+
+        Supplier<SignedStateCodec> supplier = stateCodecSupplier;
+        SignedStateCodec currentStateCodec = supplier != null ? supplier.get() : null;
+        return currentStateCodec != null ? currentStateCodec : stateCodec;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeSessionContext(HttpServletRequest request, HttpServletResponse response,
+                                    SessionContext sessionContext) throws SSOAgentException {
+
+        sessionContextStore.storeSessionContext(request, response, sessionContext);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SessionContext getSessionContext(HttpServletRequest request) throws SSOAgentException {
+
+        return sessionContextStore.getSessionContext(request);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AuthenticationMarker getAuthenticationMarker(HttpServletRequest request) throws SSOAgentException {
+
+        return sessionContextStore.getAuthenticationMarker(request);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear(HttpServletRequest request, HttpServletResponse response) {
+
+        if (SessionCookies.getValue(request, BINDING_COOKIE_NAME) != null) {
+            SessionCookies.remove(request, response, BINDING_COOKIE_NAME);
+        }
+        sessionContextStore.clear(request, response);
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
+import io.asgardeo.java.oidc.sdk.bean.AuthenticationMarker;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentException;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentServerException;
+import io.asgardeo.java.oidc.sdk.request.StateNonceGenerator;
+import org.apache.commons.lang.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A {@link SessionStore} which keeps the {@link RequestContext} of in-progress authentications in a
+ * bounded in-memory map keyed by the state parameter, and delegates the {@link SessionContext} of
+ * logged in sessions to another store.
+ *
+ * <p>Redirecting an anonymous user agent to the OP therefore does not create an http session. A
+ * request context is looked up with the state parameter of the callback request and can be used only
+ * once. Request contexts expire after the given time-to-live, and once the maximum number of
+ * entries is reached the oldest one is evicted, so that abandoned login attempts cannot grow the
+ * store without bound. As with {@link InMemorySessionStore}, the entries are local to the node.
+ *
+ * <p>Each request context is bound to the user agent which started the authentication by a short-lived
+ * random cookie, and is found only if the callback request carries the same cookie. A callback URL obtained
+ * by someone else therefore cannot be used to log a victim in to another account.
+ */
+public class StateKeyedSessionStore implements SessionStore {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+    public static final String BINDING_COOKIE_NAME = "ASGARDEO_REQUEST_BINDING";
+
+    private final SessionStore sessionContextStore;
+    private final int maxEntries;
+    private final long ttl;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, StoreEntry> entries;
+
+    public StateKeyedSessionStore() {
+
+        this(new HTTPSessionStore(), DEFAULT_MAX_ENTRIES, DEFAULT_TTL);
+    }
+
+    public StateKeyedSessionStore(SessionStore sessionContextStore, int maxEntries, long ttl) {
+
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum entries must be positive.");
+        }
+        this.sessionContextStore = sessionContextStore;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<String, StoreEntry>() {
+
+            private static final long serialVersionUID = -4937125960351807414L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoreEntry> eldest) {
+
+                return size() > StateKeyedSessionStore.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Stores the {@link RequestContext} under its state, bound to the binding cookie of the user agent. The
+     * binding cookie is set if the request does not carry one yet, so concurrent authentications of the same
+     * user agent share it.
+     *
+     * @param request        Incoming {@link HttpServletRequest}.
+     * @param response       Outgoing {@link HttpServletResponse}.
+     * @param requestContext The {@link RequestContext} to store.
+     * @throws SSOAgentException If the request context has no state.
+     */
+    @Override
+    public void storeRequestContext(HttpServletRequest request, HttpServletResponse response,
+                                    RequestContext requestContext) throws SSOAgentException {
+
+        if (requestContext == null || requestContext.getState() == null) {
+            throw new SSOAgentServerException("State of the request context is null.");
+        }
+
+        String binding = SessionCookies.getValue(request, BINDING_COOKIE_NAME);
+        if (StringUtils.isBlank(binding)) {
+            binding = StateNonceGenerator.getInstance().generateState().getValue();
+        }
+        // The cookie is set again to extend its lifetime to that of the new request context.
+        SessionCookies.add(request, response, BINDING_COOKIE_NAME, binding,
+                (int) TimeUnit.MILLISECONDS.toSeconds(ttl));
+
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            evictExpiredEntries(now);
+            entries.put(requestContext.getState().getValue(), new StoreEntry(requestContext, binding, now + ttl));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the {@link RequestContext} of the state parameter of the request and removes it from the store.
+     * The request context is returned only if the request carries the binding cookie it was stored with.
+     *
+     * @param request Incoming {@link HttpServletRequest}.
+     * @return The {@link RequestContext}, {@code null} if none, expired or not bound to the user agent.
+     */
+    @Override
+    public RequestContext getRequestContext(HttpServletRequest request) {
+
+        String state = request.getParameter(SSOAgentConstants.STATE);
+        String binding = SessionCookies.getValue(request, BINDING_COOKIE_NAME);
+        if (StringUtils.isBlank(state) || StringUtils.isBlank(binding)) {
+            return null;
+        }
+
+        StoreEntry entry;
+        lock.lock();
+        try {
+            entry = entries.get(state);
+            // An entry is not consumed by a request of another user agent.
+            if (entry == null || !entry.isBoundTo(binding)) {
+                return null;
+            }
+            entries.remove(state);
+        } finally {
+            lock.unlock();
+        }
+        return entry.expiryTime >= System.currentTimeMillis() ? entry.requestContext : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeSessionContext(HttpServletRequest request, HttpServletResponse response,
+                                    SessionContext sessionContext) throws SSOAgentException {
+
+        sessionContextStore.storeSessionContext(request, response, sessionContext);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SessionContext getSessionContext(HttpServletRequest request) throws SSOAgentException {
+
+        return sessionContextStore.getSessionContext(request);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AuthenticationMarker getAuthenticationMarker(HttpServletRequest request) throws SSOAgentException {
+
+        return sessionContextStore.getAuthenticationMarker(request);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear(HttpServletRequest request, HttpServletResponse response) {
+
+        String state = request.getParameter(SSOAgentConstants.STATE);
+        if (StringUtils.isNotBlank(state)) {
+            lock.lock();
+            try {
+                entries.remove(state);
+            } finally {
+                lock.unlock();
+            }
+        }
+        sessionContextStore.clear(request, response);
+    }
+
+    /**
+     * Returns the number of stored request contexts, including expired ones which are yet to be evicted.
+     *
+     * @return The number of stored request contexts.
+     */
+    public int size() {
+
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictExpiredEntries(long now) {
+
+        // Entries are in insertion order and share the same time-to-live, hence the expired ones are at the head.
+        Iterator<StoreEntry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiryTime >= now) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static class StoreEntry {
+
+        private final RequestContext requestContext;
+        private final byte[] binding;
+        private final long expiryTime;
+
+        private StoreEntry(RequestContext requestContext, String binding, long expiryTime) {
+
+            this.requestContext = requestContext;
+            this.binding = binding.getBytes(StandardCharsets.UTF_8);
+            this.expiryTime = expiryTime;
+        }
+
+        private boolean isBoundTo(String binding) {
+
+            return MessageDigest.isEqual(this.binding, binding.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.validators;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.DefaultJOSEObjectTypeVerifier;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTClaimsVerifier;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.nimbusds.oauth2.sdk.Scope;
+import io.asgardeo.java.oidc.sdk.cache.CachedJWKSource;
+import io.asgardeo.java.oidc.sdk.cache.VerifiedTokenCache;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentServerException;
+import io.asgardeo.java.oidc.sdk.http.BackChannelExecutors;
+import io.asgardeo.java.oidc.sdk.http.HTTPTransport;
+import io.asgardeo.java.oidc.sdk.http.HTTPTransportResourceRetriever;
+import io.asgardeo.java.oidc.sdk.http.PooledHTTPTransport;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Validator of JWT access tokens issued by an OpenID Provider, for applications which serve as a resource
+ * server and validate the bearer tokens of the incoming requests locally instead of introspecting them at the
+ * OP.
+ *
+ * <p>An access token is accepted if:
+ * <ul>
+ * <li>It is signed with the configured signature algorithm, RS256 by default, by a key of the OP's JWK set.
+ * The JWK set is retrieved through the shared {@link CachedJWKSource} of the configured JWKS endpoint.
+ * <li>Its type is {@code at+jwt}, {@code JWT} or not set.
+ * <li>It is issued by the configured issuer.
+ * <li>One of its audiences is a trusted audience of the configuration, if any are configured.
+ * <li>It is not expired, and not before its {@code nbf} time, allowing a clock skew of a minute.
+ * <li>It is granted the required scopes, in its {@code scope} or {@code scp} claim.
+ * </ul>
+ *
+ * <p>Validators are built once per configuration and HTTP transport, and are shared across requests through
+ * {@link #getInstance(OIDCAgentConfig)}. Instances are thread-safe. If a verified token cache size is configured,
+ * the claims of verified tokens are kept in a {@link VerifiedTokenCache} until the tokens expire, and a token
+ * presented again is only checked for the required scopes.
+ */
+public class AccessTokenValidator {
+
+    private static final ConcurrentMap<ValidatorKey, AccessTokenValidator> VALIDATORS = new ConcurrentHashMap<>();
+
+    private static final JOSEObjectType ACCESS_TOKEN_TYPE = new JOSEObjectType("at+jwt");
+    private static final String SCOPE = "scope";
+    private static final String SCP = "scp";
+    private static final String EXPIRATION_TIME = "exp";
+
+    private final IDTokenValidator.ValidatorConfig validatorConfig;
+    private final DefaultJWTProcessor<SecurityContext> jwtProcessor;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private AccessTokenValidator(ValidatorKey validatorKey, HTTPTransport httpTransport, Executor executor)
+            throws SSOAgentServerException {
+
+        this.validatorConfig = validatorKey.validatorConfig;
+        this.jwtProcessor = getJWTProcessor(validatorConfig, httpTransport, executor);
+        this.verifiedTokenCache = validatorKey.verifiedTokenCacheSize > 0 ?
+                new VerifiedTokenCache(validatorKey.verifiedTokenCacheSize) : null;
+    }
+
+    /**
+     * Returns the shared {@code AccessTokenValidator} for the given {@link OIDCAgentConfig}, building it on first
+     * use.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} of the OIDC agent.
+     * @return The {@link AccessTokenValidator} for the configuration.
+     * @throws SSOAgentServerException If the configured signature algorithm is not supported.
+     */
+    public static AccessTokenValidator getInstance(OIDCAgentConfig oidcAgentConfig) throws SSOAgentServerException {
+
+        return getInstance(oidcAgentConfig, PooledHTTPTransport.getInstance(oidcAgentConfig));
+    }
+
+    /**
+     * Returns the shared {@code AccessTokenValidator} for the given {@link OIDCAgentConfig} and
+     * {@link HTTPTransport}, building it on first use. The JWK set of the OP is retrieved with the given transport.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} of the OIDC agent.
+     * @param httpTransport   The {@link HTTPTransport} for the calls to the JWKS endpoint.
+     * @return The {@link AccessTokenValidator} for the configuration.
+     * @throws SSOAgentServerException If the configured signature algorithm is not supported.
+     */
+    public static AccessTokenValidator getInstance(OIDCAgentConfig oidcAgentConfig, HTTPTransport httpTransport)
+            throws SSOAgentServerException {
+
+        ValidatorKey validatorKey = new ValidatorKey(oidcAgentConfig, httpTransport,
+                BackChannelExecutors.getExecutor(oidcAgentConfig));
+        AccessTokenValidator accessTokenValidator = VALIDATORS.get(validatorKey);
+        if (accessTokenValidator == null) {
+            accessTokenValidator = new AccessTokenValidator(validatorKey, httpTransport, validatorKey.executor);
+            AccessTokenValidator existing = VALIDATORS.putIfAbsent(validatorKey, accessTokenValidator);
+            if (existing != null) {
+                accessTokenValidator = existing;
+            }
+        }
+        return accessTokenValidator;
+    }
+
+    /**
+     * Evicts the shared {@code AccessTokenValidators} built for a replaced {@link OIDCAgentConfig}, with any
+     * transport, unless the replacement configuration builds the same validators. Holders of the evicted validators
+     * keep using them.
+     *
+     * @param oidcAgentConfig The replaced {@link OIDCAgentConfig}.
+     * @param replacement     The {@link OIDCAgentConfig} replacing it.
+     */
+    public static void evict(OIDCAgentConfig oidcAgentConfig, OIDCAgentConfig replacement) {
+
+        ValidatorKey validatorKey = new ValidatorKey(oidcAgentConfig, null, null);
+        if (!validatorKey.hasSettingsOf(new ValidatorKey(replacement, null, null))) {
+            VALIDATORS.keySet().removeIf(key -> key.hasSettingsOf(validatorKey));
+        }
+    }
+
+    /**
+     * Validates the given access token.
+     *
+     * @param accessToken   The compact serialization of the JWT access token.
+     * @param requiredScope The scopes the access token must be granted, {@code null} if none.
+     * @return The claims set of the validated access token.
+     * @throws SSOAgentServerException If the access token is invalid.
+     */
+    public JWTClaimsSet validate(String accessToken, Scope requiredScope) throws SSOAgentServerException {
+
+        if (verifiedTokenCache != null) {
+            JWTClaimsSet claimsSet = verifiedTokenCache.get(accessToken);
+            if (claimsSet != null) {
+                validateScope(claimsSet, requiredScope);
+                return claimsSet;
+            }
+        }
+        JWT jwt;
+        try {
+            jwt = CachedClaimsSignedJWT.parseJWT(accessToken);
+        } catch (ParseException e) {
+            throw new SSOAgentServerException("Access token validation failed. Invalid JWT.", e);
+        }
+        JWTClaimsSet claimsSet = verify(jwt);
+        if (verifiedTokenCache != null) {
+            verifiedTokenCache.put(accessToken, claimsSet);
+        }
+        validateScope(claimsSet, requiredScope);
+        return claimsSet;
+    }
+
+    /**
+     * Validates the given access token.
+     *
+     * @param accessToken   The JWT access token.
+     * @param requiredScope The scopes the access token must be granted, {@code null} if none.
+     * @return The claims set of the validated access token.
+     * @throws SSOAgentServerException If the access token is invalid.
+     */
+    public JWTClaimsSet validate(JWT accessToken, Scope requiredScope) throws SSOAgentServerException {
+
+        JWTClaimsSet claimsSet = verify(accessToken);
+        validateScope(claimsSet, requiredScope);
+        return claimsSet;
+    }
+
+    /**
+     * Returns the verified token cache of this validator.
+     *
+     * @return The {@link VerifiedTokenCache} of the validator, {@code null} if the cache is disabled.
+     */
+    public VerifiedTokenCache getVerifiedTokenCache() {
+
+        return verifiedTokenCache;
+    }
+
+    private JWTClaimsSet verify(JWT accessToken) throws SSOAgentServerException {
+
+        if (!(accessToken instanceof SignedJWT)) {
+            throw new SSOAgentServerException("Access token validation failed. The access token is not signed.");
+        }
+        IDTokenValidator.validateJWSAlgorithm(validatorConfig, accessToken);
+        JWTClaimsSet claimsSet;
+        try {
+            claimsSet = jwtProcessor.process(accessToken, null);
+        } catch (BadJOSEException | JOSEException e) {
+            throw new SSOAgentServerException("Access token validation failed. " + e.getMessage(), e);
+        }
+        return claimsSet;
+    }
+
+    private static DefaultJWTProcessor<SecurityContext> getJWTProcessor(
+            IDTokenValidator.ValidatorConfig validatorConfig, HTTPTransport httpTransport, Executor executor)
+            throws SSOAgentServerException {
+
+        JWSAlgorithm jwsAlgorithm = validatorConfig.jwsAlgorithm;
+        // Access tokens are signed by the OP, hence the HMAC algorithms keyed with the client secret do not apply.
+        if (!JWSAlgorithm.Family.RSA.contains(jwsAlgorithm) && !JWSAlgorithm.Family.EC.contains(jwsAlgorithm) &&
+                !JWSAlgorithm.Family.ED.contains(jwsAlgorithm)) {
+            throw new SSOAgentServerException(String.format("Unsupported algorithm: %s.", jwsAlgorithm.getName()));
+        }
+        if (validatorConfig.jwksEndpoint == null) {
+            throw new SSOAgentServerException("JWKS endpoint is not configured.");
+        }
+        CachedJWKSource jwkSource = CachedJWKSource.getInstance(validatorConfig.jwksEndpoint,
+                validatorConfig.jwksCacheTTL, validatorConfig.jwksRefreshAheadTime,
+                new HTTPTransportResourceRetriever(httpTransport), executor);
+
+        JWTClaimsSet.Builder exactMatchClaims = new JWTClaimsSet.Builder();
+        if (validatorConfig.issuer != null) {
+            exactMatchClaims.issuer(validatorConfig.issuer.getValue());
+        }
+        DefaultJWTClaimsVerifier<SecurityContext> claimsVerifier = new DefaultJWTClaimsVerifier<>(
+                validatorConfig.trustedAudience.isEmpty() ? null : validatorConfig.trustedAudience,
+                exactMatchClaims.build(), new HashSet<>(Arrays.asList(EXPIRATION_TIME)), null);
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSTypeVerifier(new DefaultJOSEObjectTypeVerifier<>(ACCESS_TOKEN_TYPE, JOSEObjectType.JWT,
+                null));
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(jwsAlgorithm, jwkSource));
+        jwtProcessor.setJWTClaimsSetVerifier(claimsVerifier);
+        return jwtProcessor;
+    }
+
+    private void validateScope(JWTClaimsSet claimsSet, Scope requiredScope) throws SSOAgentServerException {
+
+        if (requiredScope == null || requiredScope.isEmpty()) {
+            return;
+        }
+        Collection<String> grantedScope = getGrantedScope(claimsSet);
+        for (Scope.Value scopeValue : requiredScope) {
+            if (!grantedScope.contains(scopeValue.getValue())) {
+                throw new SSOAgentServerException(String.format("Access token validation failed. Required scope: " +
+                        "%s is not granted.", scopeValue.getValue()));
+            }
+        }
+    }
+
+    private Collection<String> getGrantedScope(JWTClaimsSet claimsSet) throws SSOAgentServerException {
+
+        try {
+            String scope = claimsSet.getStringClaim(SCOPE);
+            if (scope != null) {
+                return Arrays.asList(scope.split(" "));
+            }
+            List<String> scp = claimsSet.getStringListClaim(SCP);
+            if (scp != null) {
+                return scp;
+            }
+            // Some OPs issue the scp claim as a space separated string.
+            String scpString = claimsSet.getStringClaim(SCP);
+            return scpString != null ? Arrays.asList(scpString.split(" ")) : new HashSet<String>();
+        } catch (ParseException e) {
+            throw new SSOAgentServerException("Access token validation failed. Invalid scope claim.", e);
+        }
+    }
+
+    /**
+     * The key of a shared validator: the validator settings shared with the {@link IDTokenValidator}, plus the
+     * size of the verified token cache, which only applies to access tokens, and the HTTP transport and executor
+     * the JWK set is retrieved with, which are compared by identity.
+     */
+    private static final class ValidatorKey {
+
+        private final IDTokenValidator.ValidatorConfig validatorConfig;
+        private final int verifiedTokenCacheSize;
+        private final HTTPTransport httpTransport;
+        private final Executor executor;
+
+        private ValidatorKey(OIDCAgentConfig oidcAgentConfig, HTTPTransport httpTransport, Executor executor) {
+
+            this.validatorConfig = new IDTokenValidator.ValidatorConfig(oidcAgentConfig);
+            this.verifiedTokenCacheSize = oidcAgentConfig.getVerifiedTokenCacheSize();
+            this.httpTransport = httpTransport;
+            this.executor = executor;
+        }
+
+        private boolean hasSettingsOf(ValidatorKey that) {
+
+            return verifiedTokenCacheSize == that.verifiedTokenCacheSize &&
+                    validatorConfig.equals(that.validatorConfig);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ValidatorKey that = (ValidatorKey) o;
+            return httpTransport == that.httpTransport && executor == that.executor && hasSettingsOf(that);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return validatorConfig.hashCode() * 31 + System.identityHashCode(httpTransport);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.validators;
+
+import com.nimbusds.jose.JOSEObject;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.SignedJWT;
+
+import java.text.ParseException;
+
+/**
+ * A {@link SignedJWT} which decodes and parses its claims set only once.
+ *
+ * <p>{@link SignedJWT#getJWTClaimsSet()} decodes the Base64URL payload and
+ * parses the JSON on every call. The JWT processor of the Nimbus validators
+ * calls it during validation and the SDK needs the same claims afterwards to
+ * build the authenticated user, so the parsed claims set is kept and handed
+ * out to every caller.
+ */
+public class CachedClaimsSignedJWT extends SignedJWT {
+
+    private static final long serialVersionUID = -3275462089361574431L;
+
+    private transient volatile JWTClaimsSet claimsSet;
+
+    private CachedClaimsSignedJWT(Base64URL firstPart, Base64URL secondPart, Base64URL thirdPart)
+            throws ParseException {
+
+        super(firstPart, secondPart, thirdPart);
+    }
+
+    /**
+     * Parses a JWT from its compact serialization. Signed JWTs are returned as
+     * {@link CachedClaimsSignedJWT} instances, other JWTs as parsed by {@link JWTParser}.
+     *
+     * @param jwt The compact serialization of the JWT.
+     * @return The parsed {@link JWT}.
+     * @throws ParseException If the string could not be parsed to a valid JWT.
+     */
+    public static JWT parseJWT(String jwt) throws ParseException {
+
+        Base64URL[] parts = JOSEObject.split(jwt);
+        if (parts.length != 3) {
+            return JWTParser.parse(jwt);
+        }
+        try {
+            return new CachedClaimsSignedJWT(parts[0], parts[1], parts[2]);
+        } catch (ParseException e) {
+            // Not a JWS header, e.g. an unsecured JWT.
+            return JWTParser.parse(jwt);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JWTClaimsSet getJWTClaimsSet() throws ParseException {
+
+        JWTClaimsSet claims = claimsSet;
+        if (claims == null) {
+            claims = super.getJWTClaimsSet();
+            claimsSet = claims;
+        }
+        return claims;
+    }
+}
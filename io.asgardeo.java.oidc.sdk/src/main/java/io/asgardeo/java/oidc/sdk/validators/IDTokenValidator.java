@@ -21,6 +21,9 @@ package io.asgardeo.java.oidc.sdk.validators;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.oauth2.sdk.auth.Secret;
 import com.nimbusds.oauth2.sdk.id.Audience;
@@ -29,15 +32,25 @@ import com.nimbusds.oauth2.sdk.id.Issuer;
 import com.nimbusds.openid.connect.sdk.Nonce;
 import com.nimbusds.openid.connect.sdk.claims.IDTokenClaimsSet;
 import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
+import io.asgardeo.java.oidc.sdk.cache.CachedJWKSource;
 import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
 import io.asgardeo.java.oidc.sdk.exception.SSOAgentServerException;
+import io.asgardeo.java.oidc.sdk.http.BackChannelExecutors;
+import io.asgardeo.java.oidc.sdk.http.HTTPTransport;
+import io.asgardeo.java.oidc.sdk.http.HTTPTransportResourceRetriever;
+import io.asgardeo.java.oidc.sdk.http.PooledHTTPTransport;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.net.MalformedURLException;
 import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
 /**
  * Validator of ID tokens issued by an OpenID Provider.
@@ -46,58 +59,163 @@ import java.util.Set;
  *
  * <ul>
  *     <li>ID tokens signed (JWS) with the OP's RSA or EC key, require the
- *         OP public JWK set (provided by value or URL) to verify them.
+ *         OP public JWK set to verify them. The JWK set is retrieved through
+ *         the shared {@link CachedJWKSource} of the configured JWKS endpoint.
  *     <li>ID tokens authenticated with a JWS HMAC, require the client's secret
  *         to verify them.
  * </ul>
+ *
+ * <p>Validators are built once per issuer, client and signature algorithm
+ * from an immutable snapshot of the {@link OIDCAgentConfig}, and per HTTP
+ * transport and executor, and are shared across requests through
+ * {@link #getInstance(OIDCAgentConfig)}. Instances are thread-safe.
  */
 public class IDTokenValidator {
 
     private static final Logger logger = LogManager.getLogger(IDTokenValidator.class);
 
+    private static final ConcurrentMap<ValidatorKey, IDTokenValidator> VALIDATORS = new ConcurrentHashMap<>();
+
+    private final ValidatorConfig validatorConfig;
+    private final com.nimbusds.openid.connect.sdk.validators.IDTokenValidator validator;
     private OIDCAgentConfig oidcAgentConfig;
     private JWT idToken;
 
+    /**
+     * Creates a validator for a single ID token.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} of the OIDC agent.
+     * @param idToken         The ID token to validate.
+     * @deprecated Use {@link #getInstance(OIDCAgentConfig)} and {@link #validate(JWT, Nonce)} instead.
+     */
+    @Deprecated
     public IDTokenValidator(OIDCAgentConfig oidcAgentConfig, JWT idToken) {
 
+        this.validatorConfig = null;
+        this.validator = null;
         this.oidcAgentConfig = oidcAgentConfig;
         this.idToken = idToken;
     }
 
+    private IDTokenValidator(ValidatorConfig validatorConfig, HTTPTransport httpTransport, Executor executor)
+            throws SSOAgentServerException {
+
+        this.validatorConfig = validatorConfig;
+        this.validator = getIDTokenValidator(validatorConfig, httpTransport, executor);
+    }
+
+    /**
+     * Returns the shared {@code IDTokenValidator} for the issuer, client and signature algorithm of the given
+     * {@link OIDCAgentConfig}, building it on first use.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} of the OIDC agent.
+     * @return The {@link IDTokenValidator} for the configuration.
+     * @throws SSOAgentServerException If the configured signature algorithm is not supported.
+     */
+    public static IDTokenValidator getInstance(OIDCAgentConfig oidcAgentConfig) throws SSOAgentServerException {
+
+        return getInstance(oidcAgentConfig, PooledHTTPTransport.getInstance(oidcAgentConfig));
+    }
+
+    /**
+     * Returns the shared {@code IDTokenValidator} for the issuer, client and signature algorithm of the given
+     * {@link OIDCAgentConfig} and the given {@link HTTPTransport}, building it on first use. The JWK set of the OP
+     * is retrieved with the given transport.
+     *
+     * @param oidcAgentConfig The {@link OIDCAgentConfig} of the OIDC agent.
+     * @param httpTransport   The {@link HTTPTransport} for the calls to the JWKS endpoint.
+     * @return The {@link IDTokenValidator} for the configuration.
+     * @throws SSOAgentServerException If the configured signature algorithm is not supported.
+     */
+    public static IDTokenValidator getInstance(OIDCAgentConfig oidcAgentConfig, HTTPTransport httpTransport)
+            throws SSOAgentServerException {
+
+        ValidatorKey validatorKey = new ValidatorKey(new ValidatorConfig(oidcAgentConfig), httpTransport,
+                BackChannelExecutors.getExecutor(oidcAgentConfig));
+        IDTokenValidator idTokenValidator = VALIDATORS.get(validatorKey);
+        if (idTokenValidator == null) {
+            idTokenValidator = new IDTokenValidator(validatorKey.validatorConfig, httpTransport, validatorKey.executor);
+            IDTokenValidator existing = VALIDATORS.putIfAbsent(validatorKey, idTokenValidator);
+            if (existing != null) {
+                idTokenValidator = existing;
+            }
+        }
+        return idTokenValidator;
+    }
+
+    /**
+     * Evicts the shared {@code IDTokenValidators} built for a replaced {@link OIDCAgentConfig}, with any transport,
+     * unless the replacement configuration builds the same validators. Holders of the evicted validators keep
+     * using them.
+     *
+     * @param oidcAgentConfig The replaced {@link OIDCAgentConfig}.
+     * @param replacement     The {@link OIDCAgentConfig} replacing it.
+     */
+    public static void evict(OIDCAgentConfig oidcAgentConfig, OIDCAgentConfig replacement) {
+
+        ValidatorConfig validatorConfig = new ValidatorConfig(oidcAgentConfig);
+        if (!validatorConfig.equals(new ValidatorConfig(replacement))) {
+            VALIDATORS.keySet().removeIf(validatorKey -> validatorKey.validatorConfig.equals(validatorConfig));
+        }
+    }
+
+    /**
+     * Validates the ID token this validator was created for.
+     *
+     * @param expectedNonce The expected nonce, {@code null} if none.
+     * @return The claims set of the validated ID token.
+     * @throws SSOAgentServerException If the ID token is invalid.
+     * @deprecated Use {@link #validate(JWT, Nonce)} instead.
+     */
+    @Deprecated
     public IDTokenClaimsSet validate(Nonce expectedNonce) throws SSOAgentServerException {
 
-        JWSAlgorithm jwsAlgorithm = validateJWSAlgorithm(oidcAgentConfig, idToken);
-        com.nimbusds.openid.connect.sdk.validators.IDTokenValidator validator =
-                getIDTokenValidator(oidcAgentConfig, jwsAlgorithm);
+        return getInstance(oidcAgentConfig).validate(idToken, expectedNonce);
+    }
+
+    /**
+     * Validates the given ID token.
+     *
+     * @param idToken       The ID token to validate.
+     * @param expectedNonce The expected nonce, {@code null} if none.
+     * @return The claims set of the validated ID token.
+     * @throws SSOAgentServerException If the ID token is invalid.
+     */
+    public IDTokenClaimsSet validate(JWT idToken, Nonce expectedNonce) throws SSOAgentServerException {
+
+        validateJWSAlgorithm(validatorConfig, idToken);
         IDTokenClaimsSet claims;
         try {
             claims = validator.validate(idToken, expectedNonce);
-            validateAudience(oidcAgentConfig, claims);
+            validateAudience(validatorConfig, claims);
         } catch (JOSEException | BadJOSEException e) {
             throw new SSOAgentServerException(e.getMessage(), e.getCause());
         }
         return claims;
     }
 
-    private com.nimbusds.openid.connect.sdk.validators.IDTokenValidator getIDTokenValidator(
-            OIDCAgentConfig oidcAgentConfig, JWSAlgorithm jwsAlgorithm) throws SSOAgentServerException {
+    private static com.nimbusds.openid.connect.sdk.validators.IDTokenValidator getIDTokenValidator(
+            ValidatorConfig validatorConfig, HTTPTransport httpTransport, Executor executor)
+            throws SSOAgentServerException {
 
-        Issuer issuer = oidcAgentConfig.getIssuer();
-        URI jwkSetURI = oidcAgentConfig.getJwksEndpoint();
-        ClientID clientID = oidcAgentConfig.getConsumerKey();
-        Secret clientSecret = oidcAgentConfig.getConsumerSecret();
+        Issuer issuer = validatorConfig.issuer;
+        URI jwkSetURI = validatorConfig.jwksEndpoint;
+        ClientID clientID = validatorConfig.clientID;
+        Secret clientSecret = validatorConfig.clientSecret;
+        JWSAlgorithm jwsAlgorithm = validatorConfig.jwsAlgorithm;
         com.nimbusds.openid.connect.sdk.validators.IDTokenValidator validator;
 
         // Creates a new validator for RSA, EC or ED protected ID tokens.
         if (JWSAlgorithm.Family.RSA.contains(jwsAlgorithm) || JWSAlgorithm.Family.EC.contains(jwsAlgorithm) ||
                 JWSAlgorithm.Family.ED.contains(jwsAlgorithm)) {
-            try {
-                validator =
-                        new com.nimbusds.openid.connect.sdk.validators.IDTokenValidator(issuer, clientID, jwsAlgorithm,
-                                jwkSetURI.toURL());
-            } catch (Exception e) {
-                throw new SSOAgentServerException(e.getMessage(), e.getCause());
+            if (jwkSetURI == null) {
+                throw new SSOAgentServerException("JWKS endpoint is not configured.");
             }
+            CachedJWKSource jwkSource = CachedJWKSource.getInstance(jwkSetURI, validatorConfig.jwksCacheTTL,
+                    validatorConfig.jwksRefreshAheadTime, new HTTPTransportResourceRetriever(httpTransport), executor);
+            JWSKeySelector<SecurityContext> keySelector = new JWSVerificationKeySelector<>(jwsAlgorithm, jwkSource);
+            validator = new com.nimbusds.openid.connect.sdk.validators.IDTokenValidator(issuer, clientID, keySelector,
+                    null);
             // Creates a new validator for HMAC protected ID tokens.
         } else if (JWSAlgorithm.Family.HMAC_SHA.contains(jwsAlgorithm)) {
             validator = new com.nimbusds.openid.connect.sdk.validators.IDTokenValidator(issuer, clientID, jwsAlgorithm,
@@ -108,27 +226,22 @@ public class IDTokenValidator {
         return validator;
     }
 
-    private JWSAlgorithm validateJWSAlgorithm(OIDCAgentConfig oidcAgentConfig, JWT idToken)
-            throws SSOAgentServerException {
+    static void validateJWSAlgorithm(ValidatorConfig validatorConfig, JWT jwt) throws SSOAgentServerException {
 
-        JWSAlgorithm jwsAlgorithm = (JWSAlgorithm) idToken.getHeader().getAlgorithm();
-        JWSAlgorithm expectedJWSAlgorithm = oidcAgentConfig.getSignatureAlgorithm();
+        JWSAlgorithm jwsAlgorithm = (JWSAlgorithm) jwt.getHeader().getAlgorithm();
 
-        if (expectedJWSAlgorithm == null) {
-            if (JWSAlgorithm.RS256.equals(jwsAlgorithm)) {
-                return jwsAlgorithm;
-            } else {
-                throw new SSOAgentServerException(String.format("Signed JWT rejected. Provided signature algorithm: " +
-                        "%s is not the default of RS256.", jwsAlgorithm.getName()));
-            }
-        } else if (!expectedJWSAlgorithm.equals(jwsAlgorithm)) {
-            throw new SSOAgentServerException(String.format("Signed JWT rejected: Another algorithm expected. " +
-                    "Provided signature algorithm: %s.", jwsAlgorithm.getName()));
+        if (validatorConfig.jwsAlgorithm.equals(jwsAlgorithm)) {
+            return;
         }
-        return jwsAlgorithm;
+        if (validatorConfig.defaultAlgorithm) {
+            throw new SSOAgentServerException(String.format("Signed JWT rejected. Provided signature algorithm: " +
+                    "%s is not the default of RS256.", jwsAlgorithm.getName()));
+        }
+        throw new SSOAgentServerException(String.format("Signed JWT rejected: Another algorithm expected. " +
+                "Provided signature algorithm: %s.", jwsAlgorithm.getName()));
     }
 
-    private void validateAudience(OIDCAgentConfig oidcAgentConfig, IDTokenClaimsSet claimsSet)
+    private void validateAudience(ValidatorConfig validatorConfig, IDTokenClaimsSet claimsSet)
             throws SSOAgentServerException {
 
         List<Audience> audience = claimsSet.getAudience();
@@ -137,7 +250,7 @@ public class IDTokenValidator {
                 throw new SSOAgentServerException("ID token validation failed. AZP claim cannot be null for multiple " +
                         "audiences.");
             }
-            Set<String> trustedAudience = oidcAgentConfig.getTrustedAudience();
+            Set<String> trustedAudience = validatorConfig.trustedAudience;
             for (Audience aud : audience) {
                 if (!trustedAudience.contains(aud.getValue())) {
                     throw new SSOAgentServerException("ID token validation failed. Untrusted JWT audience.");
@@ -145,4 +258,103 @@ public class IDTokenValidator {
             }
         }
     }
+
+    /**
+     * An immutable snapshot of the {@link OIDCAgentConfig} fields a token validator is built from.
+     * Two snapshots are equal if validators built from them would behave the same.
+     */
+    static final class ValidatorConfig {
+
+        final Issuer issuer;
+        final ClientID clientID;
+        final Secret clientSecret;
+        final JWSAlgorithm jwsAlgorithm;
+        final boolean defaultAlgorithm;
+        final URI jwksEndpoint;
+        final long jwksCacheTTL;
+        final long jwksRefreshAheadTime;
+        final Set<String> trustedAudience;
+
+        ValidatorConfig(OIDCAgentConfig oidcAgentConfig) {
+
+            JWSAlgorithm signatureAlgorithm = oidcAgentConfig.getSignatureAlgorithm();
+            Set<String> audience = oidcAgentConfig.getTrustedAudience();
+
+            this.issuer = oidcAgentConfig.getIssuer();
+            this.clientID = oidcAgentConfig.getConsumerKey();
+            this.clientSecret = oidcAgentConfig.getConsumerSecret();
+            this.defaultAlgorithm = signatureAlgorithm == null;
+            this.jwsAlgorithm = defaultAlgorithm ? JWSAlgorithm.RS256 : signatureAlgorithm;
+            this.jwksEndpoint = oidcAgentConfig.getJwksEndpoint();
+            this.jwksCacheTTL = oidcAgentConfig.getJwksCacheTTL();
+            this.jwksRefreshAheadTime = oidcAgentConfig.getJwksRefreshAheadTime();
+            this.trustedAudience = audience == null ? Collections.<String>emptySet() :
+                    Collections.unmodifiableSet(new HashSet<>(audience));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ValidatorConfig that = (ValidatorConfig) o;
+            return defaultAlgorithm == that.defaultAlgorithm &&
+                    jwksCacheTTL == that.jwksCacheTTL &&
+                    jwksRefreshAheadTime == that.jwksRefreshAheadTime &&
+                    Objects.equals(issuer, that.issuer) &&
+                    Objects.equals(clientID, that.clientID) &&
+                    Objects.equals(clientSecret, that.clientSecret) &&
+                    Objects.equals(jwsAlgorithm, that.jwsAlgorithm) &&
+                    Objects.equals(jwksEndpoint, that.jwksEndpoint) &&
+                    Objects.equals(trustedAudience, that.trustedAudience);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(issuer, clientID, jwsAlgorithm, jwksEndpoint);
+        }
+    }
+
+    /**
+     * The key of a shared validator: its settings, and the HTTP transport and executor its JWK set is retrieved
+     * with, which are compared by identity.
+     */
+    private static final class ValidatorKey {
+
+        private final ValidatorConfig validatorConfig;
+        private final HTTPTransport httpTransport;
+        private final Executor executor;
+
+        private ValidatorKey(ValidatorConfig validatorConfig, HTTPTransport httpTransport, Executor executor) {
+
+            this.validatorConfig = validatorConfig;
+            this.httpTransport = httpTransport;
+            this.executor = executor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ValidatorKey that = (ValidatorKey) o;
+            return httpTransport == that.httpTransport && executor == that.executor &&
+                    validatorConfig.equals(that.validatorConfig);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return validatorConfig.hashCode() * 31 + System.identityHashCode(httpTransport);
+        }
+    }
 }
@@ -21,27 +21,24 @@ package io.asgardeo.java.oidc.sdk;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTParser;
 import com.nimbusds.oauth2.sdk.AccessTokenResponse;
-import com.nimbusds.oauth2.sdk.AuthorizationCode;
-import com.nimbusds.oauth2.sdk.AuthorizationResponse;
-import com.nimbusds.oauth2.sdk.AuthorizationSuccessResponse;
 import com.nimbusds.oauth2.sdk.Scope;
 import com.nimbusds.oauth2.sdk.TokenResponse;
 import com.nimbusds.oauth2.sdk.auth.Secret;
-import com.nimbusds.oauth2.sdk.http.HTTPRequest;
 import com.nimbusds.oauth2.sdk.http.HTTPResponse;
-import com.nimbusds.oauth2.sdk.http.ServletUtils;
 import com.nimbusds.oauth2.sdk.id.ClientID;
 import com.nimbusds.oauth2.sdk.id.Issuer;
 import com.nimbusds.oauth2.sdk.id.State;
 import com.nimbusds.oauth2.sdk.id.Subject;
 import com.nimbusds.oauth2.sdk.token.AccessToken;
 import com.nimbusds.oauth2.sdk.token.AccessTokenType;
+import com.nimbusds.oauth2.sdk.token.BearerAccessToken;
 import com.nimbusds.oauth2.sdk.token.RefreshToken;
 import com.nimbusds.oauth2.sdk.token.Tokens;
 import com.nimbusds.openid.connect.sdk.Nonce;
 import com.nimbusds.openid.connect.sdk.claims.IDTokenClaimsSet;
 import io.asgardeo.java.oidc.sdk.bean.RequestContext;
 import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import io.asgardeo.java.oidc.sdk.bean.User;
 import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
 import io.asgardeo.java.oidc.sdk.exception.SSOAgentException;
 import io.asgardeo.java.oidc.sdk.request.OIDCRequestResolver;
@@ -61,8 +58,12 @@ import org.testng.annotations.Test;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -73,11 +74,28 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 @PrepareForTest({IDTokenValidator.class, IDTokenClaimsSet.class,
         com.nimbusds.openid.connect.sdk.validators.IDTokenValidator.class})
 public class DefaultOIDCManagerTest extends PowerMockTestCase {
 
+    private static final String ID_TOKEN =
+            "eyJ4NXQiOiJNell4TW1Ga09HWXdNV0kwWldObU5EY3hOR1l3WW1NNFpUQTNNV0kyTkRBelpHUXpOR00wWkdS" +
+            "bE5qSmtPREZrWkRSaU9URmtNV0ZoTXpVMlpHVmxOZyIsImtpZCI6Ik16WXhNbUZrT0dZd01XSTBaV05tTkRjeE5HWXdZbU00WlR" +
+            "BM01XSTJOREF6WkdRek5HTTBaR1JsTmpKa09ERmtaRFJpT1RGa01XRmhNelUyWkdWbE5nX1JTMjU2IiwiYWxnIjoiUlMyNTYifQ" +
+            ".eyJhdF9oYXNoIjoiSEJOUlJOeTlaVy1CMXF3dFdLRkJEZyIsInN1YiI6ImFsZXhAY2FyYm9uLnN1cGVyIiwiY291bnRyeSI6Ik" +
+            "xLIiwiYW1yIjpbIkJhc2ljQXV0aGVudGljYXRvciJdLCJpc3MiOiJodHRwczpcL1wvbG9jYWxob3N0Ojk0NDNcL29hdXRoMlwvd" +
+            "G9rZW4iLCJzaWQiOiJkYmJhNGNkMC0wNWRjLTQxN2QtYTcwYy1lOGNmYmNiNDlhMDMiLCJhdWQiOiJLRTRPWWVZX2dmWXd6UWJK" +
+            "YTl0R2hqMWhaSk1hIiwiY19oYXNoIjoiWXhUQ25rZ2UtOG9PSWZ3RUpmS2tfdyIsIm5iZiI6MTYwMjIyNjA5MSwiYXpwIjoiS0U" +
+            "0T1llWV9nZll3elFiSmE5dEdoajFoWkpNYSIsImV4cCI6MTYwMjIyOTY5MSwiaWF0IjoxNjAyMjI2MDkxLCJlbWFpbCI6ImFsZX" +
+            "hAd3NvMi5jb20ifQ.pHwsQqn64tif2J6iYcRShK_85WO3aBuL7Pz8urcHErXjyh6zvroOqSWD9KbSxJPocyoIshdqWdAEhdURKL" +
+            "tXiw-l73HlvnX4qJKYT71VKXMTC26Z8dlk4TgytXiskmj8OpAcem3czuEWTrTLVbYzIw71p9kx-5Xxb9WNvzBg1YpwGC8MK3dkW" +
+            "TfmUsu6oncIvHyv-gbX3kJebgMserp";
+
     @Mock
     HttpServletRequest request;
 
@@ -133,12 +151,132 @@ public class DefaultOIDCManagerTest extends PowerMockTestCase {
                 .thenReturn(validator);
         when(validator.validate(any(JWT.class), any(Nonce.class))).thenReturn(claimsSet);
         Mockito.when(idTokenValidator.validate(any(Nonce.class))).thenReturn(claimsSet);
+        Mockito.when(idTokenValidator.validate(any(JWT.class), any(Nonce.class))).thenReturn(claimsSet);
         Mockito.when(claimsSet.getSubject()).thenReturn(new Subject("alex@carbon.super"));
     }
 
     @Test
     public void testHandleOIDCCallback() throws Exception {
 
+        try (MockedStatic<TokenResponse> mockedTokenResponse = mockStatic(TokenResponse.class)) {
+            Tokens tokens = mockAuthorizationCodeTokenResponse();
+            RequestContext requestContext = new RequestContext(new State("state"), new Nonce());
+
+            OIDCManager oidcManager = new DefaultOIDCManager(oidcAgentConfig);
+            SessionContext sessionContext = oidcManager.handleOIDCCallback(request, response, requestContext);
+
+            assertAuthenticated(sessionContext, tokens);
+        }
+    }
+
+    @Test
+    public void testHandleOIDCCallbackAsync() throws Exception {
+
+        try (MockedStatic<TokenResponse> mockedTokenResponse = mockStatic(TokenResponse.class)) {
+            Tokens tokens = mockAuthorizationCodeTokenResponse();
+            RequestContext requestContext = new RequestContext(new State("state"), new Nonce());
+
+            // Runs the callback processing on the calling thread, where the static mocks are registered.
+            AsyncOIDCManager oidcManager = new DefaultOIDCManager(oidcAgentConfig, null, Runnable::run);
+            SessionContext sessionContext =
+                    oidcManager.handleOIDCCallbackAsync(request, response, requestContext).get();
+
+            assertAuthenticated(sessionContext, tokens);
+        }
+    }
+
+    @Test
+    public void testHandleOIDCCallbackAsyncWithInvalidTokenResponse() throws Exception {
+
+        try (MockedStatic<TokenResponse> mockedTokenResponse = mockStatic(TokenResponse.class)) {
+            when(request.getParameter(SSOAgentConstants.CODE)).thenReturn("sampleCode");
+            when(TokenResponse.parse(any(HTTPResponse.class)))
+                    .thenThrow(new com.nimbusds.oauth2.sdk.ParseException("Invalid token response."));
+            RequestContext requestContext = new RequestContext(new State("state"), new Nonce());
+
+            AsyncOIDCManager oidcManager = new DefaultOIDCManager(oidcAgentConfig, null, Runnable::run);
+            CompletableFuture<SessionContext> future =
+                    oidcManager.handleOIDCCallbackAsync(request, response, requestContext);
+
+            try {
+                future.get();
+                fail("Expected the authentication to fail.");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SSOAgentException);
+                assertEquals(((SSOAgentException) e.getCause()).getErrorCode(),
+                        SSOAgentConstants.ErrorMessages.TOKEN_REQUEST_FAILED.getCode());
+            }
+        }
+    }
+
+    @Test
+    public void testHandleOIDCCallbackAsyncWithErrorResponse() throws Exception {
+
+        when(request.getParameter(SSOAgentConstants.ERROR)).thenReturn("access_denied");
+        RequestContext requestContext = new RequestContext(new State("state"), new Nonce());
+
+        AsyncOIDCManager oidcManager = new DefaultOIDCManager(oidcAgentConfig);
+        CompletableFuture<SessionContext> future =
+                oidcManager.handleOIDCCallbackAsync(request, response, requestContext);
+
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail("Expected the authentication to fail.");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SSOAgentException);
+            assertEquals(((SSOAgentException) e.getCause()).getErrorCode(),
+                    SSOAgentConstants.ErrorMessages.AUTHENTICATION_FAILED.getCode());
+        }
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+
+        try (MockedStatic<TokenResponse> mockedTokenResponse = mockStatic(TokenResponse.class)) {
+            AccessToken accessToken = mockRefreshTokenResponse();
+            SessionContext sessionContext = getLoggedInSessionContext();
+
+            OIDCManager oidcManager = new DefaultOIDCManager(oidcAgentConfig);
+            SessionContext renewedSessionContext = oidcManager.refresh(sessionContext);
+
+            assertEquals(renewedSessionContext.getAccessToken(), accessToken.toJSONString());
+            assertEquals(renewedSessionContext.getRefreshToken(), "sampleRefreshToken");
+            assertEquals(renewedSessionContext.getIdToken(), "sampleIdToken");
+            assertEquals(renewedSessionContext.getUser().getSubject(), "alex@carbon.super");
+            assertTrue(renewedSessionContext.getAccessTokenExpiryTime() > System.currentTimeMillis());
+        }
+    }
+
+    @Test
+    public void testConcurrentRefreshesAreCoalesced() throws Exception {
+
+        try (MockedStatic<TokenResponse> mockedTokenResponse = mockStatic(TokenResponse.class)) {
+            AccessToken accessToken = mockRefreshTokenResponse();
+            SessionContext sessionContext = getLoggedInSessionContext();
+            List<Runnable> tasks = new ArrayList<>();
+
+            AsyncOIDCManager oidcManager = new DefaultOIDCManager(oidcAgentConfig, null, tasks::add);
+            CompletableFuture<SessionContext> firstRefresh = oidcManager.refreshAsync(sessionContext);
+            CompletableFuture<SessionContext> secondRefresh = oidcManager.refreshAsync(sessionContext);
+
+            assertTrue(firstRefresh == secondRefresh);
+            assertEquals(tasks.size(), 1);
+            tasks.get(0).run();
+            assertEquals(firstRefresh.get().getAccessToken(), accessToken.toJSONString());
+            mockedTokenResponse.verify(Mockito.times(1), () -> TokenResponse.parse(any(HTTPResponse.class)));
+        }
+    }
+
+    @Test(expectedExceptions = SSOAgentException.class)
+    public void testRefreshWithoutRefreshToken() throws Exception {
+
+        OIDCManager oidcManager = new DefaultOIDCManager(oidcAgentConfig);
+        oidcManager.refresh(new SessionContext());
+    }
+
+    private Tokens mockAuthorizationCodeTokenResponse() throws Exception {
+
         AccessToken accessToken = new AccessToken(AccessTokenType.BEARER, "sampleAccessToken") {
             @Override
             public String toAuthorizationHeader() {
@@ -146,40 +284,13 @@ public class DefaultOIDCManagerTest extends PowerMockTestCase {
                 return null;
             }
         };
-        RefreshToken refreshToken = new RefreshToken("sampleRefreshToken");
-        Tokens tokens = new Tokens(accessToken, refreshToken);
+        Tokens tokens = new Tokens(accessToken, new RefreshToken("sampleRefreshToken"));
         Map<String, Object> customParameters = new HashMap<>();
-        String parsedIdToken = "eyJ4NXQiOiJNell4TW1Ga09HWXdNV0kwWldObU5EY3hOR1l3WW1NNFpUQTNNV0kyTkRBelpHUXpOR00wWkdS" +
-                "bE5qSmtPREZrWkRSaU9URmtNV0ZoTXpVMlpHVmxOZyIsImtpZCI6Ik16WXhNbUZrT0dZd01XSTBaV05tTkRjeE5HWXdZbU00WlR" +
-                "BM01XSTJOREF6WkdRek5HTTBaR1JsTmpKa09ERmtaRFJpT1RGa01XRmhNelUyWkdWbE5nX1JTMjU2IiwiYWxnIjoiUlMyNTYifQ" +
-                ".eyJhdF9oYXNoIjoiSEJOUlJOeTlaVy1CMXF3dFdLRkJEZyIsInN1YiI6ImFsZXhAY2FyYm9uLnN1cGVyIiwiY291bnRyeSI6Ik" +
-                "xLIiwiYW1yIjpbIkJhc2ljQXV0aGVudGljYXRvciJdLCJpc3MiOiJodHRwczpcL1wvbG9jYWxob3N0Ojk0NDNcL29hdXRoMlwvd" +
-                "G9rZW4iLCJzaWQiOiJkYmJhNGNkMC0wNWRjLTQxN2QtYTcwYy1lOGNmYmNiNDlhMDMiLCJhdWQiOiJLRTRPWWVZX2dmWXd6UWJK" +
-                "YTl0R2hqMWhaSk1hIiwiY19oYXNoIjoiWXhUQ25rZ2UtOG9PSWZ3RUpmS2tfdyIsIm5iZiI6MTYwMjIyNjA5MSwiYXpwIjoiS0U" +
-                "0T1llWV9nZll3elFiSmE5dEdoajFoWkpNYSIsImV4cCI6MTYwMjIyOTY5MSwiaWF0IjoxNjAyMjI2MDkxLCJlbWFpbCI6ImFsZX" +
-                "hAd3NvMi5jb20ifQ.pHwsQqn64tif2J6iYcRShK_85WO3aBuL7Pz8urcHErXjyh6zvroOqSWD9KbSxJPocyoIshdqWdAEhdURKL" +
-                "tXiw-l73HlvnX4qJKYT71VKXMTC26Z8dlk4TgytXiskmj8OpAcem3czuEWTrTLVbYzIw71p9kx-5Xxb9WNvzBg1YpwGC8MK3dkW" +
-                "TfmUsu6oncIvHyv-gbX3kJebgMserp";
-        JWT idToken = JWTParser.parse(parsedIdToken);
-        customParameters.put(SSOAgentConstants.ID_TOKEN, parsedIdToken);
-
-        when(requestResolver.isError()).thenReturn(false);
-        when(requestResolver.isAuthorizationCodeResponse()).thenReturn(true);
-
-        MockedStatic<AuthorizationResponse> mockedAuthorizationResponse = mockStatic(AuthorizationResponse.class);
-        MockedStatic<ServletUtils> mockedServletUtils = mockStatic(ServletUtils.class);
-        MockedStatic<TokenResponse> mockedTokenResponse = mockStatic(TokenResponse.class);
-        HTTPRequest httpRequest = mock(HTTPRequest.class);
-        AuthorizationResponse authorizationResponse = mock(AuthorizationResponse.class);
-        AuthorizationSuccessResponse successResponse = mock(AuthorizationSuccessResponse.class);
-        AuthorizationCode authorizationCode = mock(AuthorizationCode.class);
+        customParameters.put(SSOAgentConstants.ID_TOKEN, ID_TOKEN);
+
         TokenResponse tokenResponse = mock(TokenResponse.class);
         AccessTokenResponse accessTokenResponse = mock(AccessTokenResponse.class);
-        when(ServletUtils.createHTTPRequest(request)).thenReturn(httpRequest);
-        when(AuthorizationResponse.parse(httpRequest)).thenReturn(authorizationResponse);
-        when(authorizationResponse.indicatesSuccess()).thenReturn(true);
-        when(authorizationResponse.toSuccessResponse()).thenReturn(successResponse);
-        when(successResponse.getAuthorizationCode()).thenReturn(authorizationCode);
+        when(request.getParameter(SSOAgentConstants.CODE)).thenReturn("sampleCode");
         when(TokenResponse.parse((HTTPResponse) any())).thenReturn(tokenResponse);
         when(tokenResponse.indicatesSuccess()).thenReturn(true);
         when(tokenResponse.toSuccessResponse()).thenReturn(accessTokenResponse);
@@ -188,18 +299,38 @@ public class DefaultOIDCManagerTest extends PowerMockTestCase {
         HttpSession session = mock(HttpSession.class);
         when(request.getSession(false)).thenReturn(session);
         when(session.getAttribute(SSOAgentConstants.NONCE)).thenReturn(new Nonce());
-        RequestContext requestContext = new RequestContext(new State("state"), new Nonce());
+        return tokens;
+    }
 
-        OIDCManager oidcManager = new DefaultOIDCManager(oidcAgentConfig);
-        SessionContext sessionContext = oidcManager.handleOIDCCallback(request, response, requestContext);
+    private void assertAuthenticated(SessionContext sessionContext, Tokens tokens) {
 
-        assertEquals(sessionContext.getAccessToken(), accessToken.toJSONString());
-        assertEquals(sessionContext.getRefreshToken(), refreshToken.getValue());
-        assertEquals(sessionContext.getIdToken(), parsedIdToken);
+        assertEquals(sessionContext.getAccessToken(), tokens.getAccessToken().toJSONString());
+        assertEquals(sessionContext.getRefreshToken(), tokens.getRefreshToken().getValue());
+        assertEquals(sessionContext.getIdToken(), ID_TOKEN);
         assertEquals(sessionContext.getUser().getSubject(), "alex@carbon.super");
-        mockedAuthorizationResponse.close();
-        mockedServletUtils.close();
-        mockedTokenResponse.close();
+    }
+
+    private AccessToken mockRefreshTokenResponse() throws Exception {
+
+        AccessToken accessToken = new BearerAccessToken("renewedAccessToken", 3600L, null);
+        TokenResponse tokenResponse = mock(TokenResponse.class);
+        AccessTokenResponse accessTokenResponse = mock(AccessTokenResponse.class);
+        when(TokenResponse.parse(any(HTTPResponse.class))).thenReturn(tokenResponse);
+        when(tokenResponse.indicatesSuccess()).thenReturn(true);
+        when(tokenResponse.toSuccessResponse()).thenReturn(accessTokenResponse);
+        when(accessTokenResponse.getTokens()).thenReturn(new Tokens(accessToken, null));
+        when(accessTokenResponse.getCustomParameters()).thenReturn(new HashMap<>());
+        return accessToken;
+    }
+
+    private SessionContext getLoggedInSessionContext() {
+
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setUser(new User("alex@carbon.super", new HashMap<>()));
+        sessionContext.setAccessToken("sampleAccessToken");
+        sessionContext.setRefreshToken("sampleRefreshToken");
+        sessionContext.setIdToken("sampleIdToken");
+        return sessionContext;
     }
 
     @Test
@@ -208,6 +339,7 @@ public class DefaultOIDCManagerTest extends PowerMockTestCase {
         oidcAgentConfig.setPostLogoutRedirectURI(null);
         OIDCManager oidcManager = new DefaultOIDCManager(oidcAgentConfig);
         oidcManager.logout(sessionContext, response);
+        assertNull(oidcAgentConfig.getPostLogoutRedirectURI());
     }
 
     @Test
@@ -219,6 +351,18 @@ public class DefaultOIDCManagerTest extends PowerMockTestCase {
         oidcManager.logout(sessionContext, response);
     }
 
+    @Test
+    public void testUpdateConfig() throws Exception {
+
+        DefaultOIDCManager oidcManager = new DefaultOIDCManager(oidcAgentConfig);
+        URI callbackURL = new URI("http://localhost:8080/other-app/oauth2client");
+        oidcAgentConfig.setCallbackUrl(callbackURL);
+
+        assertNotEquals(oidcManager.getOidcAgentConfig().getCallbackUrl(), callbackURL);
+        oidcManager.updateConfig(oidcAgentConfig);
+        assertEquals(oidcManager.getOidcAgentConfig().getCallbackUrl(), callbackURL);
+    }
+
     @AfterMethod
     public void tearDown() {
 
@@ -39,6 +39,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.verify;
@@ -85,7 +87,7 @@ public class HTTPSessionBasedOIDCProcessorTest extends PowerMockTestCase {
         mockedOIDCManagerFactory = mockStatic(DefaultOIDCManagerFactory.class);
         when(DefaultOIDCManagerFactory.createOIDCManager(oidcAgentConfig)).thenReturn(defaultOIDCManager);
         when(request.getSession()).thenReturn(session);
-        when(defaultOIDCManager.sendForLogin(request, response)).thenReturn(requestContext);
+        when(defaultOIDCManager.sendForLogin(eq(request), any(HttpServletResponse.class))).thenReturn(requestContext);
 
         HTTPSessionBasedOIDCProcessor provider = new HTTPSessionBasedOIDCProcessor(oidcAgentConfig);
         provider.sendForLogin(request, response);
@@ -125,7 +127,7 @@ public class HTTPSessionBasedOIDCProcessorTest extends PowerMockTestCase {
         when(request.getSession()).thenReturn(session);
         when(request.getSession(false)).thenReturn(session);
         when(session.getAttribute(SSOAgentConstants.SESSION_CONTEXT)).thenReturn(sessionContext);
-        when(defaultOIDCManager.logout(sessionContext, response)).thenReturn(requestContext);
+        when(defaultOIDCManager.logout(eq(sessionContext), any(HttpServletResponse.class))).thenReturn(requestContext);
 
         HTTPSessionBasedOIDCProcessor provider = new HTTPSessionBasedOIDCProcessor(oidcAgentConfig);
         provider.logout(request, response);
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk;
+
+import io.asgardeo.java.oidc.sdk.config.model.ImmutableOIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentException;
+import io.asgardeo.java.oidc.sdk.request.RouteTable;
+import org.mockito.Mockito;
+import org.mockito.MockedStatic;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertSame;
+
+public class OIDCAgentFilterTest {
+
+    private HTTPSessionBasedOIDCProcessor oidcProcessor;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private FilterChain filterChain;
+    private OIDCAgentFilter filter;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        OIDCAgentConfig oidcAgentConfig = new OIDCAgentConfig();
+        oidcAgentConfig.setCallbackUrl(new URI("http://localhost:8080/sample-app/oauth2client"));
+        oidcAgentConfig.setLogoutURL("logout");
+        oidcAgentConfig.setIndexPage("/sample-app/index.html");
+        oidcAgentConfig.setErrorPage("/sample-app/error.html");
+        oidcAgentConfig.setSkipURIs(new HashSet<>(Arrays.asList("/sample-app/index.html", "/sample-app/static/*",
+                "*.css")));
+
+        oidcProcessor = mock(HTTPSessionBasedOIDCProcessor.class);
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        filterChain = mock(FilterChain.class);
+        filter = new OIDCAgentFilter(oidcAgentConfig, oidcProcessor);
+    }
+
+    @Test
+    public void testSkipURIIsPassedDown() throws Exception {
+
+        mockRequest("/index.html", "/sample-app/index.html");
+        filter.doFilter(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        verify(oidcProcessor, never()).isAuthenticated(request);
+    }
+
+    @Test
+    public void testUnauthenticatedRequestIsSentForLogin() throws Exception {
+
+        mockRequest("/home.jsp", "/sample-app/home.jsp");
+        when(oidcProcessor.isAuthenticated(request)).thenReturn(false);
+        filter.doFilter(request, response, filterChain);
+
+        verify(oidcProcessor).sendForLogin(request, response);
+        verify(filterChain, never()).doFilter(request, response);
+    }
+
+    @Test
+    public void testAuthenticatedRequestIsPassedDown() throws Exception {
+
+        mockRequest("/home.jsp", "/sample-app/home.jsp");
+        when(oidcProcessor.isAuthenticated(request)).thenReturn(true);
+        filter.doFilter(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void testCallbackRedirectsToIndexPage() throws Exception {
+
+        mockRequest("/oauth2client", "/sample-app/oauth2client");
+        when(request.getParameter("code")).thenReturn("authorizationCode");
+        filter.doFilter(request, response, filterChain);
+
+        verify(oidcProcessor).handleOIDCCallback(request, response);
+        verify(response).sendRedirect("/sample-app/index.html");
+    }
+
+    @Test
+    public void testLogoutRoundTripRedirectsToIndexPage() throws Exception {
+
+        mockRequest("/logout", "/sample-app/logout");
+        filter.doFilter(request, response, filterChain);
+        verify(oidcProcessor).logout(request, response);
+
+        // The OP returns to the callback URL, the default post logout redirection URI, with the state only.
+        HttpServletRequest postLogoutRequest = mock(HttpServletRequest.class);
+        when(postLogoutRequest.getContextPath()).thenReturn("/sample-app");
+        when(postLogoutRequest.getServletPath()).thenReturn("/oauth2client");
+        when(postLogoutRequest.getParameter("state")).thenReturn("logoutState");
+        filter.doFilter(postLogoutRequest, response, filterChain);
+
+        verify(oidcProcessor, never()).handleOIDCCallback(postLogoutRequest, response);
+        verify(response).sendRedirect("/sample-app/index.html");
+        verify(response, never()).sendRedirect("/sample-app/error.html");
+    }
+
+    @Test
+    public void testErrorResponseIsHandledAsCallback() throws Exception {
+
+        mockRequest("/oauth2client", "/sample-app/oauth2client");
+        when(request.getParameter("error")).thenReturn("access_denied");
+        doThrow(new SSOAgentException("Authentication failed.")).when(oidcProcessor)
+                .handleOIDCCallback(request, response);
+        filter.doFilter(request, response, filterChain);
+
+        verify(response).sendRedirect("/sample-app/error.html");
+    }
+
+    @Test
+    public void testFailedLogoutRedirectsToErrorPage() throws Exception {
+
+        mockRequest("/logout", "/sample-app/logout");
+        doThrow(new SSOAgentException("Session context null.")).when(oidcProcessor).logout(request, response);
+        filter.doFilter(request, response, filterChain);
+
+        verify(response).sendRedirect("/sample-app/error.html");
+    }
+
+    @Test
+    public void testDotSegmentsDoNotMatchSkipURI() throws Exception {
+
+        mockRequest("/secret.jsp", "/sample-app/static/../secret.jsp");
+        when(oidcProcessor.isAuthenticated(request)).thenReturn(false);
+        filter.doFilter(request, response, filterChain);
+
+        verify(oidcProcessor).sendForLogin(request, response);
+        verify(filterChain, never()).doFilter(request, response);
+    }
+
+    @Test
+    public void testPathParametersDoNotMatchSkipURI() throws Exception {
+
+        mockRequest("/secret.jsp", "/sample-app/secret.jsp;.css");
+        when(oidcProcessor.isAuthenticated(request)).thenReturn(false);
+        filter.doFilter(request, response, filterChain);
+
+        verify(oidcProcessor).sendForLogin(request, response);
+        verify(filterChain, never()).doFilter(request, response);
+    }
+
+    @Test
+    public void testPathInfoIsRouted() throws Exception {
+
+        when(request.getContextPath()).thenReturn("/sample-app");
+        when(request.getServletPath()).thenReturn("/static");
+        when(request.getPathInfo()).thenReturn("/app.js");
+        when(request.getRequestURI()).thenReturn("/sample-app/static/app.js");
+        filter.doFilter(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        verify(oidcProcessor, never()).isAuthenticated(request);
+    }
+
+    @Test
+    public void testReloadedConfigurationIsRouted() throws Exception {
+
+        OIDCAgentConfig oidcAgentConfig = new OIDCAgentConfig();
+        oidcAgentConfig.setCallbackUrl(new URI("http://localhost:8080/sample-app/oauth2client"));
+        oidcAgentConfig.setSkipURIs(Collections.singleton("/sample-app/index.html"));
+        DefaultOIDCManager oidcManager = mock(DefaultOIDCManager.class);
+        when(oidcManager.getOidcAgentConfig()).thenReturn(ImmutableOIDCAgentConfig.of(oidcAgentConfig));
+        when(oidcProcessor.getOIDCManager()).thenReturn(oidcManager);
+        assertSame(filter.getOIDCManager(), oidcManager);
+
+        mockRequest("/home.jsp", "/sample-app/home.jsp");
+        filter.doFilter(request, response, filterChain);
+        verify(oidcProcessor).sendForLogin(request, response);
+
+        oidcAgentConfig.setSkipURIs(Collections.singleton("/sample-app/home.jsp"));
+        when(oidcManager.getOidcAgentConfig()).thenReturn(ImmutableOIDCAgentConfig.of(oidcAgentConfig));
+        filter.doFilter(request, response, filterChain);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void testRouteTableIsNotRebuiltOnFirstRequest() throws Exception {
+
+        OIDCAgentConfig oidcAgentConfig = new OIDCAgentConfig();
+        oidcAgentConfig.setCallbackUrl(new URI("http://localhost:8080/sample-app/oauth2client"));
+        DefaultOIDCManager oidcManager = mock(DefaultOIDCManager.class);
+        when(oidcManager.getOidcAgentConfig()).thenReturn(ImmutableOIDCAgentConfig.of(oidcAgentConfig));
+        when(oidcProcessor.getOIDCManager()).thenReturn(oidcManager);
+
+        try (MockedStatic<RouteTable> mockedRouteTable = mockStatic(RouteTable.class, Mockito.CALLS_REAL_METHODS)) {
+            OIDCAgentFilter oidcAgentFilter = new OIDCAgentFilter(oidcAgentConfig, oidcProcessor);
+            mockRequest("/home.jsp", "/sample-app/home.jsp");
+            oidcAgentFilter.doFilter(request, response, filterChain);
+            oidcAgentFilter.doFilter(request, response, filterChain);
+
+            mockedRouteTable.verify(times(1), () -> RouteTable.of(any(OIDCAgentConfig.class)));
+        }
+    }
+
+    private void mockRequest(String servletPath, String requestURI) {
+
+        when(request.getContextPath()).thenReturn("/sample-app");
+        when(request.getServletPath()).thenReturn(servletPath);
+        when(request.getRequestURI()).thenReturn(requestURI);
+    }
+}
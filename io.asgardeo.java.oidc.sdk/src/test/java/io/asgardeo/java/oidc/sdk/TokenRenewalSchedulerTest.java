@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk;
+
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentException;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionEvent;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TokenRenewalSchedulerTest {
+
+    @Test
+    public void testRenewalAheadOfExpiry() throws Exception {
+
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setRefreshToken("sampleRefreshToken");
+        sessionContext.setAccessTokenExpiryTime(System.currentTimeMillis() + 1000L);
+        SessionContext renewedSessionContext = new SessionContext();
+
+        AsyncOIDCManager oidcManager = mock(AsyncOIDCManager.class);
+        when(oidcManager.refreshAsync(sessionContext))
+                .thenReturn(CompletableFuture.completedFuture(renewedSessionContext));
+        BlockingQueue<SessionContext> renewed = new ArrayBlockingQueue<>(1);
+
+        try (TokenRenewalScheduler scheduler = new TokenRenewalScheduler(oidcManager, 60000L)) {
+            assertTrue(scheduler.schedule("sessionId", sessionContext, renewed::offer));
+            assertSame(renewed.poll(5, TimeUnit.SECONDS), renewedSessionContext);
+        }
+    }
+
+    @Test
+    public void testSessionWithoutRefreshTokenIsNotScheduled() {
+
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setAccessTokenExpiryTime(System.currentTimeMillis() + 1000L);
+
+        try (TokenRenewalScheduler scheduler = new TokenRenewalScheduler(mock(AsyncOIDCManager.class), 60000L)) {
+            assertFalse(scheduler.schedule("sessionId", sessionContext, renewedSessionContext -> {
+            }));
+        }
+    }
+
+    @Test
+    public void testShortLivedAccessTokensAreNotRenewedInALoop() throws Exception {
+
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setRefreshToken("sampleRefreshToken");
+        sessionContext.setAccessTokenExpiryTime(System.currentTimeMillis() + 1000L);
+
+        // The OP issues access tokens which expire within the renewal-ahead time.
+        AtomicInteger refreshCount = new AtomicInteger();
+        AsyncOIDCManager oidcManager = mock(AsyncOIDCManager.class);
+        when(oidcManager.refreshAsync(any(SessionContext.class))).thenAnswer(invocation -> {
+            refreshCount.incrementAndGet();
+            SessionContext renewedSessionContext = new SessionContext();
+            renewedSessionContext.setRefreshToken("sampleRefreshToken");
+            renewedSessionContext.setAccessTokenExpiryTime(System.currentTimeMillis() + 1000L);
+            return CompletableFuture.completedFuture(renewedSessionContext);
+        });
+
+        try (TokenRenewalScheduler scheduler = new TokenRenewalScheduler(oidcManager, 60000L, 200L)) {
+            assertTrue(scheduler.schedule("sessionId", sessionContext, renewedSessionContext -> {
+            }));
+            Thread.sleep(500L);
+        }
+        assertTrue(refreshCount.get() >= 2 && refreshCount.get() <= 4, "Renewals: " + refreshCount.get());
+    }
+
+    @Test
+    public void testFailedRenewalIsRetriedWithBackoff() throws Exception {
+
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setRefreshToken("sampleRefreshToken");
+        sessionContext.setAccessTokenExpiryTime(System.currentTimeMillis() + 1000L);
+
+        AsyncOIDCManager oidcManager = mock(AsyncOIDCManager.class);
+        BlockingQueue<Long> attempts = new ArrayBlockingQueue<>(TokenRenewalScheduler.MAX_RENEWAL_ATTEMPTS + 1);
+        when(oidcManager.refreshAsync(sessionContext)).thenAnswer(invocation -> {
+            attempts.offer(System.currentTimeMillis());
+            CompletableFuture<SessionContext> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(new SSOAgentException("Token refresh failed."));
+            return failedFuture;
+        });
+
+        try (TokenRenewalScheduler scheduler = new TokenRenewalScheduler(oidcManager, 60000L, 20L)) {
+            scheduler.schedule("sessionId", sessionContext, renewedSessionContext -> {
+            });
+            // 0 + 20 + 40 + 80 + 160 ms of backoff, and no attempt after the last one.
+            Thread.sleep(1000L);
+        }
+
+        List<Long> attemptTimes = new ArrayList<>(attempts);
+        assertEquals(attemptTimes.size(), TokenRenewalScheduler.MAX_RENEWAL_ATTEMPTS);
+        for (int i = 1; i < attemptTimes.size(); i++) {
+            assertTrue(attemptTimes.get(i) - attemptTimes.get(i - 1) >= 20L << (i - 1));
+        }
+    }
+
+    @Test
+    public void testRenewalIsCancelledWhenHttpSessionIsDestroyed() throws Exception {
+
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setRefreshToken("sampleRefreshToken");
+        // The renewal is due in a second, leaving time to destroy the session before it runs.
+        sessionContext.setAccessTokenExpiryTime(System.currentTimeMillis() + 61000L);
+        AsyncOIDCManager oidcManager = mock(AsyncOIDCManager.class);
+        HttpSession session = mock(HttpSession.class);
+        when(session.getId()).thenReturn("sessionId");
+
+        try (TokenRenewalScheduler scheduler = new TokenRenewalScheduler(oidcManager, 60000L)) {
+            assertTrue(scheduler.schedule("sessionId", sessionContext, renewedSessionContext -> {
+            }));
+            scheduler.sessionDestroyed(new HttpSessionEvent(session));
+            Thread.sleep(1500L);
+        }
+        verify(oidcManager, never()).refreshAsync(any(SessionContext.class));
+    }
+
+    @Test
+    public void testRenewalCancelledWhileCompletingIsNotRescheduled() throws Exception {
+
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setRefreshToken("sampleRefreshToken");
+        sessionContext.setAccessTokenExpiryTime(System.currentTimeMillis() + 1000L);
+
+        AtomicInteger refreshCount = new AtomicInteger();
+        AsyncOIDCManager oidcManager = mock(AsyncOIDCManager.class);
+        when(oidcManager.refreshAsync(any(SessionContext.class))).thenAnswer(invocation -> {
+            refreshCount.incrementAndGet();
+            SessionContext renewedSessionContext = new SessionContext();
+            renewedSessionContext.setRefreshToken("sampleRefreshToken");
+            renewedSessionContext.setAccessTokenExpiryTime(System.currentTimeMillis() + 1000L);
+            return CompletableFuture.completedFuture(renewedSessionContext);
+        });
+
+        try (TokenRenewalScheduler scheduler = new TokenRenewalScheduler(oidcManager, 60000L, 100L)) {
+            // The session is logged out while the renewed session context is handed to the listener.
+            assertTrue(scheduler.schedule("sessionId", sessionContext,
+                    renewedSessionContext -> scheduler.cancel("sessionId")));
+            Thread.sleep(500L);
+        }
+        assertEquals(refreshCount.get(), 1);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.bean;
+
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.openid.connect.sdk.Nonce;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class BeanSerializationTest {
+
+    @Test
+    public void testSessionContextRoundTrip() throws Exception {
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("email", "alice@example.com");
+        attributes.put("email_verified", true);
+        attributes.put("updated_at", 1600000000L);
+        attributes.put("groups", Arrays.asList("admin", "dev"));
+        attributes.put("address", Collections.singletonMap("country", "LK"));
+        attributes.put("birthdate", new Date(0L));
+        attributes.put("locale", null);
+
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setUser(new User("alice", attributes));
+        sessionContext.setAccessToken("accessToken");
+        sessionContext.setRefreshToken("refreshToken");
+        sessionContext.setIdToken("idToken");
+        sessionContext.setAccessTokenExpiryTime(1234L);
+
+        SessionContext restored = roundTrip(sessionContext);
+
+        assertEquals(restored.getAccessToken(), "accessToken");
+        assertEquals(restored.getRefreshToken(), "refreshToken");
+        assertEquals(restored.getIdToken(), "idToken");
+        assertEquals(restored.getAccessTokenExpiryTime(), 1234L);
+        assertEquals(restored.getUser().getSubject(), "alice");
+        assertEquals(restored.getUser().getAttributes(), attributes);
+    }
+
+    @Test
+    public void testEmptySessionContextRoundTrip() throws Exception {
+
+        SessionContext restored = roundTrip(new SessionContext());
+
+        assertNull(restored.getUser());
+        assertNull(restored.getAccessToken());
+    }
+
+    @Test
+    public void testRequestContextRoundTrip() throws Exception {
+
+        RequestContext requestContext = new RequestContext(new State("state"), new Nonce("nonce"));
+        requestContext.setParameter("redirect", "/home");
+        List<Integer> values = Arrays.asList(1, 2);
+        requestContext.setParameter("values", values);
+
+        RequestContext restored = roundTrip(requestContext);
+
+        assertEquals(restored.getState(), new State("state"));
+        assertEquals(restored.getNonce(), new Nonce("nonce"));
+        assertEquals(restored.getParameter("redirect"), "/home");
+        assertEquals(restored.getParameter("values"), values);
+    }
+
+    @Test(expectedExceptions = InvalidObjectException.class)
+    public void testUnknownVersionIsRejected() throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeByte(2);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            new User().readExternal(in);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T value) throws Exception {
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialize(value)))) {
+            return (T) in.readObject();
+        }
+    }
+
+    private static byte[] serialize(Object value) throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -18,12 +18,15 @@
 
 package io.asgardeo.java.oidc.sdk.bean;
 
+import com.nimbusds.jwt.JWTClaimsSet;
 import org.testng.annotations.Test;
 
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 
 /**
  * Unit tests for User model.
@@ -45,4 +48,22 @@ public class UserTest {
 
         assertEquals(user.getAttributes(), attributes);
     }
+
+    @Test
+    public void testAttributesFromClaimsSet() {
+
+        JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+                .subject(subject)
+                .issuer("https://localhost:9443/oauth2/token")
+                .claim("email", "alice@example.com")
+                .build();
+        User claimsUser = new User(subject, claimsSet);
+
+        assertEquals(claimsUser.getAttribute("email"), "alice@example.com");
+        assertNull(claimsUser.getAttribute("iss"));
+        assertEquals(claimsUser.getAttributes().size(), 1);
+        assertEquals(claimsUser.getAttributes().get("email"), "alice@example.com");
+        assertFalse(claimsUser.getAttributes().containsKey("sub"));
+        assertEquals(claimsUser.getAttribute("email"), "alice@example.com");
+    }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.cache;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class CachedJWKSourceTest {
+
+    private URI jwksEndpoint;
+    private StubResourceRetriever resourceRetriever;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        jwksEndpoint = new URI("http://localhost/jwksEP");
+        resourceRetriever = new StubResourceRetriever();
+    }
+
+    @Test
+    public void testCachedJWKSetIsReused() throws Exception {
+
+        resourceRetriever.jwkSet = new JWKSet(generateRSAKey("1"));
+        CachedJWKSource jwkSource = new CachedJWKSource(jwksEndpoint, 60000L, 0L, resourceRetriever);
+        JWKSelector selector = new JWKSelector(new JWKMatcher.Builder().keyID("1").build());
+
+        for (int i = 0; i < 5; i++) {
+            List<JWK> keys = jwkSource.get(selector, null);
+            assertEquals(keys.size(), 1);
+        }
+
+        assertEquals(jwkSource.getMissCount(), 1);
+        assertEquals(jwkSource.getHitCount(), 4);
+        assertEquals(resourceRetriever.requestCount, 1);
+    }
+
+    @Test
+    public void testUnknownKeyIDTriggersRefresh() throws Exception {
+
+        resourceRetriever.jwkSet = new JWKSet(generateRSAKey("1"));
+        CachedJWKSource jwkSource = new CachedJWKSource(jwksEndpoint, 60000L, 0L, resourceRetriever);
+        jwkSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("1").build()), null);
+
+        resourceRetriever.jwkSet = new JWKSet(generateRSAKey("2"));
+        List<JWK> keys = jwkSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("2").build()), null);
+
+        assertEquals(keys.size(), 1);
+        assertEquals(keys.get(0).getKeyID(), "2");
+        assertEquals(jwkSource.getMissCount(), 2);
+        assertEquals(resourceRetriever.requestCount, 2);
+    }
+
+    @Test
+    public void testUnknownKeyIDRefreshIsRateLimited() throws Exception {
+
+        resourceRetriever.jwkSet = new JWKSet(generateRSAKey("1"));
+        CachedJWKSource jwkSource = new CachedJWKSource(jwksEndpoint, 60000L, 0L, resourceRetriever);
+
+        jwkSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("2").build()), null);
+        List<JWK> keys = jwkSource.get(new JWKSelector(new JWKMatcher.Builder().keyID("3").build()), null);
+
+        assertTrue(keys.isEmpty());
+        assertEquals(resourceRetriever.requestCount, 2);
+    }
+
+    @Test
+    public void testFailedRefreshIsRetriedAfterInterval() throws Exception {
+
+        resourceRetriever.jwkSet = new JWKSet(generateRSAKey("1"));
+        CachedJWKSource jwkSource = new CachedJWKSource(jwksEndpoint, 100L, 0L, resourceRetriever);
+        JWKSelector selector = new JWKSelector(new JWKMatcher.Builder().keyID("1").build());
+        jwkSource.get(selector, null);
+
+        Thread.sleep(200L);
+        resourceRetriever.unavailable = true;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(jwkSource.get(selector, null).size(), 1);
+        }
+
+        // Only the first lookup after expiry tries the unreachable endpoint, the others are served the last copy.
+        assertEquals(resourceRetriever.requestCount, 2);
+    }
+
+    @Test
+    public void testSameInstancePerEndpoint() {
+
+        CachedJWKSource jwkSource = CachedJWKSource.getInstance(jwksEndpoint, 60000L, 0L);
+        assertTrue(jwkSource == CachedJWKSource.getInstance(jwksEndpoint, 60000L, 0L));
+    }
+
+    @Test
+    public void testChangedSettingsReplaceInstance() {
+
+        CachedJWKSource jwkSource = CachedJWKSource.getInstance(jwksEndpoint, 60000L, 0L);
+        CachedJWKSource replacement = CachedJWKSource.getInstance(jwksEndpoint, 1000L, 0L);
+        assertTrue(jwkSource != replacement);
+        assertTrue(replacement == CachedJWKSource.getInstance(jwksEndpoint, 1000L, 0L));
+        assertTrue(replacement != CachedJWKSource.getInstance(jwksEndpoint, 1000L, 0L, resourceRetriever));
+    }
+
+    @Test
+    public void testInstancePerResourceRetriever() {
+
+        StubResourceRetriever otherResourceRetriever = new StubResourceRetriever();
+        CachedJWKSource jwkSource = CachedJWKSource.getInstance(jwksEndpoint, 60000L, 0L, resourceRetriever);
+        CachedJWKSource otherJWKSource = CachedJWKSource.getInstance(jwksEndpoint, 60000L, 0L,
+                otherResourceRetriever);
+
+        assertTrue(jwkSource != otherJWKSource);
+        assertTrue(jwkSource == CachedJWKSource.getInstance(jwksEndpoint, 60000L, 0L, resourceRetriever));
+        assertTrue(otherJWKSource == CachedJWKSource.getInstance(jwksEndpoint, 60000L, 0L, otherResourceRetriever));
+    }
+
+    private RSAKey generateRSAKey(String keyID) throws Exception {
+
+        KeyPairGenerator pairGen = KeyPairGenerator.getInstance("RSA");
+        pairGen.initialize(2048);
+        KeyPair keyPair = pairGen.generateKeyPair();
+        return new RSAKey.Builder((RSAPublicKey) keyPair.getPublic()).keyID(keyID).build();
+    }
+
+    private static class StubResourceRetriever implements ResourceRetriever {
+
+        private JWKSet jwkSet;
+        private int requestCount;
+        private boolean unavailable;
+
+        @Override
+        public Resource retrieveResource(URL url) throws IOException {
+
+            requestCount++;
+            if (unavailable) {
+                throw new IOException("Connection refused.");
+            }
+            return new Resource(jwkSet.toJSONObject(true).toJSONString(), "application/json");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.cache;
+
+import com.nimbusds.oauth2.sdk.http.HTTPRequest;
+import com.nimbusds.oauth2.sdk.http.HTTPResponse;
+import com.nimbusds.openid.connect.sdk.op.OIDCProviderMetadata;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentServerException;
+import io.asgardeo.java.oidc.sdk.http.HTTPTransport;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+public class ProviderMetadataCacheTest {
+
+    private static final String METADATA = "{\"issuer\":\"https://localhost:9443/oauth2/token\"," +
+            "\"authorization_endpoint\":\"https://localhost:9443/oauth2/authorize\"," +
+            "\"token_endpoint\":\"https://localhost:9443/oauth2/token\"," +
+            "\"jwks_uri\":\"https://localhost:9443/oauth2/jwks\"," +
+            "\"end_session_endpoint\":\"https://localhost:9443/oidc/logout\"," +
+            "\"response_types_supported\":[\"code\"],\"subject_types_supported\":[\"public\"]," +
+            "\"id_token_signing_alg_values_supported\":[\"RS256\"]}";
+
+    private StubHTTPTransport httpTransport;
+    private ProviderMetadataCache metadataCache;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        httpTransport = new StubHTTPTransport();
+        metadataCache = new ProviderMetadataCache(new URI("https://localhost:9443/.well-known/openid-configuration"));
+    }
+
+    @Test
+    public void testMetadataIsCached() throws Exception {
+
+        OIDCProviderMetadata metadata = metadataCache.get(httpTransport, 60000L);
+
+        assertEquals(metadata.getTokenEndpointURI().toString(), "https://localhost:9443/oauth2/token");
+        assertSame(metadataCache.get(httpTransport, 60000L), metadata);
+        assertEquals(httpTransport.requests.size(), 1);
+    }
+
+    @Test
+    public void testConditionalRevalidation() throws Exception {
+
+        OIDCProviderMetadata metadata = metadataCache.get(httpTransport, 0L);
+        httpTransport.statusCode = 304;
+
+        assertSame(metadataCache.get(httpTransport, 0L), metadata);
+        assertEquals(httpTransport.requests.size(), 2);
+        assertNull(httpTransport.requests.get(0).getHeaderValue("If-None-Match"));
+        assertEquals(httpTransport.requests.get(1).getHeaderValue("If-None-Match"), "\"v1\"");
+    }
+
+    @Test
+    public void testLastGoodCopyOnFailure() throws Exception {
+
+        OIDCProviderMetadata metadata = metadataCache.get(httpTransport, 0L);
+        httpTransport.fail = true;
+
+        assertSame(metadataCache.get(httpTransport, 0L), metadata);
+        // The failed refresh is not retried within the retry interval.
+        assertSame(metadataCache.get(httpTransport, 0L), metadata);
+        assertEquals(httpTransport.requests.size(), 2);
+    }
+
+    @Test(expectedExceptions = SSOAgentServerException.class)
+    public void testFailureWithoutEarlierCopy() throws Exception {
+
+        httpTransport.fail = true;
+        metadataCache.get(httpTransport, 60000L);
+    }
+
+    private static class StubHTTPTransport implements HTTPTransport {
+
+        private final List<HTTPRequest> requests = new ArrayList<>();
+        private int statusCode = 200;
+        private boolean fail;
+
+        @Override
+        public HTTPResponse send(HTTPRequest httpRequest) throws IOException {
+
+            requests.add(httpRequest);
+            if (fail) {
+                throw new IOException("Connection refused");
+            }
+            HTTPResponse httpResponse = new HTTPResponse(statusCode);
+            httpResponse.setHeader("ETag", "\"v1\"");
+            if (statusCode == 200) {
+                try {
+                    httpResponse.setContentType("application/json");
+                } catch (com.nimbusds.oauth2.sdk.ParseException e) {
+                    throw new IOException(e);
+                }
+                httpResponse.setContent(METADATA);
+            }
+            return httpResponse;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.cache;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+public class VerifiedTokenCacheTest {
+
+    @Test
+    public void testCachedClaimsAreReturned() {
+
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        JWTClaimsSet claimsSet = claims(3600000L);
+
+        cache.put("token1", claimsSet);
+
+        assertSame(cache.get("token1"), claimsSet);
+        assertNull(cache.get("token2"));
+    }
+
+    @Test
+    public void testExpiredClaimsAreRemoved() throws Exception {
+
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("token1", claims(50L));
+        cache.put("token2", claims(-1000L));
+        cache.put("token3", new JWTClaimsSet.Builder().subject("alice").build());
+        assertEquals(cache.size(), 1);
+
+        Thread.sleep(100L);
+
+        assertNull(cache.get("token1"));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testOldestEntriesAreEvicted() {
+
+        VerifiedTokenCache cache = new VerifiedTokenCache(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("token" + i, claims(3600000L));
+        }
+
+        assertEquals(cache.size(), 100);
+        assertNull(cache.get("token0"));
+        assertNull(cache.get("token899"));
+        assertEquals(cache.get("token900").getSubject(), "alice");
+        assertEquals(cache.get("token999").getSubject(), "alice");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidMaxEntries() {
+
+        new VerifiedTokenCache(0);
+    }
+
+    private JWTClaimsSet claims(long timeToLive) {
+
+        return new JWTClaimsSet.Builder()
+                .subject("alice")
+                .expirationTime(new Date(System.currentTimeMillis() + timeToLive))
+                .build();
+    }
+}
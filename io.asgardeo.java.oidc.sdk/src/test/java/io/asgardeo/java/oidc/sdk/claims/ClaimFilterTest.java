@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.claims;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.asgardeo.java.oidc.sdk.bean.User;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class ClaimFilterTest {
+
+    private final JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+            .subject("alice")
+            .issuer("https://localhost:9443/oauth2/token")
+            .claim("email", "alice@example.com")
+            .claim("given_name", "Alice")
+            .claim("groups", Arrays.asList("admin", "dev"))
+            .build();
+
+    @Test
+    public void testDefaultFilterDropsMetadataClaims() {
+
+        Map<String, Object> attributes = ClaimFilter.DEFAULT.filter(claimsSet.getClaims());
+
+        assertEquals(attributes.keySet(), new HashSet<>(Arrays.asList("email", "given_name", "groups")));
+        assertTrue(ClaimFilter.DEFAULT.retainsAllClaims());
+    }
+
+    @Test
+    public void testRetainedClaims() {
+
+        ClaimFilter claimFilter = new ClaimFilter(new HashSet<>(Arrays.asList("email", "sub")), null);
+        Map<String, Object> attributes = claimFilter.filter(claimsSet.getClaims());
+
+        assertEquals(attributes.keySet(), Collections.singleton("email"));
+        assertFalse(claimFilter.retainsAllClaims());
+    }
+
+    @Test
+    public void testExcludedClaims() {
+
+        ClaimFilter claimFilter = new ClaimFilter(null, Collections.singleton("groups"));
+        Map<String, Object> attributes = claimFilter.filter(claimsSet.getClaims());
+
+        assertEquals(attributes.keySet(), new HashSet<>(Arrays.asList("email", "given_name")));
+    }
+
+    @Test
+    public void testExcludedClaimsTakePrecedence() {
+
+        ClaimFilter claimFilter = new ClaimFilter(new HashSet<>(Arrays.asList("email", "groups")),
+                Collections.singleton("groups"));
+
+        assertTrue(claimFilter.isRetained("email"));
+        assertFalse(claimFilter.isRetained("groups"));
+        assertFalse(claimFilter.isRetained("given_name"));
+    }
+
+    @Test
+    public void testGetInstance() {
+
+        OIDCAgentConfig oidcAgentConfig = new OIDCAgentConfig();
+        assertTrue(ClaimFilter.getInstance(oidcAgentConfig) == ClaimFilter.DEFAULT);
+
+        oidcAgentConfig.setExcludedClaims(Collections.singleton("groups"));
+        assertFalse(ClaimFilter.getInstance(oidcAgentConfig).isRetained("groups"));
+    }
+
+    @Test
+    public void testUserWithProjectedClaims() {
+
+        User user = new User("alice", claimsSet, new ClaimFilter(Collections.singleton("email"), null));
+
+        assertEquals(user.getAttribute("email"), "alice@example.com");
+        assertNull(user.getAttribute("groups"));
+        assertEquals(user.getAttributes().size(), 1);
+    }
+}
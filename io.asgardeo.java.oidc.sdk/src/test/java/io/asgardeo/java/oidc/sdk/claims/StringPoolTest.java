@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.claims;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class StringPoolTest {
+
+    @Test
+    public void testEqualStringsShareInstance() {
+
+        StringPool stringPool = new StringPool(4);
+        String first = new String("carbon.super");
+        String second = new String("carbon.super");
+
+        assertSame(stringPool.intern(first), first);
+        assertSame(stringPool.intern(second), first);
+        assertEquals(stringPool.size(), 1);
+        assertNull(stringPool.intern(null));
+    }
+
+    @Test
+    public void testClaimsAreInterned() throws Exception {
+
+        StringPool stringPool = new StringPool(4);
+        ClaimFilter claimFilter = new ClaimFilter(null, null, stringPool);
+        Map<String, Object> first = claimFilter.filter(getClaimsSet().getClaims());
+        Map<String, Object> second = claimFilter.filter(getClaimsSet().getClaims());
+
+        assertTrue(claimFilter.internsClaims());
+        assertSame(first.get("tenant"), second.get("tenant"));
+        assertSame(((List<?>) first.get("groups")).get(0), ((List<?>) second.get("groups")).get(0));
+        assertSame(first.keySet().iterator().next(), second.keySet().iterator().next());
+        assertEquals(first, second);
+    }
+
+    private static JWTClaimsSet getClaimsSet() throws Exception {
+
+        // Parsed from JSON, so that every claims set holds distinct string instances.
+        return JWTClaimsSet.parse("{\"sub\":\"alice\",\"tenant\":\"carbon.super\"," +
+                "\"groups\":[\"admin\",\"dev\"]}");
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.config;
+
+import com.nimbusds.common.contenttype.ContentType;
+import com.nimbusds.oauth2.sdk.http.HTTPResponse;
+import com.nimbusds.oauth2.sdk.id.Issuer;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
+import io.asgardeo.java.oidc.sdk.http.HTTPTransport;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+public class DiscoveryBasedOIDCConfigProviderTest {
+
+    private static final String METADATA = "{\"issuer\":\"https://discovery.test/oauth2/token\"," +
+            "\"authorization_endpoint\":\"https://discovery.test/oauth2/authorize\"," +
+            "\"token_endpoint\":\"https://discovery.test/oauth2/token\"," +
+            "\"jwks_uri\":\"https://discovery.test/oauth2/jwks\"," +
+            "\"end_session_endpoint\":\"https://discovery.test/oidc/logout\"," +
+            "\"response_types_supported\":[\"code\"],\"subject_types_supported\":[\"public\"]," +
+            "\"id_token_signing_alg_values_supported\":[\"RS256\"]}";
+
+    @Test
+    public void testDiscoveredEndpoints() throws Exception {
+
+        OIDCAgentConfig oidcAgentConfig = new OIDCAgentConfig();
+        oidcAgentConfig.setIssuer(new Issuer("https://discovery.test/oauth2/token"));
+        oidcAgentConfig.setTokenEndpoint(new URI("https://discovery.test/custom/token"));
+        List<String> requestedURLs = new ArrayList<>();
+        HTTPTransport httpTransport = httpRequest -> {
+            requestedURLs.add(httpRequest.getURL().toString());
+            HTTPResponse httpResponse = new HTTPResponse(HTTPResponse.SC_OK);
+            httpResponse.setEntityContentType(ContentType.APPLICATION_JSON);
+            httpResponse.setContent(METADATA);
+            return httpResponse;
+        };
+
+        DiscoveryBasedOIDCConfigProvider configProvider =
+                new DiscoveryBasedOIDCConfigProvider(() -> oidcAgentConfig, httpTransport);
+        OIDCAgentConfig discoveredConfig = configProvider.getOidcAgentConfig();
+
+        assertEquals(requestedURLs.get(0), "https://discovery.test/oauth2/token/.well-known/openid-configuration");
+        assertEquals(discoveredConfig.getAuthorizeEndpoint().toString(), "https://discovery.test/oauth2/authorize");
+        assertEquals(discoveredConfig.getJwksEndpoint().toString(), "https://discovery.test/oauth2/jwks");
+        assertEquals(discoveredConfig.getLogoutEndpoint().toString(), "https://discovery.test/oidc/logout");
+        // Explicitly configured values take precedence over the discovered ones.
+        assertEquals(discoveredConfig.getTokenEndpoint().toString(), "https://discovery.test/custom/token");
+
+        configProvider.refresh();
+        assertEquals(requestedURLs.size(), 1);
+    }
+
+    @Test
+    public void testMismatchedIssuerIsRejected() throws Exception {
+
+        OIDCAgentConfig oidcAgentConfig = new OIDCAgentConfig();
+        oidcAgentConfig.setIssuer(new Issuer("https://other.test/oauth2/token"));
+        oidcAgentConfig.setDiscoveryEndpoint(new URI("https://mismatch.test/.well-known/openid-configuration"));
+        HTTPTransport httpTransport = httpRequest -> {
+            HTTPResponse httpResponse = new HTTPResponse(HTTPResponse.SC_OK);
+            httpResponse.setEntityContentType(ContentType.APPLICATION_JSON);
+            httpResponse.setContent(METADATA);
+            return httpResponse;
+        };
+
+        try {
+            new DiscoveryBasedOIDCConfigProvider(() -> oidcAgentConfig, httpTransport);
+            fail("Provider metadata of another issuer must not be used.");
+        } catch (SSOAgentClientException e) {
+            assertNull(oidcAgentConfig.getAuthorizeEndpoint());
+            assertNull(oidcAgentConfig.getJwksEndpoint());
+        }
+    }
+
+    @Test(expectedExceptions = SSOAgentClientException.class)
+    public void testWithoutIssuerOrDiscoveryEndpoint() throws Exception {
+
+        new DiscoveryBasedOIDCConfigProvider(OIDCAgentConfig::new, httpRequest -> new HTTPResponse(404));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.config;
+
+import io.asgardeo.java.oidc.sdk.DefaultOIDCManager;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class WatchingOIDCConfigProviderTest {
+
+    private static final String CONSUMER_SECRET = "_ebDU3prFV99JYgtbnknB0z0dXoa";
+
+    private Path configDirectory;
+    private Path configFile;
+    private String properties;
+    private WatchingOIDCConfigProvider configProvider;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        configDirectory = Files.createTempDirectory("oidc-config");
+        configFile = configDirectory.resolve("oidc-sample-app.properties");
+        properties = new String(Files.readAllBytes(new File("src/test/resources/oidc-sample-app.properties")
+                .toPath()), StandardCharsets.UTF_8);
+        write(properties);
+        configProvider = new WatchingOIDCConfigProvider(configFile);
+    }
+
+    @Test
+    public void testReloadUpdatesRegisteredManagers() throws Exception {
+
+        DefaultOIDCManager oidcManager = new DefaultOIDCManager(configProvider.getOidcAgentConfig());
+        configProvider.register(oidcManager);
+
+        assertFalse(configProvider.reload());
+        write(properties.replace(CONSUMER_SECRET, "rotatedSecret"));
+
+        assertTrue(configProvider.reload());
+        assertEquals(configProvider.getOidcAgentConfig().getConsumerSecret().getValue(), "rotatedSecret");
+        assertEquals(oidcManager.getOidcAgentConfig().getConsumerSecret().getValue(), "rotatedSecret");
+    }
+
+    @Test
+    public void testInvalidConfigurationIsRejected() throws Exception {
+
+        DefaultOIDCManager oidcManager = new DefaultOIDCManager(configProvider.getOidcAgentConfig());
+        configProvider.register(oidcManager);
+        write(properties.replace("consumerSecret=" + CONSUMER_SECRET, "consumerSecret="));
+
+        try {
+            configProvider.reload();
+            fail("The configuration without a consumer secret must be rejected.");
+        } catch (SSOAgentClientException e) {
+            // Expected.
+        }
+        assertEquals(configProvider.getOidcAgentConfig().getConsumerSecret().getValue(), CONSUMER_SECRET);
+        assertEquals(oidcManager.getOidcAgentConfig().getConsumerSecret().getValue(), CONSUMER_SECRET);
+    }
+
+    @Test
+    public void testChangedFileIsReloaded() throws Exception {
+
+        Path changedFile = configDirectory.resolve("changed.properties");
+        Files.write(changedFile, properties.replace(CONSUMER_SECRET, "rotatedSecret")
+                .getBytes(StandardCharsets.UTF_8));
+        Files.move(changedFile, configFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (!"rotatedSecret".equals(configProvider.getOidcAgentConfig().getConsumerSecret().getValue()) &&
+                System.currentTimeMillis() < deadline) {
+            Thread.sleep(50L);
+        }
+        assertEquals(configProvider.getOidcAgentConfig().getConsumerSecret().getValue(), "rotatedSecret");
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        configProvider.close();
+        Files.deleteIfExists(configFile);
+        Files.deleteIfExists(configDirectory);
+    }
+
+    private void write(String content) throws Exception {
+
+        Files.write(configFile, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.config.model;
+
+import com.nimbusds.oauth2.sdk.Scope;
+import com.nimbusds.oauth2.sdk.id.ClientID;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+public class ImmutableOIDCAgentConfigTest {
+
+    private OIDCAgentConfig oidcAgentConfig;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        oidcAgentConfig = new OIDCAgentConfig();
+        oidcAgentConfig.setConsumerKey(new ClientID("sampleClientId"));
+        oidcAgentConfig.setCallbackUrl(new URI("http://localhost:8080/sample-app/oauth2client"));
+        oidcAgentConfig.setScope(new Scope("openid"));
+        oidcAgentConfig.setSkipURIs(Collections.singleton("/sample-app/index.html"));
+    }
+
+    @Test
+    public void testSnapshotIsDetachedFromSource() throws Exception {
+
+        ImmutableOIDCAgentConfig snapshot = ImmutableOIDCAgentConfig.of(oidcAgentConfig);
+
+        oidcAgentConfig.setConsumerKey(new ClientID("otherClientId"));
+        oidcAgentConfig.getScope().add("profile");
+
+        assertEquals(snapshot.getConsumerKey().getValue(), "sampleClientId");
+        assertEquals(snapshot.getScope(), new Scope("openid"));
+        assertEquals(snapshot.getSkipURIs(), Collections.singleton("/sample-app/index.html"));
+        assertSame(ImmutableOIDCAgentConfig.of(snapshot), snapshot);
+    }
+
+    @Test
+    public void testPostLogoutRedirectURIDefaultsToCallbackUrl() throws Exception {
+
+        ImmutableOIDCAgentConfig snapshot = ImmutableOIDCAgentConfig.of(oidcAgentConfig);
+
+        assertEquals(snapshot.getPostLogoutRedirectURI(), oidcAgentConfig.getCallbackUrl());
+        assertNull(oidcAgentConfig.getPostLogoutRedirectURI());
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testSettersAreNotSupported() {
+
+        ImmutableOIDCAgentConfig.of(oidcAgentConfig).setPostLogoutRedirectURI(null);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testSetsAreUnmodifiable() {
+
+        ImmutableOIDCAgentConfig.of(oidcAgentConfig).getSkipURIs().add("/sample-app/other.html");
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.http;
+
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+public class BackChannelExecutorsTest {
+
+    @Test
+    public void testDefaultExecutor() {
+
+        OIDCAgentConfig oidcAgentConfig = new OIDCAgentConfig();
+        assertSame(BackChannelExecutors.getExecutor(oidcAgentConfig), BackChannelExecutors.getDefaultExecutor());
+    }
+
+    @Test
+    public void testVirtualThreadExecutor() throws Exception {
+
+        OIDCAgentConfig oidcAgentConfig = new OIDCAgentConfig();
+        oidcAgentConfig.setVirtualThreadsEnabled(true);
+        Executor executor = BackChannelExecutors.getExecutor(oidcAgentConfig);
+
+        if (BackChannelExecutors.isVirtualThreadsSupported()) {
+            assertNotSame(executor, BackChannelExecutors.getDefaultExecutor());
+        } else {
+            assertSame(executor, BackChannelExecutors.getDefaultExecutor());
+        }
+        assertEquals(CompletableFuture.supplyAsync(() -> "done", executor).get(), "done");
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.http;
+
+import com.nimbusds.oauth2.sdk.http.HTTPRequest;
+import com.nimbusds.oauth2.sdk.http.HTTPResponse;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import net.jadler.Jadler;
+import org.apache.commons.lang.StringUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URL;
+
+import static net.jadler.Jadler.closeJadler;
+import static net.jadler.Jadler.initJadler;
+import static net.jadler.Jadler.port;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class PooledHTTPTransportTest {
+
+    private PooledHTTPTransport httpTransport;
+
+    @BeforeMethod
+    public void setUp() {
+
+        initJadler();
+        httpTransport = new PooledHTTPTransport(5000, 5000, 2, 2, 60000L);
+    }
+
+    @Test
+    public void testSendPostRequest() throws Exception {
+
+        Jadler.onRequest()
+                .havingMethodEqualTo("POST")
+                .havingPathEqualTo("/token")
+                .havingBodyEqualTo("grant_type=authorization_code&code=sampleCode")
+                .havingHeaderEqualTo("Authorization", "Basic c2FtcGxl")
+                .respond()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"access_token\":\"sampleAccessToken\"}");
+
+        HTTPRequest httpRequest = new HTTPRequest(HTTPRequest.Method.POST,
+                new URL("http://localhost:" + port() + "/token"));
+        httpRequest.setContentType("application/x-www-form-urlencoded");
+        httpRequest.setAuthorization("Basic c2FtcGxl");
+        httpRequest.setQuery("grant_type=authorization_code&code=sampleCode");
+
+        // Sends twice so that the second request is served over the pooled connection.
+        for (int i = 0; i < 2; i++) {
+            HTTPResponse httpResponse = httpTransport.send(httpRequest);
+            assertEquals(httpResponse.getStatusCode(), 200);
+            assertEquals(httpResponse.getEntityContentType().getType(), "application/json");
+            assertEquals(httpResponse.getContentAsJSONObject().getAsString("access_token"), "sampleAccessToken");
+        }
+    }
+
+    @Test
+    public void testProxySystemPropertiesAreHonoured() throws Exception {
+
+        Jadler.onRequest()
+                .havingMethodEqualTo("GET")
+                .havingPathEqualTo("/jwks")
+                .respond()
+                .withStatus(200);
+
+        String proxyHost = System.getProperty("http.proxyHost");
+        String proxyPort = System.getProperty("http.proxyPort");
+        System.setProperty("http.proxyHost", "localhost");
+        System.setProperty("http.proxyPort", String.valueOf(port()));
+        try (PooledHTTPTransport proxiedTransport = new PooledHTTPTransport(5000, 5000, 2, 2, 60000L)) {
+            // The host is not resolvable, hence the request only succeeds through the proxy.
+            HTTPResponse httpResponse = proxiedTransport.send(new HTTPRequest(HTTPRequest.Method.GET,
+                    new URL("http://op.invalid/jwks")));
+            assertEquals(httpResponse.getStatusCode(), 200);
+        } finally {
+            restoreSystemProperty("http.proxyHost", proxyHost);
+            restoreSystemProperty("http.proxyPort", proxyPort);
+        }
+    }
+
+    @Test
+    public void testSendGetRequest() throws Exception {
+
+        Jadler.onRequest()
+                .havingMethodEqualTo("GET")
+                .havingPathEqualTo("/jwks")
+                .havingQueryStringEqualTo("kid=1")
+                .respond()
+                .withStatus(404);
+
+        HTTPRequest httpRequest = new HTTPRequest(HTTPRequest.Method.GET,
+                new URL("http://localhost:" + port() + "/jwks"));
+        httpRequest.setQuery("kid=1");
+
+        HTTPResponse httpResponse = httpTransport.send(httpRequest);
+        assertEquals(httpResponse.getStatusCode(), 404);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testResponseSizeLimit() throws Exception {
+
+        Jadler.onRequest()
+                .havingMethodEqualTo("GET")
+                .havingPathEqualTo("/jwks")
+                .respond()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"keys\":[" + StringUtils.repeat("{},", 100) + "{}]}");
+
+        try (PooledHTTPTransport limitedTransport = new PooledHTTPTransport(5000, 5000, 2, 2, 60000L, 64)) {
+            limitedTransport.send(new HTTPRequest(HTTPRequest.Method.GET,
+                    new URL("http://localhost:" + port() + "/jwks")));
+        }
+    }
+
+    @Test
+    public void testSharedTransportIsNotClosed() throws Exception {
+
+        Jadler.onRequest()
+                .havingMethodEqualTo("GET")
+                .havingPathEqualTo("/jwks")
+                .respond()
+                .withStatus(200);
+
+        PooledHTTPTransport sharedTransport = PooledHTTPTransport.getInstance(new OIDCAgentConfig());
+        sharedTransport.close();
+
+        assertSame(PooledHTTPTransport.getInstance(new OIDCAgentConfig()), sharedTransport);
+        HTTPResponse httpResponse = sharedTransport.send(new HTTPRequest(HTTPRequest.Method.GET,
+                new URL("http://localhost:" + port() + "/jwks")));
+        assertEquals(httpResponse.getStatusCode(), 200);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        httpTransport.close();
+        closeJadler();
+    }
+
+    private static void restoreSystemProperty(String key, String value) {
+
+        if (value != null) {
+            System.setProperty(key, value);
+        } else {
+            System.clearProperty(key);
+        }
+    }
+}
@@ -20,8 +20,11 @@ package io.asgardeo.java.oidc.sdk.request;
 
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.oauth2.sdk.ResponseType;
 import com.nimbusds.oauth2.sdk.Scope;
 import com.nimbusds.oauth2.sdk.id.ClientID;
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.openid.connect.sdk.Nonce;
 import io.asgardeo.java.oidc.sdk.bean.RequestContext;
 import io.asgardeo.java.oidc.sdk.bean.SessionContext;
 import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
@@ -43,6 +46,8 @@ import java.text.ParseException;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @PrepareForTest({OIDCAgentConfig.class, SessionContext.class})
 public class OIDCRequestBuilderTest extends PowerMockTestCase {
@@ -93,6 +98,28 @@ public class OIDCRequestBuilderTest extends PowerMockTestCase {
                         "=sampleClientId");
     }
 
+    @Test
+    public void testAuthorizationURLTemplate() {
+
+        AuthorizationURLTemplate urlTemplate = AuthorizationURLTemplate.of(oidcAgentConfig);
+        State state = new State("sample state/1");
+        Nonce nonce = new Nonce();
+
+        URI expected = new com.nimbusds.openid.connect.sdk.AuthenticationRequest.Builder(
+                new ResponseType(ResponseType.Value.CODE), oidcAgentConfig.getScope(),
+                oidcAgentConfig.getConsumerKey(), oidcAgentConfig.getCallbackUrl())
+                .state(state)
+                .endpointURI(oidcAgentConfig.getAuthorizeEndpoint())
+                .nonce(nonce)
+                .build()
+                .toURI();
+
+        assertEquals(urlTemplate.build(state, nonce), expected);
+        assertTrue(urlTemplate.matches(oidcAgentConfig));
+        when(oidcAgentConfig.getScope()).thenReturn(new Scope("openid"));
+        assertFalse(urlTemplate.matches(oidcAgentConfig));
+    }
+
     @Test
     public void testBuildLogoutRequest() throws SSOAgentServerException {
 
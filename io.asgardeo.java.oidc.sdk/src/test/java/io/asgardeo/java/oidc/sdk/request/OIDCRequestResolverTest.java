@@ -18,14 +18,10 @@
 
 package io.asgardeo.java.oidc.sdk.request;
 
-import com.nimbusds.oauth2.sdk.AuthorizationResponse;
 import com.nimbusds.oauth2.sdk.ParseException;
-import com.nimbusds.oauth2.sdk.http.HTTPRequest;
-import com.nimbusds.oauth2.sdk.http.ServletUtils;
 import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
 import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.testng.PowerMockTestCase;
 import org.testng.IObjectFactory;
@@ -44,12 +40,14 @@ import java.util.Set;
 import javax.servlet.http.HttpServletRequest;
 
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
-@PrepareForTest({AuthorizationResponse.class})
 public class OIDCRequestResolverTest extends PowerMockTestCase {
 
     @Mock
@@ -76,19 +74,25 @@ public class OIDCRequestResolverTest extends PowerMockTestCase {
     @Test
     public void testIsAuthorizationCodeResponse() throws IOException, ParseException {
 
-        MockedStatic<AuthorizationResponse> mockedAuthorizationResponse = mockStatic(AuthorizationResponse.class);
-        MockedStatic<ServletUtils> mockedServletUtils = mockStatic(ServletUtils.class);
-        HTTPRequest httpRequest = mock(HTTPRequest.class);
-        AuthorizationResponse authorizationResponse = mock(AuthorizationResponse.class);
+        when(request.getParameter(SSOAgentConstants.CODE)).thenReturn("sampleCode");
+        when(request.getParameter(SSOAgentConstants.STATE)).thenReturn("sampleState");
 
-        when(ServletUtils.createHTTPRequest(request)).thenReturn(httpRequest);
-        when(AuthorizationResponse.parse(httpRequest)).thenReturn(authorizationResponse);
-        when(authorizationResponse.indicatesSuccess()).thenReturn(true);
+        OIDCRequestResolver resolver = new OIDCRequestResolver(request, oidcAgentConfig);
+        assertTrue(resolver.isAuthorizationCodeResponse());
+        assertEquals(resolver.getCallbackResponse().getAuthorizationCode().getValue(), "sampleCode");
+        assertEquals(resolver.getCallbackResponse().getState().getValue(), "sampleState");
+    }
+
+    @Test
+    public void testCallbackResponseIsParsedOnce() {
+
+        when(request.getParameter(SSOAgentConstants.CODE)).thenReturn("sampleCode");
 
         OIDCRequestResolver resolver = new OIDCRequestResolver(request, oidcAgentConfig);
+        assertFalse(resolver.isError());
         assertTrue(resolver.isAuthorizationCodeResponse());
-        mockedAuthorizationResponse.close();
-        mockedServletUtils.close();
+        assertSame(resolver.getCallbackResponse(), resolver.getCallbackResponse());
+        verify(request, times(1)).getParameter(SSOAgentConstants.CODE);
     }
 
     @Test
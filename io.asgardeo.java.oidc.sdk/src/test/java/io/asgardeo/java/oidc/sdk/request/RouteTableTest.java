@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.request;
+
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.request.RouteTable.Route;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+
+public class RouteTableTest {
+
+    private OIDCAgentConfig oidcAgentConfig;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        oidcAgentConfig = new OIDCAgentConfig();
+        oidcAgentConfig.setCallbackUrl(new URI("http://localhost:8080/sample-app/oauth2client"));
+        oidcAgentConfig.setLogoutURL("logout");
+        oidcAgentConfig.setSkipURIs(new HashSet<>(Arrays.asList("/sample-app/index.html", "/sample-app/static/*",
+                "*.css")));
+    }
+
+    @Test
+    public void testSkipURIPatterns() {
+
+        RouteTable routeTable = RouteTable.of(oidcAgentConfig);
+
+        assertEquals(routeTable.route("/sample-app/index.html"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/index.htm"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/static"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/static/js/app.js"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/statics"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/theme/main.css"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/theme/main.cs"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/home"), Route.PROTECTED);
+        assertEquals(routeTable.route(""), Route.PROTECTED);
+    }
+
+    @Test
+    public void testGlobPatterns() {
+
+        oidcAgentConfig.setSkipURIs(new HashSet<>(Arrays.asList("/sample-app/assets/main-*.js",
+                "/sample-app/**/*.png", "/sample-app/fonts/font-?.woff", "/sample-app/public/**")));
+        RouteTable routeTable = RouteTable.of(oidcAgentConfig);
+
+        assertEquals(routeTable.route("/sample-app/assets/main-3f2a9c.js"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/assets/main-.js"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/assets/main-3f2a9c.jsx"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/assets/main-3f/2a9c.js"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/logo.png"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/img/icons/logo.png"), Route.SKIP);
+        assertEquals(routeTable.route("/other-app/logo.png"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/fonts/font-a.woff"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/fonts/font-ab.woff"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/public/docs/index.html"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/oauth2client"), Route.CALLBACK);
+        assertEquals(routeTable.route("/sample-app/home"), Route.PROTECTED);
+    }
+
+    @Test
+    public void testManyPatterns() {
+
+        Set<String> skipURIs = new HashSet<>();
+        for (int i = 0; i < 3000; i++) {
+            skipURIs.add("/sample-app/module" + i + "/index.html");
+            skipURIs.add("/sample-app/module" + i + "/chunk-*.js");
+        }
+        oidcAgentConfig.setSkipURIs(skipURIs);
+        RouteTable routeTable = RouteTable.of(oidcAgentConfig);
+
+        assertEquals(routeTable.route("/sample-app/module2999/index.html"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/module1234/chunk-9e8d7c.js"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/module3000/index.html"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/module12/chunk-9e8d7c.css"), Route.PROTECTED);
+    }
+
+    @Test
+    public void testCallbackAndLogoutURLs() {
+
+        RouteTable routeTable = RouteTable.of(oidcAgentConfig);
+
+        assertEquals(routeTable.route("/sample-app/oauth2client"), Route.CALLBACK);
+        assertEquals(routeTable.route("/sample-app/oauth2client/other"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/logout"), Route.LOGOUT);
+        assertEquals(routeTable.route("/sample-app/logout/other"), Route.PROTECTED);
+    }
+
+    @Test
+    public void testSkipURIsTakePrecedence() {
+
+        oidcAgentConfig.getSkipURIs().add("/*");
+        RouteTable routeTable = RouteTable.of(oidcAgentConfig);
+
+        assertEquals(routeTable.route("/sample-app/logout"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/oauth2client"), Route.SKIP);
+    }
+
+    @Test
+    public void testUnnormalizedPathsAreProtected() {
+
+        oidcAgentConfig.getSkipURIs().add("/sample-app/assets/**/*.png");
+        RouteTable routeTable = RouteTable.of(oidcAgentConfig);
+
+        assertEquals(routeTable.route("/sample-app/static/../secret.jsp"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/static/./secret.jsp"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/static/.."), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/secret.jsp;.css"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/index.html;jsessionid=1"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/static/%2e%2e/secret.jsp"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/static\\..\\secret.jsp"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/assets/../admin/x;.png"), Route.PROTECTED);
+        assertEquals(routeTable.route("/sample-app/oauth2client;.css"), Route.PROTECTED);
+
+        assertEquals(routeTable.route("/sample-app/assets/img/x.png"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/static/..hidden/app.js"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/static/.well-known/app.js"), Route.SKIP);
+        assertEquals(routeTable.route("/sample-app/theme/main.min.css"), Route.SKIP);
+    }
+}
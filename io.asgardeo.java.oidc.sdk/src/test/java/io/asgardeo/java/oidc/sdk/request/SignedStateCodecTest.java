@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.request;
+
+import com.nimbusds.oauth2.sdk.auth.Secret;
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.openid.connect.sdk.Nonce;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentClientException;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class SignedStateCodecTest {
+
+    private static final Secret SECRET = new Secret("0123456789abcdef0123456789abcdef");
+
+    @Test
+    public void testEncodeAndDecode() throws Exception {
+
+        SignedStateCodec stateCodec = new SignedStateCodec(SECRET, 60000L);
+        Nonce nonce = new Nonce();
+
+        State state = stateCodec.encode(nonce, "binding");
+
+        assertEquals(stateCodec.decode(state.getValue(), "binding"), nonce);
+    }
+
+    @Test
+    public void testStateIsBoundToCookie() throws Exception {
+
+        SignedStateCodec stateCodec = new SignedStateCodec(SECRET, 60000L);
+        State state = stateCodec.encode(new Nonce(), "binding");
+
+        assertNull(stateCodec.decode(state.getValue(), "otherBinding"));
+        assertNull(stateCodec.decode(state.getValue(), null));
+    }
+
+    @Test
+    public void testTamperedStateIsRejected() throws Exception {
+
+        SignedStateCodec stateCodec = new SignedStateCodec(SECRET, 60000L);
+        String state = stateCodec.encode(new Nonce("nonce"), "binding").getValue();
+        String forged = new SignedStateCodec(new Secret("fedcba9876543210fedcba9876543210"), 60000L)
+                .encode(new Nonce("nonce"), "binding").getValue();
+
+        assertNull(stateCodec.decode(forged, "binding"));
+        assertNull(stateCodec.decode(state.substring(0, state.indexOf('.')) + forged.substring(forged.indexOf('.')),
+                "binding"));
+        assertNull(stateCodec.decode("not-a-signed-state", "binding"));
+    }
+
+    @Test
+    public void testExpiredStateIsRejected() throws Exception {
+
+        SignedStateCodec stateCodec = new SignedStateCodec(SECRET, -1000L);
+        State state = stateCodec.encode(new Nonce(), "binding");
+
+        assertNull(stateCodec.decode(state.getValue(), "binding"));
+    }
+
+    @Test(expectedExceptions = SSOAgentClientException.class)
+    public void testShortSecretIsRejected() throws Exception {
+
+        new SignedStateCodec(new Secret("short"), 60000L);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.request;
+
+import com.nimbusds.jose.util.Base64URL;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+public class StateNonceGeneratorTest {
+
+    @Test
+    public void testGenerateRequestContext() {
+
+        RequestContext requestContext = StateNonceGenerator.getInstance().generateRequestContext();
+
+        assertEquals(new Base64URL(requestContext.getState().getValue()).decode().length,
+                StateNonceGenerator.VALUE_LENGTH);
+        assertEquals(new Base64URL(requestContext.getNonce().getValue()).decode().length,
+                StateNonceGenerator.VALUE_LENGTH);
+        assertNotEquals(requestContext.getState().getValue(), requestContext.getNonce().getValue());
+    }
+
+    @Test
+    public void testValuesAreUniqueAcrossThreads() throws Exception {
+
+        Set<String> values = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 250; j++) {
+                        RequestContext requestContext = StateNonceGenerator.getInstance().generateRequestContext();
+                        values.add(requestContext.getState().getValue());
+                        values.add(requestContext.getNonce().getValue());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(values.size(), 2000);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.openid.connect.sdk.Nonce;
+import io.asgardeo.java.oidc.sdk.bean.AuthenticationMarker;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import io.asgardeo.java.oidc.sdk.bean.User;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class CookieSessionStoreTest {
+
+    private SecretKey secretKey;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(128);
+        secretKey = keyGenerator.generateKey();
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+    }
+
+    @Test
+    public void testSessionContextRoundTrip() throws Exception {
+
+        CookieSessionStore sessionStore = new CookieSessionStore(secretKey);
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setAccessToken("accessToken");
+        sessionContext.setIdToken("idToken");
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("email", "alice@example.com");
+        sessionContext.setUser(new User("alice", attributes));
+
+        sessionStore.storeSessionContext(request, response, sessionContext);
+        List<Cookie> cookies = getAddedCookies();
+        assertEquals(cookies.size(), 2);
+        assertTrue(cookies.get(0).isHttpOnly());
+
+        SessionContext restored = sessionStore.getSessionContext(requestWithCookies(cookies));
+        assertEquals(restored.getAccessToken(), "accessToken");
+        assertEquals(restored.getIdToken(), "idToken");
+        assertEquals(restored.getUser().getSubject(), "alice");
+        assertEquals(restored.getUser().getAttributes().get("email"), "alice@example.com");
+    }
+
+    @Test
+    public void testLargeSessionContextIsChunked() throws Exception {
+
+        CookieSessionStore sessionStore = new CookieSessionStore(secretKey);
+        SessionContext sessionContext = new SessionContext();
+        StringBuilder idToken = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            idToken.append("0123456789");
+        }
+        sessionContext.setIdToken(idToken.toString());
+
+        sessionStore.storeSessionContext(request, response, sessionContext);
+        List<Cookie> cookies = getAddedCookies();
+        assertTrue(cookies.size() > 1);
+
+        assertEquals(sessionStore.getSessionContext(requestWithCookies(cookies)).getIdToken(), idToken.toString());
+    }
+
+    @Test
+    public void testRequestContextRoundTrip() throws Exception {
+
+        CookieSessionStore sessionStore = new CookieSessionStore(secretKey);
+        RequestContext requestContext = new RequestContext(new State("state"), new Nonce("nonce"));
+
+        sessionStore.storeRequestContext(request, response, requestContext);
+        RequestContext restored = sessionStore.getRequestContext(requestWithCookies(getAddedCookies()));
+
+        assertEquals(restored.getState().getValue(), "state");
+        assertEquals(restored.getNonce().getValue(), "nonce");
+    }
+
+    @Test
+    public void testTamperedCookieIsRejected() throws Exception {
+
+        CookieSessionStore sessionStore = new CookieSessionStore(secretKey);
+        sessionStore.storeSessionContext(request, response, new SessionContext());
+        Cookie cookie = getAddedCookies().get(0);
+        char[] value = cookie.getValue().toCharArray();
+        value[value.length / 2] = value[value.length / 2] == 'A' ? 'B' : 'A';
+        cookie.setValue(new String(value));
+
+        assertNull(sessionStore.getSessionContext(requestWithCookies(Collections.singletonList(cookie))));
+    }
+
+    @Test
+    public void testCookieIsBoundToItsName() throws Exception {
+
+        CookieSessionStore sessionStore = new CookieSessionStore(secretKey);
+        sessionStore.storeSessionContext(request, response, new SessionContext());
+        Cookie cookie = getAddedCookies().get(0);
+        Cookie renamed = new Cookie(CookieSessionStore.REQUEST_CONTEXT_COOKIE_NAME, cookie.getValue());
+
+        assertNull(sessionStore.getRequestContext(requestWithCookies(Collections.singletonList(renamed))));
+    }
+
+    @Test
+    public void testAuthenticationMarkerIsReadWithoutSessionContext() throws Exception {
+
+        CookieSessionStore sessionStore = new CookieSessionStore(secretKey);
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setUser(new User("alice", new HashMap<>()));
+        sessionContext.setAccessTokenExpiryTime(System.currentTimeMillis() + 60000L);
+        sessionStore.storeSessionContext(request, response, sessionContext);
+
+        Cookie markerCookie = null;
+        for (Cookie cookie : getAddedCookies()) {
+            if (CookieSessionStore.AUTHENTICATION_MARKER_COOKIE_NAME.equals(cookie.getName())) {
+                markerCookie = cookie;
+            }
+        }
+        AuthenticationMarker authenticationMarker =
+                sessionStore.getAuthenticationMarker(requestWithCookies(Collections.singletonList(markerCookie)));
+
+        assertEquals(authenticationMarker.getSubject(), "alice");
+        assertTrue(authenticationMarker.getExpiryTime() > sessionContext.getAccessTokenExpiryTime());
+        assertFalse(authenticationMarker.isExpired());
+    }
+
+    @Test
+    public void testExpiredCookieIsRejected() throws Exception {
+
+        CookieSessionStore sessionStore = new CookieSessionStore(secretKey, 60000L, -1000L);
+        sessionStore.storeSessionContext(request, response, new SessionContext());
+
+        assertNull(sessionStore.getSessionContext(requestWithCookies(getAddedCookies())));
+    }
+
+    private List<Cookie> getAddedCookies() {
+
+        ArgumentCaptor<Cookie> captor = ArgumentCaptor.forClass(Cookie.class);
+        verify(response, atLeastOnce()).addCookie(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private HttpServletRequest requestWithCookies(List<Cookie> cookies) {
+
+        HttpServletRequest nextRequest = mock(HttpServletRequest.class);
+        when(nextRequest.getCookies()).thenReturn(cookies.toArray(new Cookie[0]));
+        return nextRequest;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
+import io.asgardeo.java.oidc.sdk.bean.AuthenticationMarker;
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import io.asgardeo.java.oidc.sdk.bean.User;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class HTTPSessionStoreTest {
+
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private HttpSession session;
+
+    @BeforeMethod
+    public void setUp() {
+
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        session = mock(HttpSession.class);
+        when(request.getSession()).thenReturn(session);
+        when(request.getSession(false)).thenReturn(session);
+    }
+
+    @Test
+    public void testAuthenticationMarkerIsStoredWithSessionContext() {
+
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setUser(new User("alice", new HashMap<>()));
+        sessionContext.setAccessTokenExpiryTime(1000L);
+        new HTTPSessionStore().storeSessionContext(request, response, sessionContext);
+
+        verify(session).setAttribute(SSOAgentConstants.SESSION_CONTEXT, sessionContext);
+        verify(session).setAttribute(eq(SSOAgentConstants.AUTHENTICATION_MARKER), any(AuthenticationMarker.class));
+    }
+
+    @Test
+    public void testAuthenticationMarkerIsReadWithoutSessionContext() {
+
+        when(session.getAttribute(SSOAgentConstants.AUTHENTICATION_MARKER))
+                .thenReturn(new AuthenticationMarker("alice", 1000L));
+        AuthenticationMarker authenticationMarker = new HTTPSessionStore().getAuthenticationMarker(request);
+
+        assertEquals(authenticationMarker.getSubject(), "alice");
+        assertTrue(authenticationMarker.isExpired());
+        verify(session, never()).getAttribute(SSOAgentConstants.SESSION_CONTEXT);
+    }
+
+    @Test
+    public void testAuthenticationMarkerOutlivesAccessToken() {
+
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setUser(new User("alice", new HashMap<>()));
+        sessionContext.setAccessTokenExpiryTime(System.currentTimeMillis() - 1000L);
+        when(session.getAttribute(SSOAgentConstants.SESSION_CONTEXT)).thenReturn(sessionContext);
+        AuthenticationMarker authenticationMarker = new HTTPSessionStore().getAuthenticationMarker(request);
+
+        assertEquals(authenticationMarker.getSubject(), "alice");
+        assertFalse(authenticationMarker.isExpired());
+    }
+
+    @Test
+    public void testNoAuthenticationMarkerWithoutSession() {
+
+        when(request.getSession(false)).thenReturn(null);
+
+        assertNull(new HTTPSessionStore().getAuthenticationMarker(request));
+    }
+}
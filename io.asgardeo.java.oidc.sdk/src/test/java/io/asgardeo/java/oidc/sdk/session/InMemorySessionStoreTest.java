@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.openid.connect.sdk.Nonce;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class InMemorySessionStoreTest {
+
+    private static final String COOKIE_NAME = "SID";
+
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @BeforeMethod
+    public void setUp() {
+
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+    }
+
+    @Test
+    public void testStoreAndGetContexts() throws Exception {
+
+        InMemorySessionStore sessionStore = new InMemorySessionStore(COOKIE_NAME, 10, 60000L);
+        RequestContext requestContext = new RequestContext(new State(), new Nonce());
+        SessionContext sessionContext = new SessionContext();
+
+        sessionStore.storeRequestContext(request, response, requestContext);
+        Cookie cookie = getAddedCookie();
+        assertTrue(cookie.isHttpOnly());
+
+        HttpServletRequest nextRequest = requestWithCookie(cookie);
+        sessionStore.storeSessionContext(nextRequest, response, sessionContext);
+
+        assertTrue(sessionStore.getRequestContext(nextRequest) == requestContext);
+        assertTrue(sessionStore.getSessionContext(nextRequest) == sessionContext);
+        assertEquals(sessionStore.size(), 1);
+    }
+
+    @Test
+    public void testClearRemovesEntry() throws Exception {
+
+        InMemorySessionStore sessionStore = new InMemorySessionStore(COOKIE_NAME, 10, 60000L);
+        sessionStore.storeSessionContext(request, response, new SessionContext());
+        Cookie cookie = getAddedCookie();
+        HttpServletRequest nextRequest = requestWithCookie(cookie);
+
+        sessionStore.clear(nextRequest, response);
+
+        assertNull(sessionStore.getSessionContext(nextRequest));
+        assertEquals(sessionStore.size(), 0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+
+        InMemorySessionStore sessionStore = new InMemorySessionStore(COOKIE_NAME, 2, 60000L);
+        HttpServletRequest[] requests = new HttpServletRequest[3];
+
+        for (int i = 0; i < requests.length; i++) {
+            HttpServletResponse stepResponse = mock(HttpServletResponse.class);
+            sessionStore.storeSessionContext(mock(HttpServletRequest.class), stepResponse, new SessionContext());
+            ArgumentCaptor<Cookie> captor = ArgumentCaptor.forClass(Cookie.class);
+            verify(stepResponse).addCookie(captor.capture());
+            requests[i] = requestWithCookie(captor.getValue());
+            if (i == 1) {
+                // Access the first entry, so that the second one is the least recently used.
+                sessionStore.getSessionContext(requests[0]);
+            }
+        }
+
+        assertEquals(sessionStore.size(), 2);
+        assertTrue(sessionStore.getSessionContext(requests[0]) != null);
+        assertNull(sessionStore.getSessionContext(requests[1]));
+        assertTrue(sessionStore.getSessionContext(requests[2]) != null);
+    }
+
+    @Test
+    public void testIdleEntryExpires() throws Exception {
+
+        InMemorySessionStore sessionStore = new InMemorySessionStore(COOKIE_NAME, 10, -1L);
+        sessionStore.storeSessionContext(request, response, new SessionContext());
+
+        assertNull(sessionStore.getSessionContext(requestWithCookie(getAddedCookie())));
+        assertEquals(sessionStore.size(), 0);
+    }
+
+    @Test
+    public void testSessionIdsAreUnique() throws Exception {
+
+        InMemorySessionStore sessionStore = new InMemorySessionStore(COOKIE_NAME, 10, 60000L);
+        HttpServletResponse otherResponse = mock(HttpServletResponse.class);
+
+        sessionStore.storeSessionContext(request, response, new SessionContext());
+        sessionStore.storeSessionContext(mock(HttpServletRequest.class), otherResponse, new SessionContext());
+
+        ArgumentCaptor<Cookie> captor = ArgumentCaptor.forClass(Cookie.class);
+        verify(otherResponse).addCookie(captor.capture());
+        assertNotEquals(getAddedCookie().getValue(), captor.getValue().getValue());
+    }
+
+    private Cookie getAddedCookie() {
+
+        ArgumentCaptor<Cookie> captor = ArgumentCaptor.forClass(Cookie.class);
+        verify(response).addCookie(captor.capture());
+        return captor.getValue();
+    }
+
+    private HttpServletRequest requestWithCookie(Cookie cookie) {
+
+        HttpServletRequest nextRequest = mock(HttpServletRequest.class);
+        when(nextRequest.getCookies()).thenReturn(new Cookie[]{cookie});
+        return nextRequest;
+    }
+}
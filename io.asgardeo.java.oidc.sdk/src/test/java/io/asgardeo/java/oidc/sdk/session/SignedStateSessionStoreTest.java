@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import com.nimbusds.oauth2.sdk.Scope;
+import com.nimbusds.oauth2.sdk.auth.Secret;
+import com.nimbusds.oauth2.sdk.id.ClientID;
+import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.request.OIDCRequestBuilder;
+import io.asgardeo.java.oidc.sdk.request.SignedStateCodec;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class SignedStateSessionStoreTest {
+
+    private OIDCAgentConfig oidcAgentConfig;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        oidcAgentConfig = new OIDCAgentConfig();
+        oidcAgentConfig.setConsumerKey(new ClientID("sampleClientId"));
+        oidcAgentConfig.setScope(new Scope("openid"));
+        oidcAgentConfig.setCallbackUrl(new URI("http://localhost:8080/sample-app/oauth2client"));
+        oidcAgentConfig.setAuthorizeEndpoint(new URI("https://localhost:9443/oauth2/authorize"));
+        oidcAgentConfig.setStateSigningSecret(new Secret("0123456789abcdef0123456789abcdef"));
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+    }
+
+    @Test
+    public void testRequestContextIsRestoredFromState() throws Exception {
+
+        SignedStateSessionStore sessionStore = new SignedStateSessionStore(oidcAgentConfig, mock(SessionStore.class));
+        RequestContext requestContext = buildRequestContext();
+
+        sessionStore.storeRequestContext(request, response, requestContext);
+        verify(request, never()).getSession();
+        verify(request, never()).getSession(anyBoolean());
+        ArgumentCaptor<Cookie> captor = ArgumentCaptor.forClass(Cookie.class);
+        verify(response).addCookie(captor.capture());
+
+        HttpServletRequest callbackRequest = mock(HttpServletRequest.class);
+        when(callbackRequest.getParameter(SSOAgentConstants.STATE)).thenReturn(requestContext.getState().getValue());
+        when(callbackRequest.getCookies()).thenReturn(new Cookie[]{captor.getValue()});
+        RequestContext restored = sessionStore.getRequestContext(callbackRequest);
+
+        assertEquals(restored.getState(), requestContext.getState());
+        assertEquals(restored.getNonce(), requestContext.getNonce());
+    }
+
+    @Test
+    public void testStateWithoutBindingCookieIsRejected() throws Exception {
+
+        SignedStateSessionStore sessionStore = new SignedStateSessionStore(oidcAgentConfig, mock(SessionStore.class));
+        RequestContext requestContext = buildRequestContext();
+
+        HttpServletRequest callbackRequest = mock(HttpServletRequest.class);
+        when(callbackRequest.getParameter(SSOAgentConstants.STATE)).thenReturn(requestContext.getState().getValue());
+
+        assertNull(sessionStore.getRequestContext(callbackRequest));
+    }
+
+    @Test
+    public void testRotatedStateSigningSecretIsUsed() throws Exception {
+
+        SignedStateSessionStore sessionStore = new SignedStateSessionStore(oidcAgentConfig, mock(SessionStore.class));
+        // The configuration is reloaded with a rotated secret, with which the manager signs the states.
+        oidcAgentConfig.setStateSigningSecret(new Secret("fedcba9876543210fedcba9876543210"));
+        SignedStateCodec rotatedStateCodec = new SignedStateCodec(oidcAgentConfig.getStateSigningSecret(),
+                oidcAgentConfig.getStateTTL());
+        RequestContext requestContext = buildRequestContext();
+
+        sessionStore.storeRequestContext(request, response, requestContext);
+        ArgumentCaptor<Cookie> captor = ArgumentCaptor.forClass(Cookie.class);
+        verify(response).addCookie(captor.capture());
+        HttpServletRequest callbackRequest = mock(HttpServletRequest.class);
+        when(callbackRequest.getParameter(SSOAgentConstants.STATE)).thenReturn(requestContext.getState().getValue());
+        when(callbackRequest.getCookies()).thenReturn(new Cookie[]{captor.getValue()});
+        assertNull(sessionStore.getRequestContext(callbackRequest));
+
+        sessionStore.setStateCodecSupplier(() -> rotatedStateCodec);
+        assertEquals(sessionStore.getRequestContext(callbackRequest).getNonce(), requestContext.getNonce());
+    }
+
+    private RequestContext buildRequestContext() throws Exception {
+
+        SignedStateCodec stateCodec = new SignedStateCodec(oidcAgentConfig.getStateSigningSecret(),
+                oidcAgentConfig.getStateTTL());
+        return new OIDCRequestBuilder(oidcAgentConfig, stateCodec).buildAuthenticationRequest().getRequestContext();
+    }
+}
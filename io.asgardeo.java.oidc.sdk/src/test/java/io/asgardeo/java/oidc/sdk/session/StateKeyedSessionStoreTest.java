@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.session;
+
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.openid.connect.sdk.Nonce;
+import io.asgardeo.java.oidc.sdk.SSOAgentConstants;
+import io.asgardeo.java.oidc.sdk.bean.RequestContext;
+import io.asgardeo.java.oidc.sdk.bean.SessionContext;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentServerException;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class StateKeyedSessionStoreTest {
+
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private SessionStore sessionContextStore;
+
+    @BeforeMethod
+    public void setUp() {
+
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        sessionContextStore = mock(SessionStore.class);
+    }
+
+    @Test
+    public void testRequestContextIsLookedUpByState() throws Exception {
+
+        StateKeyedSessionStore sessionStore = new StateKeyedSessionStore(sessionContextStore, 10, 60000L);
+        RequestContext requestContext = new RequestContext(new State("state1"), new Nonce());
+
+        sessionStore.storeRequestContext(request, response, requestContext);
+
+        verify(request, never()).getSession();
+        verify(request, never()).getSession(anyBoolean());
+        assertSame(sessionStore.getRequestContext(callbackRequest("state1")), requestContext);
+        // A request context can be used only once.
+        assertNull(sessionStore.getRequestContext(callbackRequest("state1")));
+        assertNull(sessionStore.getRequestContext(callbackRequest("unknown")));
+        assertNull(sessionStore.getRequestContext(request));
+    }
+
+    @Test
+    public void testRequestContextIsBoundToUserAgent() throws Exception {
+
+        StateKeyedSessionStore sessionStore = new StateKeyedSessionStore(sessionContextStore, 10, 60000L);
+        RequestContext requestContext = new RequestContext(new State("state1"), new Nonce());
+        sessionStore.storeRequestContext(request, response, requestContext);
+
+        // A callback with the right state, but from a user agent without the binding cookie.
+        assertNull(sessionStore.getRequestContext(callbackRequest("state1", null)));
+        assertNull(sessionStore.getRequestContext(callbackRequest("state1",
+                new Cookie(StateKeyedSessionStore.BINDING_COOKIE_NAME, "otherBinding"))));
+        // Rejected callbacks do not consume the request context of the user agent.
+        assertSame(sessionStore.getRequestContext(callbackRequest("state1")), requestContext);
+    }
+
+    @Test
+    public void testBindingCookieIsSharedByConcurrentAuthentications() throws Exception {
+
+        StateKeyedSessionStore sessionStore = new StateKeyedSessionStore(sessionContextStore, 10, 60000L);
+        sessionStore.storeRequestContext(request, response, new RequestContext(new State("state1"), new Nonce()));
+        Cookie bindingCookie = getBindingCookie();
+        when(request.getCookies()).thenReturn(new Cookie[]{bindingCookie});
+        sessionStore.storeRequestContext(request, response, new RequestContext(new State("state2"), new Nonce()));
+
+        assertEquals(getBindingCookie().getValue(), bindingCookie.getValue());
+        assertEquals(sessionStore.getRequestContext(callbackRequest("state1", bindingCookie)).getState().getValue(),
+                "state1");
+        assertEquals(sessionStore.getRequestContext(callbackRequest("state2", bindingCookie)).getState().getValue(),
+                "state2");
+    }
+
+    @Test
+    public void testOldestRequestContextIsEvicted() throws Exception {
+
+        StateKeyedSessionStore sessionStore = new StateKeyedSessionStore(sessionContextStore, 2, 60000L);
+
+        for (int i = 0; i < 3; i++) {
+            sessionStore.storeRequestContext(request, response, new RequestContext(new State("state" + i),
+                    new Nonce()));
+            Cookie bindingCookie = getBindingCookie();
+            when(request.getCookies()).thenReturn(new Cookie[]{bindingCookie});
+        }
+
+        assertEquals(sessionStore.size(), 2);
+        assertNull(sessionStore.getRequestContext(callbackRequest("state0")));
+        assertEquals(sessionStore.getRequestContext(callbackRequest("state2")).getState().getValue(), "state2");
+    }
+
+    @Test
+    public void testExpiredRequestContextIsRejected() throws Exception {
+
+        StateKeyedSessionStore sessionStore = new StateKeyedSessionStore(sessionContextStore, 10, -1L);
+        sessionStore.storeRequestContext(request, response, new RequestContext(new State("state1"), new Nonce()));
+        sessionStore.storeRequestContext(request, response, new RequestContext(new State("state2"), new Nonce()));
+
+        // Expired entries are evicted when new request contexts are stored.
+        assertEquals(sessionStore.size(), 1);
+        assertNull(sessionStore.getRequestContext(callbackRequest("state2")));
+    }
+
+    @Test(expectedExceptions = SSOAgentServerException.class)
+    public void testRequestContextWithoutState() throws Exception {
+
+        new StateKeyedSessionStore(sessionContextStore, 10, 60000L)
+                .storeRequestContext(request, response, new RequestContext());
+    }
+
+    @Test
+    public void testSessionContextIsDelegated() throws Exception {
+
+        StateKeyedSessionStore sessionStore = new StateKeyedSessionStore(sessionContextStore, 10, 60000L);
+        SessionContext sessionContext = new SessionContext();
+        when(sessionContextStore.getSessionContext(request)).thenReturn(sessionContext);
+
+        sessionStore.storeSessionContext(request, response, sessionContext);
+        sessionStore.clear(request, response);
+
+        verify(sessionContextStore).storeSessionContext(request, response, sessionContext);
+        verify(sessionContextStore).clear(request, response);
+        assertSame(sessionStore.getSessionContext(request), sessionContext);
+    }
+
+    private HttpServletRequest callbackRequest(String state) {
+
+        return callbackRequest(state, getBindingCookie());
+    }
+
+    private HttpServletRequest callbackRequest(String state, Cookie bindingCookie) {
+
+        HttpServletRequest callbackRequest = mock(HttpServletRequest.class);
+        when(callbackRequest.getParameter(SSOAgentConstants.STATE)).thenReturn(state);
+        if (bindingCookie != null) {
+            when(callbackRequest.getCookies()).thenReturn(new Cookie[]{bindingCookie});
+        }
+        return callbackRequest;
+    }
+
+    private Cookie getBindingCookie() {
+
+        ArgumentCaptor<Cookie> cookieCaptor = ArgumentCaptor.forClass(Cookie.class);
+        verify(response, atLeastOnce()).addCookie(cookieCaptor.capture());
+        List<Cookie> cookies = cookieCaptor.getAllValues();
+        Cookie bindingCookie = cookies.get(cookies.size() - 1);
+        assertEquals(bindingCookie.getName(), StateKeyedSessionStore.BINDING_COOKIE_NAME);
+        assertTrue(bindingCookie.isHttpOnly());
+        return bindingCookie;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.validators;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.oauth2.sdk.Scope;
+import com.nimbusds.oauth2.sdk.auth.Secret;
+import com.nimbusds.oauth2.sdk.id.ClientID;
+import com.nimbusds.oauth2.sdk.id.Issuer;
+import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
+import io.asgardeo.java.oidc.sdk.exception.SSOAgentServerException;
+import net.jadler.Jadler;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+import static net.jadler.Jadler.closeJadler;
+import static net.jadler.Jadler.initJadler;
+import static net.jadler.Jadler.port;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class AccessTokenValidatorTest {
+
+    private OIDCAgentConfig config;
+    private RSAKey key;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        initJadler();
+        KeyPairGenerator pairGen = KeyPairGenerator.getInstance("RSA");
+        pairGen.initialize(2048);
+        KeyPair keyPair = pairGen.generateKeyPair();
+        key = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
+                .privateKey((RSAPrivateKey) keyPair.getPrivate())
+                .keyID(UUID.randomUUID().toString())
+                .build();
+
+        config = new OIDCAgentConfig();
+        config.setIssuer(new Issuer("issuer"));
+        config.setConsumerKey(new ClientID("sampleClientId"));
+        config.setConsumerSecret(new Secret("sampleClientSecret"));
+        config.setJwksEndpoint(new URI("http://localhost:" + port() + "/jwksEP"));
+        config.setTrustedAudience(Collections.singleton("resourceServer"));
+
+        Jadler.onRequest()
+                .havingMethodEqualTo("GET")
+                .havingPathEqualTo("/jwksEP")
+                .respond()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody(new JWKSet(key).toJSONObject(true).toJSONString());
+    }
+
+    @Test
+    public void testValidAccessToken() throws Exception {
+
+        AccessTokenValidator validator = AccessTokenValidator.getInstance(config);
+        assertSame(AccessTokenValidator.getInstance(config), validator);
+        assertNull(validator.getVerifiedTokenCache());
+
+        String accessToken = sign(claims().claim("scope", "read write").build());
+        JWTClaimsSet claimsSet = validator.validate(accessToken, new Scope("read", "write"));
+        assertEquals(claimsSet.getSubject(), "alice");
+
+        accessToken = sign(claims().claim("scp", Arrays.asList("read", "write")).build());
+        claimsSet = validator.validate(accessToken, new Scope("write"));
+        assertEquals(claimsSet.getSubject(), "alice");
+    }
+
+    @Test
+    public void testVerifiedTokenCache() throws Exception {
+
+        config.setVerifiedTokenCacheSize(10);
+        AccessTokenValidator validator = AccessTokenValidator.getInstance(config);
+
+        String accessToken = sign(claims().claim("scope", "read").build());
+        JWTClaimsSet claimsSet = validator.validate(accessToken, new Scope("read"));
+        assertSame(validator.validate(accessToken, new Scope("read")), claimsSet);
+        assertEquals(validator.getVerifiedTokenCache().size(), 1);
+
+        try {
+            validator.validate(accessToken, new Scope("write"));
+            fail("A cached access token must still be checked for the required scopes.");
+        } catch (SSOAgentServerException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testVerifiedTokenCacheSizeIsPartOfValidatorKey() throws Exception {
+
+        AccessTokenValidator validator = AccessTokenValidator.getInstance(config);
+        IDTokenValidator idTokenValidator = IDTokenValidator.getInstance(config);
+        config.setVerifiedTokenCacheSize(20);
+
+        assertNotSame(AccessTokenValidator.getInstance(config), validator);
+        assertSame(IDTokenValidator.getInstance(config), idTokenValidator);
+    }
+
+    @Test(expectedExceptions = SSOAgentServerException.class)
+    public void testExpiredAccessToken() throws Exception {
+
+        String accessToken = sign(claims().expirationTime(new Date(System.currentTimeMillis() - 3600000L)).build());
+        AccessTokenValidator.getInstance(config).validate(accessToken, null);
+    }
+
+    @Test(expectedExceptions = SSOAgentServerException.class)
+    public void testNotYetValidAccessToken() throws Exception {
+
+        String accessToken = sign(claims().notBeforeTime(new Date(System.currentTimeMillis() + 3600000L)).build());
+        AccessTokenValidator.getInstance(config).validate(accessToken, null);
+    }
+
+    @Test(expectedExceptions = SSOAgentServerException.class)
+    public void testInvalidIssuer() throws Exception {
+
+        String accessToken = sign(claims().issuer("otherIssuer").build());
+        AccessTokenValidator.getInstance(config).validate(accessToken, null);
+    }
+
+    @Test(expectedExceptions = SSOAgentServerException.class)
+    public void testUntrustedAudience() throws Exception {
+
+        String accessToken = sign(claims().audience("otherResourceServer").build());
+        AccessTokenValidator.getInstance(config).validate(accessToken, null);
+    }
+
+    @Test(expectedExceptions = SSOAgentServerException.class)
+    public void testMissingScope() throws Exception {
+
+        String accessToken = sign(claims().claim("scope", "read").build());
+        AccessTokenValidator.getInstance(config).validate(accessToken, new Scope("read", "write"));
+    }
+
+    @Test(expectedExceptions = SSOAgentServerException.class)
+    public void testInvalidSignature() throws Exception {
+
+        SignedJWT accessToken = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.HS256).keyID(key.getKeyID())
+                .build(), claims().build());
+        accessToken.sign(new MACSigner(new byte[32]));
+        AccessTokenValidator.getInstance(config).validate(accessToken.serialize(), null);
+    }
+
+    private JWTClaimsSet.Builder claims() {
+
+        return new JWTClaimsSet.Builder()
+                .issuer("issuer")
+                .subject("alice")
+                .audience("resourceServer")
+                .expirationTime(new Date(System.currentTimeMillis() + 3600000L))
+                .issueTime(new Date());
+    }
+
+    private String sign(JWTClaimsSet claims) throws JOSEException {
+
+        SignedJWT accessToken = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256)
+                .type(new JOSEObjectType("at+jwt"))
+                .keyID(key.getKeyID())
+                .build(), claims);
+        accessToken.sign(new RSASSASigner(key));
+        return accessToken.serialize();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        closeJadler();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.asgardeo.java.oidc.sdk.validators;
+
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+import org.testng.annotations.Test;
+
+import java.text.ParseException;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class CachedClaimsSignedJWTTest {
+
+    private static final String SIGNED_JWT = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.eyJzdWIiOiIxMjM0NTY3ODkwIiwibmFtZS" +
+            "I6IkpvaG4gRG9lIiwiaWF0IjoxNTE2MjM5MDIyfQ.SflKxwRJSMeKKF2QT4fwpMeJf36POk6yJV_adQssw5c";
+
+    @Test
+    public void testClaimsSetParsedOnce() throws ParseException {
+
+        JWT jwt = CachedClaimsSignedJWT.parseJWT(SIGNED_JWT);
+        assertTrue(jwt instanceof CachedClaimsSignedJWT);
+
+        JWTClaimsSet claimsSet = jwt.getJWTClaimsSet();
+        assertSame(jwt.getJWTClaimsSet(), claimsSet);
+        assertEquals(claimsSet.getSubject(), "1234567890");
+        assertEquals(jwt.getParsedString(), SIGNED_JWT);
+    }
+
+    @Test
+    public void testUnsecuredJWT() throws ParseException {
+
+        String plainJWT = new PlainJWT(new JWTClaimsSet.Builder().subject("alice").build()).serialize();
+
+        JWT jwt = CachedClaimsSignedJWT.parseJWT(plainJWT);
+        assertTrue(jwt instanceof PlainJWT);
+        assertEquals(jwt.getJWTClaimsSet().getSubject(), "alice");
+    }
+}
@@ -39,6 +39,7 @@ import com.nimbusds.openid.connect.sdk.Nonce;
 import com.nimbusds.openid.connect.sdk.claims.IDTokenClaimsSet;
 import io.asgardeo.java.oidc.sdk.config.model.OIDCAgentConfig;
 import io.asgardeo.java.oidc.sdk.exception.SSOAgentServerException;
+import io.asgardeo.java.oidc.sdk.http.HTTPTransport;
 import net.jadler.Jadler;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -64,7 +65,10 @@ import java.util.Set;
 import static net.jadler.Jadler.closeJadler;
 import static net.jadler.Jadler.initJadler;
 import static net.jadler.Jadler.port;
+import static org.mockito.Mockito.mock;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 public class IDTokenValidatorTest {
@@ -284,6 +288,59 @@ public class IDTokenValidatorTest {
         assertEquals(claimsSet.getNonce(), nonce);
     }
 
+    @Test
+    public void testSharedValidatorInstance() throws SSOAgentServerException, JOSEException {
+
+        IDTokenValidator validator = IDTokenValidator.getInstance(config);
+        assertSame(IDTokenValidator.getInstance(config), validator);
+
+        for (int i = 0; i < 2; i++) {
+            Nonce nonce = new Nonce();
+            JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                    .issuer(config.getIssuer().getValue())
+                    .subject("alice")
+                    .audience(config.getConsumerKey().getValue())
+                    .expirationTime(new Date())
+                    .issueTime(new Date())
+                    .claim("nonce", nonce.getValue())
+                    .build();
+
+            SignedJWT idToken = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claims);
+            idToken.sign(new RSASSASigner(key));
+
+            IDTokenClaimsSet claimsSet = validator.validate(idToken, nonce);
+            assertEquals(claimsSet.getNonce(), nonce);
+        }
+    }
+
+    @Test
+    public void testValidatorInstancePerTransport() throws SSOAgentServerException {
+
+        HTTPTransport httpTransport = mock(HTTPTransport.class);
+        IDTokenValidator validator = IDTokenValidator.getInstance(config, httpTransport);
+
+        assertNotSame(IDTokenValidator.getInstance(config), validator);
+        assertSame(IDTokenValidator.getInstance(config, httpTransport), validator);
+    }
+
+    @Test
+    public void testEvictReplacedValidator() throws SSOAgentServerException {
+
+        IDTokenValidator validator = IDTokenValidator.getInstance(config);
+        OIDCAgentConfig replacement = new OIDCAgentConfig();
+        replacement.setIssuer(config.getIssuer());
+        replacement.setConsumerKey(config.getConsumerKey());
+        replacement.setConsumerSecret(config.getConsumerSecret());
+        replacement.setJwksEndpoint(config.getJwksEndpoint());
+
+        IDTokenValidator.evict(config, replacement);
+        assertSame(IDTokenValidator.getInstance(config), validator);
+
+        replacement.setConsumerSecret(new Secret("rotatedClientSecret"));
+        IDTokenValidator.evict(config, replacement);
+        assertNotSame(IDTokenValidator.getInstance(config), validator);
+    }
+
     @AfterMethod
     public void tearDown() {
 